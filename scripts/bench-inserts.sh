@@ -0,0 +1,44 @@
+#!/usr/bin/env sh
+# Compare le débit d'écriture du seed et des commandes (InsertThroughputBenchmark) entre deux révisions,
+# par exemple avant et après un changement de génération des ids ou de batching JDBC.
+#
+# Usage : scripts/bench-inserts.sh <révision avant> [<révision après>]   (HEAD par défaut)
+#
+# Chaque révision est extraite dans un worktree temporaire, avec la version courante du benchmark, et
+# tourne sur sa propre base, recréée vide à chaque lancement : ${BENCH_DB}_before et ${BENCH_DB}_after
+# (BENCH_DB vaut infotech_bench par défaut). dropdb et createdb doivent pouvoir joindre le serveur
+# (PGHOST, PGPORT, PGUSER) ; l'application s'y connecte avec DB_USERNAME et DB_PASSWORD.
+# Les autres variables d'environnement de l'application (JWT_SECRET, STRIPE_SECRET_KEY...) doivent être définies.
+# BENCH_ARGS passe des options à Maven, par exemple BENCH_ARGS="-Dbench.products=5000 -Dbench.orders=5000".
+set -eu
+
+if [ $# -lt 1 ]; then
+    sed -n '2,13p' "$0"
+    exit 1
+fi
+before=$1
+after=${2:-HEAD}
+db=${BENCH_DB:-infotech_bench}
+root=$(git rev-parse --show-toplevel)
+bench=src/test/java/com/n2s/infotech/benchmark/InsertThroughputBenchmark.java
+work=$(mktemp -d)
+trap 'for w in "$work"/*; do git -C "$root" worktree remove --force "$w" 2>/dev/null || true; done; rm -rf "$work"' EXIT
+
+run() {
+    name=$1
+    revision=$2
+    dropdb --if-exists "${db}_$name"
+    createdb "${db}_$name"
+    git -C "$root" worktree add --detach --quiet "$work/$name" "$revision"
+    mkdir -p "$work/$name/$(dirname "$bench")"
+    cp "$root/$bench" "$work/$name/$bench"
+    echo "== $name : $(git -C "$root" rev-parse --short "$revision")"
+    (cd "$work/$name" \
+        && DATABASE_URL="jdbc:postgresql://${PGHOST:-localhost}:${PGPORT:-5432}/${db}_$name" \
+           mvn -B -q test -Dtest=InsertThroughputBenchmark ${BENCH_ARGS:-} > "$work/$name.log" 2>&1) \
+        || { echo "Échec, voir la fin du journal :"; tail -n 40 "$work/$name.log"; exit 1; }
+    grep -o '\[bench\].*' "$work/$name.log"
+}
+
+run before "$before"
+run after "$after"
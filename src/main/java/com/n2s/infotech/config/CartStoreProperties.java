@@ -0,0 +1,38 @@
+package com.n2s.infotech.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration du stockage en mémoire des paniers
+ */
+@Configuration
+@ConfigurationProperties(prefix = "cart-store")
+@Getter
+@Setter
+public class CartStoreProperties {
+
+    /**
+     * Nombre maximal de paniers gardés en mémoire ; au-delà les moins récemment utilisés sont retirés
+     */
+    private int maxCarts = 100_000;
+
+    /**
+     * Durée d'inactivité après laquelle un panier est retiré de la mémoire (il reste en base)
+     */
+    private Duration idleTtl = Duration.ofMinutes(30);
+
+    /**
+     * Délai d'écriture différée des paniers modifiés dans cart_items
+     */
+    private Duration flushInterval = Duration.ofSeconds(2);
+
+    /**
+     * Intervalle entre deux passages de l'éviction
+     */
+    private Duration evictInterval = Duration.ofMinutes(1);
+}
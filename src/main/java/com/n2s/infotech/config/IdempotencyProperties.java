@@ -0,0 +1,49 @@
+package com.n2s.infotech.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration des clés d'idempotence (en-tête Idempotency-Key)
+ */
+@Configuration
+@ConfigurationProperties(prefix = "idempotency")
+@Getter
+@Setter
+public class IdempotencyProperties {
+
+    /**
+     * Durée de conservation de la réponse d'une requête terminée
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Durée de conservation d'une réponse dans le cache local de l'instance ; au-delà elle est relue en base
+     */
+    private Duration localTtl = Duration.ofMinutes(10);
+
+    /**
+     * Durée au-delà de laquelle une requête encore en cours est considérée comme abandonnée
+     * (instance arrêtée) et peut être rejouée
+     */
+    private Duration lease = Duration.ofMinutes(2);
+
+    /**
+     * Attente maximale d'une requête dupliquée sur la requête d'origine encore en cours
+     */
+    private Duration waitTimeout = Duration.ofSeconds(30);
+
+    /**
+     * Intervalle de scrutation de la base pendant cette attente
+     */
+    private Duration pollInterval = Duration.ofMillis(100);
+
+    /**
+     * Intervalle entre deux purges des clés expirées
+     */
+    private Duration cleanupInterval = Duration.ofMinutes(10);
+}
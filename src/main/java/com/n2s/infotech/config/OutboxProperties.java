@@ -0,0 +1,54 @@
+package com.n2s.infotech.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration de la boîte d'envoi des événements de commande
+ */
+@Configuration
+@ConfigurationProperties(prefix = "outbox")
+@Getter
+@Setter
+public class OutboxProperties {
+
+    /**
+     * Nombre de dispatchers livrant les événements en parallèle
+     */
+    private int dispatchers = 2;
+
+    /**
+     * Nombre maximal d'événements pris par un dispatcher à chaque passage
+     */
+    private int batchSize = 50;
+
+    /**
+     * Attente d'un dispatcher quand il n'y a plus rien à livrer (réveillé plus tôt après une commande)
+     */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * Durée pendant laquelle un événement pris reste réservé à son dispatcher ; au-delà (instance arrêtée)
+     * il est repris par un autre
+     */
+    private Duration lease = Duration.ofMinutes(5);
+
+    /**
+     * Nombre de tentatives avant de passer un événement en FAILED
+     */
+    private int maxAttempts = 10;
+
+    /**
+     * Délai avant le deuxième essai, doublé à chaque échec
+     */
+    private Duration initialBackoff = Duration.ofSeconds(10);
+
+    /**
+     * Délai maximal entre deux essais
+     */
+    private Duration maxBackoff = Duration.ofHours(1);
+}
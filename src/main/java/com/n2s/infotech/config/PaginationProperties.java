@@ -0,0 +1,58 @@
+package com.n2s.infotech.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Configuration du comptage des listes paginées
+ */
+@Configuration
+@ConfigurationProperties(prefix = "pagination")
+@Getter
+@Setter
+public class PaginationProperties {
+
+    /**
+     * Mode de comptage par défaut de chaque liste (products, listings, reviews, users, orders),
+     * surchargeable par le paramètre de requête count=exact|estimate|none
+     */
+    private Map<String, CountMode> count = new HashMap<>(Map.of(
+            "products", CountMode.ESTIMATE,
+            "listings", CountMode.ESTIMATE,
+            "reviews", CountMode.ESTIMATE,
+            "users", CountMode.EXACT,
+            "orders", CountMode.EXACT
+    ));
+
+    /**
+     * Durée après laquelle un total mis en cache est recalculé en tâche de fond
+     */
+    private Duration countCacheTtl = Duration.ofMinutes(5);
+
+    public CountMode resolve(String endpoint, String requested) {
+        if (requested != null && !requested.isBlank()) {
+            try {
+                return CountMode.valueOf(requested.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Mode de comptage invalide: " + requested);
+            }
+        }
+        return count.getOrDefault(endpoint, CountMode.EXACT);
+    }
+
+    public enum CountMode {
+        /** count(*) exact à chaque page */
+        EXACT,
+        /** total estimé (statistiques du planificateur ou total en cache) */
+        ESTIMATE,
+        /** Slice : pas de total, seulement hasNext */
+        NONE
+    }
+}
@@ -0,0 +1,44 @@
+package com.n2s.infotech.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration de la recherche produits
+ */
+@Configuration
+@ConfigurationProperties(prefix = "search")
+@Getter
+@Setter
+public class SearchProperties {
+
+    /**
+     * Moteur de recherche : memory (index inversé local) ou postgres (tsvector + GIN partagé entre les nœuds,
+     * voir SearchSchemaInitializer). L'index en mémoire est construit dans les deux cas pour les facettes.
+     */
+    private String engine = "memory";
+
+    /**
+     * Nombre maximal de fautes de frappe tolérées par terme de la recherche en mémoire (0 désactive) ;
+     * 1 seule pour les termes de 4 à 5 lettres, aucune en dessous
+     */
+    private int fuzzyMaxEdits = 2;
+
+    /**
+     * Fichier d'instantané de l'index d'autocomplétion, relu au démarrage pour éviter un parcours complet de la table
+     */
+    private String suggestSnapshot = "./data/suggest.snapshot";
+
+    /**
+     * Âge au-delà duquel l'instantané est ignoré et l'index reconstruit depuis la base
+     */
+    private Duration suggestSnapshotMaxAge = Duration.ofHours(24);
+
+    public boolean isPostgres() {
+        return "postgres".equalsIgnoreCase(engine);
+    }
+}
@@ -54,6 +54,7 @@ public class SecurityConfig {
                                 "/api/listings/**",
                                 "/api/reviews/product/**",
                                 "/api/digital-passports/product/**",
+                                "/api/webhooks/**",
                                 "/uploads/**",
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**",
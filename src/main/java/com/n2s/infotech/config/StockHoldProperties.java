@@ -0,0 +1,38 @@
+package com.n2s.infotech.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration des réservations de stock des paniers
+ */
+@Configuration
+@ConfigurationProperties(prefix = "stock-hold")
+@Getter
+@Setter
+public class StockHoldProperties {
+
+    /**
+     * Durée d'une réservation, prolongée à chaque activité sur le panier
+     */
+    private Duration ttl = Duration.ofMinutes(15);
+
+    /**
+     * Nombre maximal de réservations expirées libérées par passage de l'expirateur
+     */
+    private int expireBatchSize = 500;
+
+    /**
+     * Intervalle entre deux passages de l'expirateur
+     */
+    private Duration expireInterval = Duration.ofSeconds(30);
+
+    /**
+     * Délai d'écriture différée des réservations dans stock_holds
+     */
+    private Duration flushInterval = Duration.ofSeconds(2);
+}
@@ -0,0 +1,50 @@
+package com.n2s.infotech.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration des appels à l'API Stripe
+ */
+@Configuration
+@ConfigurationProperties(prefix = "stripe.client")
+@Getter
+@Setter
+public class StripeClientProperties {
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Attente maximale de la réponse de Stripe
+     */
+    private Duration readTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Nouvelles tentatives du client Stripe sur erreur réseau (rejouées avec la même clé d'idempotence)
+     */
+    private int maxNetworkRetries = 1;
+
+    /**
+     * Nombre d'échecs consécutifs (réseau, délai dépassé, erreur 5xx) qui ouvrent le circuit
+     */
+    private int failureThreshold = 5;
+
+    /**
+     * Durée pendant laquelle le circuit ouvert refuse les appels avant un appel d'essai
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * Remplace Stripe par un bouchon local (développement, tests de charge)
+     */
+    private boolean stub = false;
+
+    /**
+     * Latence simulée par le bouchon pour chaque appel
+     */
+    private Duration stubLatency = Duration.ZERO;
+}
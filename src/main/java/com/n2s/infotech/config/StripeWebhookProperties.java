@@ -0,0 +1,61 @@
+package com.n2s.infotech.config;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Configuration du webhook Stripe
+ */
+@Configuration
+@ConfigurationProperties(prefix = "stripe.webhook")
+@Validated
+@Getter
+@Setter
+public class StripeWebhookProperties {
+
+    /**
+     * Secret de signature du point de terminaison (whsec_...) ; obligatoire, sans lui toute livraison
+     * serait refusée : l'application ne démarre pas s'il manque
+     */
+    @NotBlank(message = "stripe.webhook.secret (STRIPE_WEBHOOK_SECRET) est obligatoire")
+    private String secret;
+
+    /**
+     * Nombre d'ids d'événements récents gardés en mémoire pour écarter les doublons sans requête
+     */
+    private int dedupCacheSize = 10_000;
+
+    /**
+     * Nombre maximal d'événements appliqués aux commandes par transaction
+     */
+    private int batchSize = 500;
+
+    /**
+     * Intervalle entre deux traitements des événements reçus
+     */
+    private Duration processInterval = Duration.ofSeconds(1);
+
+    /**
+     * Conservation des événements traités, pour écarter les renvois tardifs de Stripe (jusqu'à 3 jours)
+     */
+    private Duration retention = Duration.ofDays(7);
+
+    /**
+     * Délai avant de reprendre un événement dont le PaymentIntent n'a pas encore de commande
+     * (commande en cours d'enregistrement à l'arrivée de l'événement)
+     */
+    private Duration retryInterval = Duration.ofSeconds(30);
+
+    /**
+     * Durée, depuis la réception, pendant laquelle un événement sans commande est repris ; au-delà il est abandonné
+     */
+    private Duration retryHorizon = Duration.ofHours(1);
+
+    private Duration cleanupInterval = Duration.ofHours(1);
+}
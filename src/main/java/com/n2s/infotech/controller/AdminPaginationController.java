@@ -0,0 +1,37 @@
+package com.n2s.infotech.controller;
+
+import com.n2s.infotech.service.PageCountService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controller de suivi de la pagination (ADMIN uniquement)
+ */
+@RestController
+@RequestMapping("/api/admin/pagination")
+@RequiredArgsConstructor
+@Tag(name = "Admin - Pagination", description = "Suivi des requêtes de comptage (ADMIN uniquement)")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminPaginationController {
+
+    private final PageCountService pageCountService;
+
+    /**
+     * Compteurs des count(*) exécutés, évités et estimés par liste
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "Statistiques de comptage", description = "Nombre de count(*) exécutés, évités (Slice) et remplacés par une estimation")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(pageCountService.getStats());
+    }
+}
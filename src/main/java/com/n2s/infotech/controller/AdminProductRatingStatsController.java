@@ -0,0 +1,37 @@
+package com.n2s.infotech.controller;
+
+import com.n2s.infotech.service.ProductRatingStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controller de maintenance des statistiques d'avis par produit (ADMIN uniquement)
+ */
+@RestController
+@RequestMapping("/api/admin/product-rating-stats")
+@RequiredArgsConstructor
+@Tag(name = "Admin - Catalogue", description = "Maintenance de product_rating_stats (ADMIN uniquement)")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminProductRatingStatsController {
+
+    private final ProductRatingStatsService productRatingStatsService;
+
+    /**
+     * Recalcule product_rating_stats depuis les avis et corrige les lignes qui diffèrent
+     */
+    @PostMapping("/rebuild")
+    @Operation(summary = "Reconstruire product_rating_stats", description = "Recalcul en un GROUP BY sur reviews, seules les lignes différentes sont réécrites")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        return ResponseEntity.ok(productRatingStatsService.rebuild());
+    }
+}
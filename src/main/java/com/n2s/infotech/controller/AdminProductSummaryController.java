@@ -0,0 +1,37 @@
+package com.n2s.infotech.controller;
+
+import com.n2s.infotech.service.ProductSummaryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Controller de maintenance du modèle de lecture du catalogue (ADMIN uniquement)
+ */
+@RestController
+@RequestMapping("/api/admin/product-summary")
+@RequiredArgsConstructor
+@Tag(name = "Admin - Catalogue", description = "Maintenance de product_summary (ADMIN uniquement)")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminProductSummaryController {
+
+    private final ProductSummaryService productSummaryService;
+
+    /**
+     * Recalcule product_summary depuis les listings, avis, images et passeports
+     */
+    @PostMapping("/rebuild")
+    @Operation(summary = "Reconstruire product_summary", description = "Recalcul complet par tranches d'identifiants traitées en parallèle")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        return ResponseEntity.ok(productSummaryService.rebuild());
+    }
+}
@@ -7,7 +7,13 @@ import com.n2s.infotech.repository.CartItemRepository;
 import com.n2s.infotech.repository.FavoriteRepository;
 import com.n2s.infotech.repository.ListingRepository;
 import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.repository.ProductRatingStatsRepository;
+import com.n2s.infotech.repository.ProductSummaryRepository;
 import com.n2s.infotech.repository.SellerProfileRepository;
+import com.n2s.infotech.search.ProductSearchIndex;
+import com.n2s.infotech.search.ProductSuggestIndex;
+import com.n2s.infotech.service.CartStore;
+import com.n2s.infotech.service.ProductOfferService;
 import com.n2s.infotech.service.SeedService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -29,6 +35,12 @@ public class AdminSeedController {
     private final ListingRepository listingRepository;
     private final FavoriteRepository favoriteRepository;
     private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductOfferService productOfferService;
+    private final ProductSummaryRepository productSummaryRepository;
+    private final ProductRatingStatsRepository productRatingStatsRepository;
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -45,9 +57,14 @@ public class AdminSeedController {
     public ResponseEntity<Map<String, String>> clearAllProducts() {
         try {
             // Delete dependencies first to avoid foreign key constraint violations
+            cartStore.reset();
             cartItemRepository.deleteAll();
             favoriteRepository.deleteAll();
             productRepository.deleteAll();
+            productSummaryRepository.deleteAllInBatch();
+            productRatingStatsRepository.deleteAllInBatch();
+            productSearchIndex.clear();
+            productSuggestIndex.clear();
             return ResponseEntity.ok(Map.of(
                 "message", "Tous les produits ont été supprimés avec succès"
             ));
@@ -129,6 +146,7 @@ public class AdminSeedController {
                             .build();
                         
                         listingRepository.save(listing);
+                        productOfferService.refresh(product.getId());
                         created++;
                         listingsCreatedForProduct++;
                         }
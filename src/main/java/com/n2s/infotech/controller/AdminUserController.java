@@ -1,5 +1,6 @@
 package com.n2s.infotech.controller;
 
+import com.n2s.infotech.dto.CursorPageDto;
 import com.n2s.infotech.dto.UserProfileDto;
 import com.n2s.infotech.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -7,9 +8,9 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -35,16 +36,30 @@ public class AdminUserController {
      */
     @GetMapping
     @Operation(summary = "Lister tous les utilisateurs", description = "Récupère la liste paginée de tous les utilisateurs")
-    public ResponseEntity<Page<UserProfileDto>> getAllUsers(
+    public ResponseEntity<Slice<UserProfileDto>> getAllUsers(
             @Parameter(description = "Numéro de page (commence à 0)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Taille de la page") @RequestParam(defaultValue = "20") int size,
-            @Parameter(description = "Recherche par email ou nom") @RequestParam(required = false) String search
+            @Parameter(description = "Recherche par email ou nom") @RequestParam(required = false) String search,
+            @Parameter(description = "Comptage : exact, estimate ou none (sans total)") @RequestParam(required = false) String count
     ) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<UserProfileDto> users = userService.getAllUsers(pageable, search);
+        Slice<UserProfileDto> users = userService.getAllUsers(pageable, search, count);
         return ResponseEntity.ok(users);
     }
 
+    /**
+     * Lister les utilisateurs par curseur
+     */
+    @GetMapping("/scroll")
+    @Operation(summary = "Lister les utilisateurs par curseur", description = "Pagination keyset : repasser nextCursor pour obtenir la suite")
+    public ResponseEntity<CursorPageDto<UserProfileDto>> scrollUsers(
+            @Parameter(description = "Curseur renvoyé par la page précédente") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Taille de la page") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "Recherche par email ou nom") @RequestParam(required = false) String search
+    ) {
+        return ResponseEntity.ok(userService.scrollUsers(cursor, size, search));
+    }
+
     /**
      * Récupérer un utilisateur par ID
      */
@@ -8,6 +8,7 @@ import com.n2s.infotech.model.SellerProfile;
 import com.n2s.infotech.repository.ListingRepository;
 import com.n2s.infotech.repository.ProductRepository;
 import com.n2s.infotech.repository.SellerProfileRepository;
+import com.n2s.infotech.service.ProductOfferService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -21,12 +22,14 @@ public class ListingAdminController {
     private final ListingRepository listingRepository;
     private final ProductRepository productRepository;
     private final SellerProfileRepository sellerProfileRepository;
+    private final ProductOfferService productOfferService;
 
     @Autowired
-    public ListingAdminController(ListingRepository listingRepository, ProductRepository productRepository, SellerProfileRepository sellerProfileRepository) {
+    public ListingAdminController(ListingRepository listingRepository, ProductRepository productRepository, SellerProfileRepository sellerProfileRepository, ProductOfferService productOfferService) {
         this.listingRepository = listingRepository;
         this.productRepository = productRepository;
         this.sellerProfileRepository = sellerProfileRepository;
+        this.productOfferService = productOfferService;
     }
 
     @PostMapping
@@ -42,6 +45,7 @@ public class ListingAdminController {
                 .active(true)
                 .build();
         l = listingRepository.save(l);
+        productOfferService.refresh(p.getId());
         // map to DTO
         return ListingDto.builder()
                 .id(l.getId())
@@ -77,6 +81,9 @@ public class ListingAdminController {
 
     @DeleteMapping("/{id}")
     public void delete(@PathVariable Long id) {
-        listingRepository.deleteById(id);
+        listingRepository.findById(id).ifPresent(l -> {
+            listingRepository.delete(l);
+            productOfferService.refresh(l.getProduct().getId());
+        });
     }
 }
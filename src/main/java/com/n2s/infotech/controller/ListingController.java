@@ -1,10 +1,12 @@
 package com.n2s.infotech.controller;
 
+import com.n2s.infotech.dto.CursorPageDto;
 import com.n2s.infotech.dto.ListingDto;
 import com.n2s.infotech.service.ListingService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -19,8 +21,17 @@ public class ListingController {
     }
 
     @GetMapping
-    public Page<ListingDto> list(Pageable pageable, @RequestParam(required = false) String search) {
-        return listingService.listListings(pageable, search);
+    public Slice<ListingDto> list(Pageable pageable,
+                                  @RequestParam(required = false) String search,
+                                  @RequestParam(required = false) String count) {
+        return listingService.listListings(pageable, search, count);
+    }
+
+    @GetMapping("/scroll")
+    public CursorPageDto<ListingDto> scroll(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "20") int size,
+                                            Sort sort) {
+        return listingService.scrollListings(cursor, size, sort);
     }
 
     @GetMapping("/{id}")
@@ -29,8 +40,17 @@ public class ListingController {
     }
     
     @GetMapping("/by-product/{productId}")
-    public Page<ListingDto> getByProduct(@PathVariable Long productId, Pageable pageable) {
-        return listingService.getListingsByProduct(productId, pageable);
+    public Slice<ListingDto> getByProduct(@PathVariable Long productId, Pageable pageable,
+                                          @RequestParam(required = false) String count) {
+        return listingService.getListingsByProduct(productId, pageable, count);
+    }
+
+    @GetMapping("/by-product/{productId}/scroll")
+    public CursorPageDto<ListingDto> scrollByProduct(@PathVariable Long productId,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "20") int size,
+                                                     Sort sort) {
+        return listingService.scrollListingsByProduct(productId, cursor, size, sort);
     }
 }
 
@@ -2,18 +2,21 @@ package com.n2s.infotech.controller;
 
 import com.n2s.infotech.dto.CreateOrderRequest;
 import com.n2s.infotech.dto.OrderDto;
+import com.n2s.infotech.service.IdempotencyService;
 import com.n2s.infotech.service.OrderService;
 import com.n2s.infotech.service.StripeService;
 import com.stripe.exception.StripeException;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,13 +34,15 @@ public class OrderController {
     private final StripeService stripeService;
 
     @PostMapping
-    public ResponseEntity<OrderDto> createOrder(@Valid @RequestBody CreateOrderRequest request) {
-        return ResponseEntity.ok(orderService.createOrder(request));
+    public ResponseEntity<OrderDto> createOrder(@Valid @RequestBody CreateOrderRequest request,
+                                                @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(orderService.createOrder(request, idempotencyKey));
     }
 
     @GetMapping
-    public ResponseEntity<List<OrderDto>> getUserOrders(@RequestParam Long userId) {
-        return ResponseEntity.ok(orderService.getUserOrders(userId));
+    public ResponseEntity<Slice<OrderDto>> getUserOrders(@RequestParam Long userId, Pageable pageable,
+                                                         @RequestParam(required = false) String count) {
+        return ResponseEntity.ok(orderService.getUserOrders(userId, pageable, count));
     }
 
     @GetMapping("/{id}")
@@ -55,10 +60,12 @@ public class OrderController {
     }
 
     @PostMapping("/create-payment-intent")
-    public ResponseEntity<Map<String, String>> createPaymentIntent(@RequestBody Map<String, Long> request) {
+    public ResponseEntity<Map<String, String>> createPaymentIntent(@RequestBody Map<String, Long> request,
+                                                                   @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                                                   Authentication authentication) {
         try {
             Long amount = request.get("amount"); // Montant en centimes
-            Map<String, String> response = stripeService.createPaymentIntent(amount);
+            Map<String, String> response = stripeService.createPaymentIntent(amount, authentication.getName(), idempotencyKey);
             return ResponseEntity.ok(response);
         } catch (StripeException e) {
             log.error("Erreur Stripe: {}", e.getMessage());
@@ -3,17 +3,21 @@ package com.n2s.infotech.controller;
 import com.n2s.infotech.dto.CreateDigitalPassportRequest;
 import com.n2s.infotech.dto.CreateProductRequest;
 import com.n2s.infotech.dto.ProductDto;
+import com.n2s.infotech.event.ProductChangedEvent;
 import com.n2s.infotech.model.Category;
 import com.n2s.infotech.model.Product;
 import com.n2s.infotech.model.ProductImage;
 import com.n2s.infotech.repository.CategoryRepository;
 import com.n2s.infotech.repository.ProductImageRepository;
 import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.search.ProductSearchIndex;
+import com.n2s.infotech.search.ProductSuggestIndex;
 import com.n2s.infotech.service.CloudinaryService;
 import com.n2s.infotech.service.DigitalPassportService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -33,6 +37,9 @@ public class ProductAdminController {
     private final ProductImageRepository productImageRepository;
     private final CloudinaryService cloudinaryService;
     private final DigitalPassportService digitalPassportService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @PostMapping
     public ResponseEntity<ProductDto> create(@RequestBody CreateProductRequest req) {
@@ -51,6 +58,8 @@ public class ProductAdminController {
                 .build();
 
         p = productRepository.save(p);
+        productSearchIndex.index(p);
+        productSuggestIndex.index(p);
 
         // handle image URLs (upload to cloudinary and persist ProductImage)
         if (req.getImageUrls() != null && !req.getImageUrls().isEmpty()) {
@@ -70,6 +79,7 @@ public class ProductAdminController {
                     log.warn("Failed to upload image {}: {}", url, ex.getMessage());
                 }
             }
+            eventPublisher.publishEvent(new ProductChangedEvent(p.getId(), ProductChangedEvent.Source.IMAGE));
         }
 
         // create passport if provided
@@ -1,14 +1,15 @@
 package com.n2s.infotech.controller;
 
+import com.n2s.infotech.dto.CursorPageDto;
+import com.n2s.infotech.dto.ProductCardDto;
 import com.n2s.infotech.dto.ProductDto;
-import com.n2s.infotech.model.Product;
-import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.dto.SuggestionDto;
 import com.n2s.infotech.service.ProductService;
-import com.n2s.infotech.specification.ProductSpecification;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -19,24 +20,58 @@ import java.util.List;
 public class ProductController {
 
     private final ProductService productService;
-    private final ProductRepository productRepository;
 
     @GetMapping
-    public Page<ProductDto> list(
+    public Slice<ProductDto> list(
             Pageable pageable,
             @RequestParam(required = false) String search,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) String condition,
             @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(required = false) String count
+    ) {
+        return productService.filterProducts(pageable, search, categoryId, brand, condition, minPrice, maxPrice, facets, count);
+    }
+
+    /**
+     * Pagination par curseur : temps constant quelle que soit la profondeur, sans count(*)
+     */
+    @GetMapping("/scroll")
+    public CursorPageDto<ProductDto> scroll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Sort sort,
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String brand,
+            @RequestParam(required = false) String condition,
+            @RequestParam(required = false) Double minPrice,
             @RequestParam(required = false) Double maxPrice
     ) {
-        Specification<Product> spec = ProductSpecification.filterProducts(
-                search, categoryId, brand, condition, minPrice, maxPrice
-        );
+        return productService.scrollProducts(cursor, size, sort, search, categoryId, brand, condition, minPrice, maxPrice);
+    }
+
+    /**
+     * Grille du catalogue (prix min, vendeurs, note, vignette, badge passeport) en une requête sur product_summary
+     */
+    @GetMapping("/catalog")
+    public Slice<ProductCardDto> catalog(
+            Pageable pageable,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String count
+    ) {
+        return productService.catalog(pageable, categoryId, count);
+    }
 
-        Page<Product> products = productRepository.findAll(spec, pageable);
-        return products.map(productService::convertToDto);
+    /**
+     * Autocomplétion (titres, marques, modèles, catégories) servie depuis la mémoire
+     */
+    @GetMapping("/suggest")
+    public List<SuggestionDto> suggest(@RequestParam String q, @RequestParam(defaultValue = "8") int limit) {
+        return productService.suggest(q, limit);
     }
 
     @GetMapping("/{id}")
@@ -46,17 +81,17 @@ public class ProductController {
 
     @GetMapping("/brands")
     public List<String> getAllBrands() {
-        return productRepository.findAllBrands();
+        return productService.getBrands();
     }
 
     @GetMapping("/conditions")
     public List<String> getAllConditions() {
-        return productRepository.findAllConditions();
+        return productService.getConditions();
     }
 
     @GetMapping("/search")
     public Page<ProductDto> search(@RequestParam String q, Pageable pageable) {
-        return productRepository.searchProducts(q, pageable).map(productService::convertToDto);
+        return productService.searchProducts(q, pageable);
     }
 }
 
@@ -1,16 +1,21 @@
 package com.n2s.infotech.controller;
 
+import com.n2s.infotech.dto.CursorPageDto;
 import com.n2s.infotech.dto.ReviewDto;
 import com.n2s.infotech.dto.ReviewStatsDto;
 import com.n2s.infotech.service.ReviewService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Contrôleur pour la gestion des avis produits
  *
@@ -25,11 +30,22 @@ public class ReviewController {
     private final ReviewService reviewService;
 
     @GetMapping("/product/{productId}")
-    public ResponseEntity<Page<ReviewDto>> getProductReviews(
+    public ResponseEntity<Slice<ReviewDto>> getProductReviews(
             @PathVariable Long productId,
-            Pageable pageable
+            Pageable pageable,
+            @RequestParam(required = false) String count
     ) {
-        return ResponseEntity.ok(reviewService.getProductReviews(productId, pageable));
+        return ResponseEntity.ok(reviewService.getProductReviews(productId, pageable, count));
+    }
+
+    @GetMapping("/product/{productId}/scroll")
+    public ResponseEntity<CursorPageDto<ReviewDto>> scrollProductReviews(
+            @PathVariable Long productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Sort sort
+    ) {
+        return ResponseEntity.ok(reviewService.scrollProductReviews(productId, cursor, size, sort));
     }
 
     @GetMapping("/product/{productId}/stats")
@@ -37,6 +53,14 @@ public class ReviewController {
         return ResponseEntity.ok(reviewService.getProductReviewStats(productId));
     }
 
+    /**
+     * Statistiques d'avis de plusieurs produits, ex: /api/reviews/product/stats?ids=1,2,3
+     */
+    @GetMapping("/product/stats")
+    public ResponseEntity<Map<Long, ReviewStatsDto>> getProductsReviewStats(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(reviewService.getProductsReviewStats(ids));
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('USER', 'SELLER', 'ADMIN')")
     public ResponseEntity<ReviewDto> createReview(@Valid @RequestBody ReviewDto dto) {
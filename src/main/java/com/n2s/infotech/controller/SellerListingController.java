@@ -10,6 +10,7 @@ import com.n2s.infotech.repository.ListingRepository;
 import com.n2s.infotech.repository.ProductRepository;
 import com.n2s.infotech.repository.SellerProfileRepository;
 import com.n2s.infotech.repository.UserRepository;
+import com.n2s.infotech.service.ProductOfferService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -36,6 +37,7 @@ public class SellerListingController {
     private final ProductRepository productRepository;
     private final SellerProfileRepository sellerProfileRepository;
     private final UserRepository userRepository;
+    private final ProductOfferService productOfferService;
 
     @GetMapping
     @Operation(summary = "Récupérer mes listings", description = "Récupère tous les listings du vendeur connecté")
@@ -79,6 +81,7 @@ public class SellerListingController {
                 .build();
 
         listing = listingRepository.save(listing);
+        productOfferService.refresh(product.getId());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(convertToDto(listing));
     }
@@ -109,6 +112,7 @@ public class SellerListingController {
         listing.setConditionNote(request.getConditionNote());
 
         listing = listingRepository.save(listing);
+        productOfferService.refresh(listing.getProduct().getId());
 
         return ResponseEntity.ok(convertToDto(listing));
     }
@@ -134,6 +138,7 @@ public class SellerListingController {
         }
 
         listingRepository.deleteById(id);
+        productOfferService.refresh(listing.getProduct().getId());
 
         return ResponseEntity.noContent().build();
     }
@@ -160,6 +165,7 @@ public class SellerListingController {
 
         listing.setActive(!listing.getActive());
         listing = listingRepository.save(listing);
+        productOfferService.refresh(listing.getProduct().getId());
 
         return ResponseEntity.ok(convertToDto(listing));
     }
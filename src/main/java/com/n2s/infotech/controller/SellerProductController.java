@@ -2,6 +2,7 @@ package com.n2s.infotech.controller;
 
 import com.n2s.infotech.dto.CreateProductRequest;
 import com.n2s.infotech.dto.ProductDto;
+import com.n2s.infotech.event.ProductChangedEvent;
 import com.n2s.infotech.model.Category;
 import com.n2s.infotech.model.Product;
 import com.n2s.infotech.model.ProductImage;
@@ -10,11 +11,14 @@ import com.n2s.infotech.repository.CategoryRepository;
 import com.n2s.infotech.repository.ProductRepository;
 import com.n2s.infotech.repository.SellerProfileRepository;
 import com.n2s.infotech.repository.UserRepository;
+import com.n2s.infotech.search.ProductSearchIndex;
+import com.n2s.infotech.search.ProductSuggestIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -37,6 +41,9 @@ public class SellerProductController {
     private final CategoryRepository categoryRepository;
     private final SellerProfileRepository sellerProfileRepository;
     private final UserRepository userRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @GetMapping
     @Operation(summary = "Récupérer tous les produits", description = "Récupère la liste de tous les produits disponibles")
@@ -88,6 +95,8 @@ public class SellerProductController {
                 .build();
 
         product = productRepository.save(product);
+        productSearchIndex.index(product);
+        productSuggestIndex.index(product);
 
         return ResponseEntity.status(HttpStatus.CREATED).body(convertToDto(product));
     }
@@ -123,6 +132,8 @@ public class SellerProductController {
         product.setCondition(request.getCondition());
 
         product = productRepository.save(product);
+        productSearchIndex.index(product);
+        productSuggestIndex.index(product);
 
         return ResponseEntity.ok(convertToDto(product));
     }
@@ -144,6 +155,9 @@ public class SellerProductController {
                 .orElseThrow(() -> new RuntimeException("Produit non trouvé"));
 
         productRepository.deleteById(id);
+        productSearchIndex.remove(id);
+        productSuggestIndex.remove(id);
+        eventPublisher.publishEvent(new ProductChangedEvent(id, ProductChangedEvent.Source.PRODUCT));
 
         return ResponseEntity.noContent().build();
     }
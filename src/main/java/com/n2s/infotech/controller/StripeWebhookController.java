@@ -0,0 +1,37 @@
+package com.n2s.infotech.controller;
+
+import com.n2s.infotech.service.StripeWebhookService;
+import com.stripe.exception.SignatureVerificationException;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Point de terminaison du webhook Stripe (public, authentifié par la signature Stripe-Signature)
+ */
+@RestController
+@RequestMapping("/api/webhooks/stripe")
+@RequiredArgsConstructor
+@Tag(name = "Webhooks", description = "Evenements envoyes par Stripe")
+@Slf4j
+public class StripeWebhookController {
+
+    private final StripeWebhookService stripeWebhookService;
+
+    @PostMapping
+    @Operation(summary = "Recevoir un evenement Stripe",
+               description = "Verifie la signature et enregistre l'evenement ; le paiement des commandes est mis a jour en arriere-plan")
+    public ResponseEntity<Void> receive(@RequestBody String payload,
+                                        @RequestHeader("Stripe-Signature") String signature) {
+        try {
+            stripeWebhookService.ingest(payload, signature);
+            return ResponseEntity.ok().build();
+        } catch (SignatureVerificationException e) {
+            log.warn("Signature de webhook Stripe invalide: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
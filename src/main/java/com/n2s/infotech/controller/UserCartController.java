@@ -1,5 +1,8 @@
 package com.n2s.infotech.controller;
 
+import com.n2s.infotech.dto.CartBulkRequest;
+import com.n2s.infotech.dto.CartBulkResponse;
+import com.n2s.infotech.dto.CartDto;
 import com.n2s.infotech.dto.CartItemDto;
 import com.n2s.infotech.model.User;
 import com.n2s.infotech.repository.UserRepository;
@@ -38,6 +41,15 @@ public class UserCartController {
         return ResponseEntity.ok(cart);
     }
 
+    @GetMapping("/summary")
+    @Operation(summary = "Recuperer mon panier avec ses totaux", description = "Articles du panier avec total par ligne, sous-total et alertes de stock")
+    public ResponseEntity<CartDto> getMyCartSummary(Authentication authentication) {
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return ResponseEntity.ok(cartService.getCart(user.getId()));
+    }
+
     @PostMapping
     @Operation(summary = "Ajouter au panier", description = "Ajoute un article au panier")
     public ResponseEntity<CartItemDto> addToCart(
@@ -52,6 +64,19 @@ public class UserCartController {
         return ResponseEntity.status(HttpStatus.CREATED).body(cartItem);
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Modifier le panier en une fois",
+               description = "Applique une liste d'ajouts (ADD), mises a jour (SET) et retraits (REMOVE), avec un resultat par operation")
+    public ResponseEntity<CartBulkResponse> bulkUpdate(
+            @RequestBody CartBulkRequest request,
+            Authentication authentication) {
+
+        User user = userRepository.findByEmail(authentication.getName())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        return ResponseEntity.ok(cartService.bulkUpdate(user.getId(), request));
+    }
+
     @PutMapping("/{id}/quantity")
     @Operation(summary = "Modifier la quantite", description = "Modifie la quantite d'un article dans le panier")
     public ResponseEntity<CartItemDto> updateQuantity(
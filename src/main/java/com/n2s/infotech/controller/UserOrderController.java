@@ -6,6 +6,7 @@ import com.n2s.infotech.model.Order;
 import com.n2s.infotech.model.User;
 import com.n2s.infotech.repository.OrderRepository;
 import com.n2s.infotech.repository.UserRepository;
+import com.n2s.infotech.service.IdempotencyService;
 import com.n2s.infotech.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -13,14 +14,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/user/orders")
 @RequiredArgsConstructor
@@ -35,12 +36,13 @@ public class UserOrderController {
     private final UserRepository userRepository;
 
     @GetMapping
-    @Operation(summary = "Recuperer mes commandes", description = "Liste toutes les commandes de l'utilisateur connecte")
-    public ResponseEntity<List<OrderDto>> getMyOrders(Authentication authentication) {
+    @Operation(summary = "Recuperer mes commandes", description = "Liste paginee des commandes de l'utilisateur connecte, les plus recentes d'abord")
+    public ResponseEntity<Slice<OrderDto>> getMyOrders(Authentication authentication, Pageable pageable,
+                                                       @RequestParam(required = false) String count) {
         User user = userRepository.findByEmail(authentication.getName())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        List<OrderDto> orders = orderService.getUserOrders(user.getId());
+        Slice<OrderDto> orders = orderService.getUserOrders(user.getId(), pageable, count);
 
         return ResponseEntity.ok(orders);
     }
@@ -62,9 +64,10 @@ public class UserOrderController {
     }
 
     @PostMapping
-    @Operation(summary = "Creer une commande", description = "Cree une nouvelle commande a partir du panier")
+    @Operation(summary = "Creer une commande", description = "Cree une nouvelle commande a partir du panier ; une requete rejouee avec le meme en-tete Idempotency-Key renvoie la commande deja creee")
     public ResponseEntity<OrderDto> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
 
         User user = userRepository.findByEmail(authentication.getName())
@@ -72,7 +75,7 @@ public class UserOrderController {
 
         request.setBuyerId(user.getId());
 
-        OrderDto orderDto = orderService.createOrder(request);
+        OrderDto orderDto = orderService.createOrder(request, idempotencyKey);
 
         // L'email de confirmation est envoye par le frontend Angular
         // via POST /api/emails/send apres generation du HTML
@@ -0,0 +1,38 @@
+package com.n2s.infotech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Modifications groupées du panier, appliquées dans l'ordre (ex: fusion du panier invité après connexion)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartBulkRequest {
+    private List<Operation> operations;
+
+    public enum Type {
+        // Ajoute la quantité à celle déjà au panier
+        ADD,
+        // Fixe la quantité de la ligne
+        SET,
+        // Retire la ligne
+        REMOVE
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Operation {
+        private Type type;
+        private Long listingId;
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,33 @@
+package com.n2s.infotech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Résultat de chaque opération groupée, dans l'ordre de la requête, et panier obtenu
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartBulkResponse {
+    private List<Result> results;
+    private CartDto cart;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Result {
+        private CartBulkRequest.Type type;
+        private Long listingId;
+        private boolean success;
+        // Quantité de la ligne après l'opération (0 si retirée)
+        private Integer quantity;
+        private String error;
+    }
+}
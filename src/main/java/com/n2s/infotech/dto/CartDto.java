@@ -0,0 +1,23 @@
+package com.n2s.infotech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Panier complet : lignes, sous-total et alertes de stock
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartDto {
+    private List<CartItemDto> items;
+    private BigDecimal subtotal;
+    private Integer totalQuantity;
+    private Boolean hasStockWarnings;
+}
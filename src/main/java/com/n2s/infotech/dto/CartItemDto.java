@@ -19,5 +19,11 @@ public class CartItemDto {
     private BigDecimal price;
     private Integer quantity;
     private String sellerShopName;
+    private String imageUrl;
+    private BigDecimal lineTotal;
+    // Quantité encore disponible pour cet acheteur (stock moins les réservations des autres paniers)
+    private Integer availableQuantity;
+    // UNAVAILABLE (offre retirée), OUT_OF_STOCK ou INSUFFICIENT_STOCK ; null si la ligne peut être commandée
+    private String stockWarning;
 }
 
@@ -0,0 +1,27 @@
+package com.n2s.infotech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Offre d'une ligne de panier avec son produit, son vendeur et sa vignette, lue en une seule requête
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartLineView {
+    private Long listingId;
+    private Long productId;
+    private String productTitle;
+    private String productBrand;
+    private BigDecimal price;
+    private Integer stock;
+    private Boolean active;
+    private String sellerShopName;
+    private String thumbnailUrl;
+}
@@ -13,5 +13,7 @@ public class CategoryDto {
     private Long id;
     private String name;
     private String description;
+    private Long parentId;
+    private String path; // chemin matérialisé "/racine/.../id/", calculé par CategoryTreeCache
 }
 
@@ -0,0 +1,29 @@
+package com.n2s.infotech.dto;
+
+import com.n2s.infotech.util.ScrollCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page renvoyée en pagination par curseur : pas de total ni de numéro de page,
+ * nextCursor est à repasser tel quel pour obtenir la suite (null en fin de liste)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDto<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+
+    public static <E, T> CursorPageDto<T> of(Window<E> window, Function<E, T> mapper) {
+        List<T> content = window.getContent().stream().map(mapper).toList();
+        return new CursorPageDto<>(content, content.size(), window.hasNext(), ScrollCursor.encode(window));
+    }
+}
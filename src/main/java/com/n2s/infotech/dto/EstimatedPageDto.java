@@ -0,0 +1,18 @@
+package com.n2s.infotech.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+
+/**
+ * Page dont le total est une estimation (même format JSON qu'une Page, avec "totalEstimated": true)
+ */
+public class EstimatedPageDto<T> extends PageImpl<T> {
+
+    public EstimatedPageDto(Slice<T> slice, long estimatedTotal) {
+        super(slice.getContent(), slice.getPageable(), estimatedTotal);
+    }
+
+    public boolean isTotalEstimated() {
+        return true;
+    }
+}
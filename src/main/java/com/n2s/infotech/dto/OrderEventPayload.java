@@ -0,0 +1,43 @@
+package com.n2s.infotech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Contenu d'un événement de commande de la boîte d'envoi : tout ce dont les consommateurs ont besoin,
+ * pour qu'ils n'aient pas à relire la commande
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderEventPayload {
+    private Long orderId;
+    private Long buyerId;
+    private String buyerEmail;
+    private String buyerName;
+    private String status;
+    private BigDecimal total;
+    private OffsetDateTime createdAt;
+    private List<Item> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+        private Long listingId;
+        private String productTitle;
+        private Long sellerId;
+        private String sellerEmail;
+        private String shopName;
+        private Integer quantity;
+        private BigDecimal price;
+    }
+}
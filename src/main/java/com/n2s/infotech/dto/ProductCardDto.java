@@ -0,0 +1,30 @@
+package com.n2s.infotech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Carte produit de la grille du catalogue, lue depuis product_summary
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductCardDto {
+    private Long id;
+    private String title;
+    private String brand;
+    private String model;
+    private String condition;
+    private BigDecimal minPrice;
+    private Integer sellerCount;
+    private Double averageRating;
+    private Integer reviewCount;
+    private String thumbnailUrl;
+    private Boolean hasPassport;
+    private String carbonScore;
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Data
@@ -20,5 +21,9 @@ public class ProductDto {
     private String description;
     private String categoryName;
     private List<String> images;
+    private BigDecimal bestPrice; // Meilleure offre active
+    private Integer activeListingCount;
+    private Integer totalStock;
+    private String snippet; // Extrait surligné (recherche plein texte PostgreSQL)
 }
 
@@ -0,0 +1,24 @@
+package com.n2s.infotech.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Nombre de produits par valeur de facette pour les filtres courants.
+ * Chaque facette est comptée en ignorant son propre filtre (ex: toutes les marques restent visibles
+ * quand une marque est sélectionnée).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFacetsDto {
+    private Map<String, Long> brands;
+    private Map<String, Long> conditions;
+    private Map<Long, Long> categories; // categoryId -> nombre de produits
+    private Map<String, Long> priceBands; // "0-50", "50-100", ..., "1000+" (meilleure offre active)
+}
@@ -0,0 +1,31 @@
+package com.n2s.infotech.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+/**
+ * Page de produits accompagnée, si demandé, des compteurs de facettes
+ * (même format JSON qu'une Page, avec un champ "facets" en plus)
+ */
+public class ProductPageDto extends PageImpl<ProductDto> {
+
+    private final ProductFacetsDto facets;
+    private final Boolean totalEstimated;
+
+    public ProductPageDto(Page<ProductDto> page, ProductFacetsDto facets) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+        this.facets = facets;
+        this.totalEstimated = page instanceof EstimatedPageDto<?> ? Boolean.TRUE : null;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public ProductFacetsDto getFacets() {
+        return facets;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Boolean getTotalEstimated() {
+        return totalEstimated;
+    }
+}
@@ -0,0 +1,8 @@
+package com.n2s.infotech.event;
+
+/**
+ * Étapes du cycle de vie d'une commande diffusées par la boîte d'envoi
+ */
+public enum OrderEventType {
+    ORDER_CREATED, ORDER_PAID, ORDER_SHIPPED, ORDER_CANCELLED
+}
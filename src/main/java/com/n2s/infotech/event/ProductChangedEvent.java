@@ -0,0 +1,19 @@
+package com.n2s.infotech.event;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Publié après une écriture qui modifie la fiche catalogue d'un ou plusieurs produits
+ * (offres, avis, images, passeport) ; un seul événement pour toutes les lignes d'une commande
+ */
+public record ProductChangedEvent(Collection<Long> productIds, Source source) {
+
+    public ProductChangedEvent(Long productId, Source source) {
+        this(List.of(productId), source);
+    }
+
+    public enum Source {
+        LISTING, REVIEW, IMAGE, PASSPORT, PRODUCT
+    }
+}
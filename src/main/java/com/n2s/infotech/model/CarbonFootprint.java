@@ -12,7 +12,8 @@ import lombok.*;
 public class CarbonFootprint {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carbon_footprints_seq")
+    @SequenceGenerator(name = "carbon_footprints_seq", sequenceName = "carbon_footprints_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -14,7 +14,8 @@ import java.time.LocalDate;
 public class Certification {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certifications_seq")
+    @SequenceGenerator(name = "certifications_seq", sequenceName = "certifications_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
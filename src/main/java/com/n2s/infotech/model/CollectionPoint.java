@@ -14,7 +14,8 @@ import java.util.List;
 public class CollectionPoint {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "collection_points_seq")
+    @SequenceGenerator(name = "collection_points_seq", sequenceName = "collection_points_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
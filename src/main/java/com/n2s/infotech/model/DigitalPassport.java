@@ -15,7 +15,8 @@ import java.util.List;
 public class DigitalPassport {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "digital_passports_seq")
+    @SequenceGenerator(name = "digital_passports_seq", sequenceName = "digital_passports_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, unique = true)
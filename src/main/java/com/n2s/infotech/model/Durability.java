@@ -12,7 +12,8 @@ import lombok.*;
 public class Durability {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "durability_seq")
+    @SequenceGenerator(name = "durability_seq", sequenceName = "durability_id_seq", allocationSize = 50)
     private Long id;
 
     private Integer expectedLifespanYears;
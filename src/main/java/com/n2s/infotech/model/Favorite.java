@@ -15,7 +15,8 @@ import java.time.OffsetDateTime;
 public class Favorite {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "favorites_seq")
+    @SequenceGenerator(name = "favorites_seq", sequenceName = "favorites_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -0,0 +1,53 @@
+package com.n2s.infotech.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Clé d'idempotence d'une requête de création (commande, PaymentIntent) et sa réponse mémorisée.
+ * Partagée entre les instances ; écrite et lue par IdempotencyService.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    /**
+     * Portée de la requête suivie de la clé fournie par le client (ex: "order:42:" suivi de la clé)
+     */
+    @Id
+    @Column(name = "idempotency_key", length = 320)
+    private String idempotencyKey;
+
+    /**
+     * Empreinte SHA-256 du corps de la requête, pour refuser la réutilisation d'une clé sur une autre requête
+     */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    /**
+     * IN_PROGRESS tant que la requête d'origine s'exécute, puis COMPLETED
+     */
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    /**
+     * Réponse sérialisée en JSON, renvoyée telle quelle aux requêtes rejouées
+     */
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    @Column(name = "created_at", nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+}
@@ -6,7 +6,10 @@ import lombok.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "listings")
+@Table(name = "listings", indexes = {
+        @Index(name = "idx_listings_product_active_price", columnList = "product_id, active, price, id"),
+        @Index(name = "idx_listings_price_id", columnList = "price, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +18,8 @@ import java.math.BigDecimal;
 public class Listing {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "listings_seq")
+    @SequenceGenerator(name = "listings_seq", sequenceName = "listings_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
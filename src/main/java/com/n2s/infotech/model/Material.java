@@ -12,7 +12,8 @@ import lombok.*;
 public class Material {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "materials_seq")
+    @SequenceGenerator(name = "materials_seq", sequenceName = "materials_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -9,7 +9,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_buyer_created", columnList = "buyer_id, created_at, id"),
+        @Index(name = "idx_orders_payment_intent", columnList = "payment_intent_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -18,13 +21,15 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
     @JoinColumn(name = "buyer_id")
     private User buyer;
 
+    @Builder.Default
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
     private BigDecimal total;
@@ -39,6 +44,7 @@ public class Order {
     private String shippingAddress; // JSON string de ShippingAddressDto
 
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
     private List<OrderItem> items = new ArrayList<>();
 
     private String status; // CREATED, PAID, SHIPPED, COMPLETED, CANCELLED
@@ -0,0 +1,69 @@
+package com.n2s.infotech.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Événement de la boîte d'envoi (outbox) à livrer à un consommateur.
+ * Écrit dans la même transaction que la modification de la commande, une ligne par consommateur,
+ * puis livré en arrière-plan par OutboxDispatcher ; la ligne est supprimée une fois livrée.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_pending", columnList = "status, available_at, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_id_seq", allocationSize = 50)
+    private Long id;
+
+    /**
+     * Nom du consommateur destinataire (OutboxConsumer.name())
+     */
+    @Column(nullable = false, length = 50)
+    private String consumer;
+
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    /**
+     * PENDING tant qu'il reste des tentatives, FAILED ensuite
+     */
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private String status = "PENDING";
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    /**
+     * Date à partir de laquelle l'événement peut être pris : création, fin du délai avant nouvel essai
+     * ou fin du bail d'un dispatcher qui l'a pris
+     */
+    @Column(name = "available_at", nullable = false)
+    @Builder.Default
+    private OffsetDateTime availableAt = OffsetDateTime.now();
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+}
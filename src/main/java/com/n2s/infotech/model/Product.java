@@ -2,13 +2,19 @@ package com.n2s.infotech.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_best_price_id", columnList = "best_price, id"),
+        @Index(name = "idx_products_category", columnList = "category_id"),
+        @Index(name = "idx_products_updated_at", columnList = "updated_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,13 +23,16 @@ import java.util.Set;
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String title;
 
-    @Column(columnDefinition = "text")
+    // Longueur d'un text PostgreSQL : sinon ddl-auto=update réécrit le type à chaque démarrage, ce qui échoue
+    // une fois la colonne générée search_vector créée (search.engine=postgres)
+    @Column(columnDefinition = "text", length = Integer.MAX_VALUE)
     private String description;
 
     @ManyToOne
@@ -42,5 +51,20 @@ public class Product {
 
     private String condition; // "like new", "refurbished", etc.
 
+    // Meilleure offre active, dénormalisée depuis les listings par ProductOfferService.
+    // Jamais écrite par Hibernate pour ne pas écraser une mise à jour concurrente.
+    @Column(name = "best_price", insertable = false, updatable = false)
+    private BigDecimal bestPrice;
+
+    @Column(name = "active_listing_count", insertable = false, updatable = false)
+    private Integer activeListingCount;
+
+    @Column(name = "total_stock", insertable = false, updatable = false)
+    private Integer totalStock;
+
+    // Dernière écriture par Hibernate : repère de l'instantané d'autocomplétion (voir ProductSuggestIndex)
+    @UpdateTimestamp
+    private OffsetDateTime updatedAt;
+
 }
 
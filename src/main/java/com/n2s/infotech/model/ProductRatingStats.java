@@ -0,0 +1,56 @@
+package com.n2s.infotech.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Agrégat des avis d'un produit : nombre d'avis par note (1 à 5) et somme des notes, mis à jour
+ * atomiquement à chaque création ou suppression d'avis (voir ProductRatingStatsService)
+ */
+@Entity
+@Table(name = "product_rating_stats", indexes = {
+        @Index(name = "idx_product_rating_stats_rating", columnList = "average_rating, product_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRatingStats {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "count_1", nullable = false)
+    private int count1;
+
+    @Column(name = "count_2", nullable = false)
+    private int count2;
+
+    @Column(name = "count_3", nullable = false)
+    private int count3;
+
+    @Column(name = "count_4", nullable = false)
+    private int count4;
+
+    @Column(name = "count_5", nullable = false)
+    private int count5;
+
+    @Column(nullable = false)
+    private int reviewCount;
+
+    @Column(nullable = false)
+    private long ratingSum;
+
+    // ratingSum / reviewCount arrondi à 2 décimales, 0 sans avis
+    @Column(nullable = false)
+    private double averageRating;
+
+    /**
+     * Nombre d'avis pour chaque note, de 1 à 5 étoiles
+     */
+    public int[] histogram() {
+        return new int[]{count1, count2, count3, count4, count5};
+    }
+}
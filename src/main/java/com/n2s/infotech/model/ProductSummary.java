@@ -0,0 +1,45 @@
+package com.n2s.infotech.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Vue matérialisée d'un produit pour la grille du catalogue, recalculée à partir des listings,
+ * avis, images et passeport numérique (voir ProductSummaryService)
+ */
+@Entity
+@Table(name = "product_summary", indexes = {
+        @Index(name = "idx_product_summary_min_price", columnList = "min_price, product_id"),
+        @Index(name = "idx_product_summary_rating", columnList = "average_rating, product_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSummary {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    private BigDecimal minPrice;
+
+    private Integer sellerCount;
+
+    private Double averageRating;
+
+    private Integer reviewCount;
+
+    private String thumbnailUrl;
+
+    private Boolean hasPassport;
+
+    @Column(length = 1)
+    private String carbonScore; // badge du passeport (A-E)
+
+    private OffsetDateTime updatedAt;
+}
@@ -14,7 +14,8 @@ import java.util.List;
 public class RecyclingInfo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recycling_info_seq")
+    @SequenceGenerator(name = "recycling_info_seq", sequenceName = "recycling_info_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -6,7 +6,10 @@ import lombok.*;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "reviews")
+@Table(name = "reviews", indexes = {
+        @Index(name = "idx_reviews_product_id", columnList = "product_id, id"),
+        @Index(name = "idx_reviews_product_rating", columnList = "product_id, rating, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +18,8 @@ import java.time.OffsetDateTime;
 public class Review {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reviews_seq")
+    @SequenceGenerator(name = "reviews_seq", sequenceName = "reviews_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(optional = false)
@@ -16,7 +16,8 @@ import java.util.List;
 public class SellerProfile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seller_profiles_seq")
+    @SequenceGenerator(name = "seller_profiles_seq", sequenceName = "seller_profiles_id_seq", allocationSize = 50)
     private Long id;
 
     private String shopName;
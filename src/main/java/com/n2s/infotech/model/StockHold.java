@@ -0,0 +1,41 @@
+package com.n2s.infotech.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Réservation temporaire de stock d'un panier sur une offre.
+ * Copie persistante des réservations tenues en mémoire par StockHoldService, relue au redémarrage.
+ */
+@Entity
+@Table(name = "stock_holds", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_stock_holds_user_listing", columnNames = {"user_id", "listing_id"})
+}, indexes = {
+        @Index(name = "idx_stock_holds_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_holds_seq")
+    @SequenceGenerator(name = "stock_holds_seq", sequenceName = "stock_holds_id_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "listing_id", nullable = false)
+    private Long listingId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private OffsetDateTime expiresAt;
+}
@@ -0,0 +1,51 @@
+package com.n2s.infotech.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Événement reçu du webhook Stripe. L'id Stripe en clé primaire écarte les doublons (Stripe peut
+ * renvoyer un même événement) ; les événements PENDING sont appliqués aux commandes par lots.
+ * Un événement dont le PaymentIntent n'a pas encore de commande reste PENDING et est repris à retry_at.
+ */
+@Entity
+@Table(name = "stripe_events", indexes = {
+        @Index(name = "idx_stripe_events_status_received", columnList = "status, received_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StripeEvent {
+
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Column(nullable = false, length = 100)
+    private String type;
+
+    @Column(name = "payment_intent_id")
+    private String paymentIntentId;
+
+    @Column(name = "stripe_created_at")
+    private OffsetDateTime stripeCreatedAt;
+
+    @Column(name = "received_at", nullable = false)
+    private OffsetDateTime receivedAt;
+
+    /**
+     * Prochaine reprise d'un événement sans commande, null sinon
+     */
+    @Column(name = "retry_at")
+    private OffsetDateTime retryAt;
+
+    /**
+     * PENDING jusqu'à son application aux commandes, puis PROCESSED
+     */
+    @Column(nullable = false, length = 20)
+    private String status;
+}
@@ -14,7 +14,8 @@ import java.util.List;
 public class Traceability {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "traceability_seq")
+    @SequenceGenerator(name = "traceability_seq", sequenceName = "traceability_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
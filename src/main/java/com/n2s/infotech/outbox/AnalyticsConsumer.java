@@ -0,0 +1,31 @@
+package com.n2s.infotech.outbox;
+
+import com.n2s.infotech.dto.OrderEventPayload;
+import com.n2s.infotech.event.OrderEventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Trace chaque événement de commande sur le logger "analytics", d'où il peut être collecté
+ */
+@Component
+@Slf4j(topic = "analytics")
+public class AnalyticsConsumer implements OutboxConsumer {
+
+    @Override
+    public String name() {
+        return "analytics";
+    }
+
+    @Override
+    public boolean supports(OrderEventType type) {
+        return true;
+    }
+
+    @Override
+    public void deliver(OrderEventType type, OrderEventPayload payload) {
+        int quantity = payload.getItems().stream().mapToInt(OrderEventPayload.Item::getQuantity).sum();
+        log.info("event={} orderId={} buyerId={} status={} total={} items={} quantity={}", type, payload.getOrderId(),
+                payload.getBuyerId(), payload.getStatus(), payload.getTotal(), payload.getItems().size(), quantity);
+    }
+}
@@ -0,0 +1,43 @@
+package com.n2s.infotech.outbox;
+
+import com.n2s.infotech.dto.OrderEventPayload;
+import com.n2s.infotech.event.OrderEventType;
+import com.n2s.infotech.service.EmailService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * Informe l'acheteur par email de l'expédition ou de l'annulation de sa commande.
+ * La confirmation de commande reste envoyée par le frontend (POST /api/emails/send).
+ */
+@Component
+@RequiredArgsConstructor
+public class BuyerEmailConsumer implements OutboxConsumer {
+
+    private final EmailService emailService;
+
+    @Override
+    public String name() {
+        return "buyer-email";
+    }
+
+    @Override
+    public boolean supports(OrderEventType type) {
+        return type == OrderEventType.ORDER_SHIPPED || type == OrderEventType.ORDER_CANCELLED;
+    }
+
+    @Override
+    public void deliver(OrderEventType type, OrderEventPayload payload) {
+        if (payload.getBuyerEmail() == null) {
+            return;
+        }
+        boolean shipped = type == OrderEventType.ORDER_SHIPPED;
+        String subject = "Votre commande #" + payload.getOrderId() + (shipped ? " a été expédiée" : " a été annulée");
+        String name = payload.getBuyerName() != null ? payload.getBuyerName() : "";
+        String html = "<p>Bonjour " + HtmlUtils.htmlEscape(name) + ",</p>" +
+                "<p>Votre commande <strong>#" + payload.getOrderId() + "</strong> " +
+                (shipped ? "a été expédiée." : "a été annulée.") + "</p>";
+        emailService.send(payload.getBuyerEmail(), subject, html);
+    }
+}
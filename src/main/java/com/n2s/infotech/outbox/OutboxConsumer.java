@@ -0,0 +1,24 @@
+package com.n2s.infotech.outbox;
+
+import com.n2s.infotech.dto.OrderEventPayload;
+import com.n2s.infotech.event.OrderEventType;
+
+/**
+ * Destinataire des événements de commande de la boîte d'envoi.
+ * La livraison est « au moins une fois » : un événement peut être livré de nouveau après un échec
+ * ou l'arrêt d'une instance en cours de livraison.
+ */
+public interface OutboxConsumer {
+
+    /**
+     * Nom enregistré dans outbox_events.consumer ; à conserver tant que des événements sont en attente
+     */
+    String name();
+
+    boolean supports(OrderEventType type);
+
+    /**
+     * Livre l'événement ; une exception le fait réessayer plus tard
+     */
+    void deliver(OrderEventType type, OrderEventPayload payload) throws Exception;
+}
@@ -0,0 +1,198 @@
+package com.n2s.infotech.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.n2s.infotech.config.OutboxProperties;
+import com.n2s.infotech.dto.OrderEventPayload;
+import com.n2s.infotech.event.OrderEventType;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Livraison en arrière-plan des événements de la boîte d'envoi.
+ * <p>
+ * Plusieurs dispatchers prennent chacun un lot d'événements dus avec FOR UPDATE SKIP LOCKED, sans
+ * s'attendre entre eux ni entre instances. Prendre un lot repousse ses événements de la durée du bail :
+ * la livraison se fait hors transaction, et un lot abandonné (instance arrêtée) redevient disponible
+ * à la fin du bail. Un événement livré est supprimé ; en cas d'échec il est réessayé avec un délai
+ * doublé à chaque tentative, puis passe en FAILED.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final String CLAIM_SQL = "UPDATE outbox_events SET available_at = ?, attempts = attempts + 1 " +
+            "WHERE id IN (SELECT id FROM outbox_events WHERE status = 'PENDING' AND available_at <= ? " +
+            "ORDER BY available_at, id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id, consumer, event_type, payload, attempts";
+    private static final String DELIVERED_SQL = "DELETE FROM outbox_events WHERE id = ?";
+    private static final String RETRY_SQL = "UPDATE outbox_events SET status = ?, available_at = ?, last_error = ? WHERE id = ?";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxProperties outboxProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final List<OutboxConsumer> consumers;
+
+    private final Object signal = new Object();
+    private volatile boolean running;
+    private ExecutorService workers;
+    private Map<String, OutboxConsumer> consumersByName;
+
+    private record Claimed(long id, String consumer, String eventType, String payload, int attempts) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        consumersByName = consumers.stream().collect(Collectors.toMap(OutboxConsumer::name, Function.identity()));
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(outboxProperties.getDispatchers(), task -> {
+            Thread thread = new Thread(task, "outbox-dispatcher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < outboxProperties.getDispatchers(); i++) {
+            workers.submit(this::run);
+        }
+        log.info("{} dispatchers de la boîte d'envoi démarrés (consommateurs: {})",
+                outboxProperties.getDispatchers(), consumersByName.keySet());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        wakeUp();
+        if (workers != null) {
+            workers.shutdown();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Réveille les dispatchers en attente (de nouveaux événements viennent d'être validés)
+     */
+    public void wakeUp() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (dispatchBatch() < outboxProperties.getBatchSize()) {
+                    idle();
+                }
+            } catch (DataAccessException e) {
+                log.warn("Livraison des événements reportée: {}", e.getMessage());
+                idle();
+            } catch (RuntimeException e) {
+                log.error("Erreur du dispatcher de la boîte d'envoi", e);
+                idle();
+            }
+        }
+    }
+
+    /**
+     * Prend un lot d'événements dus, les livre puis enregistre le résultat
+     *
+     * @return nombre d'événements pris
+     */
+    private int dispatchBatch() {
+        Instant now = Instant.now();
+        List<Claimed> batch = jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Claimed(
+                        rs.getLong("id"),
+                        rs.getString("consumer"),
+                        rs.getString("event_type"),
+                        rs.getString("payload"),
+                        rs.getInt("attempts")),
+                Timestamp.from(now.plus(outboxProperties.getLease())), Timestamp.from(now), outboxProperties.getBatchSize());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> delivered = new ArrayList<>();
+        List<Object[]> failed = new ArrayList<>();
+        for (Claimed event : batch) {
+            try {
+                deliver(event);
+                delivered.add(new Object[]{event.id()});
+            } catch (Exception e) {
+                failed.add(retry(event, e));
+            }
+        }
+        jdbcTemplate.batchUpdate(DELIVERED_SQL, delivered);
+        jdbcTemplate.batchUpdate(RETRY_SQL, failed);
+        return batch.size();
+    }
+
+    private void deliver(Claimed event) throws Exception {
+        OutboxConsumer consumer = consumersByName.get(event.consumer());
+        if (consumer == null) {
+            throw new IllegalStateException("Consommateur inconnu: " + event.consumer());
+        }
+        consumer.deliver(OrderEventType.valueOf(event.eventType()),
+                objectMapper.readValue(event.payload(), OrderEventPayload.class));
+    }
+
+    private Object[] retry(Claimed event, Exception e) {
+        boolean exhausted = event.attempts() >= outboxProperties.getMaxAttempts();
+        if (exhausted) {
+            log.error("Événement {} ({} pour {}) abandonné après {} tentatives", event.id(), event.eventType(),
+                    event.consumer(), event.attempts(), e);
+        } else {
+            log.warn("Échec de livraison de l'événement {} ({} pour {}), tentative {}: {}", event.id(),
+                    event.eventType(), event.consumer(), event.attempts(), e.getMessage());
+        }
+        String error = String.valueOf(e);
+        return new Object[]{
+                exhausted ? "FAILED" : "PENDING",
+                Timestamp.from(Instant.now().plus(backoff(event.attempts()))),
+                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                event.id()
+        };
+    }
+
+    /**
+     * Délai avant le prochain essai : initialBackoff doublé à chaque échec, plafonné à maxBackoff,
+     * avec jusqu'à 20 % d'aléa pour étaler les reprises
+     */
+    private Duration backoff(int attempts) {
+        Duration delay = outboxProperties.getInitialBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        if (delay.compareTo(outboxProperties.getMaxBackoff()) > 0) {
+            delay = outboxProperties.getMaxBackoff();
+        }
+        return delay.plusMillis(ThreadLocalRandom.current().nextLong(delay.toMillis() / 5 + 1));
+    }
+
+    private void idle() {
+        synchronized (signal) {
+            try {
+                signal.wait(outboxProperties.getPollInterval().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.n2s.infotech.outbox;
+
+import com.n2s.infotech.dto.OrderEventPayload;
+import com.n2s.infotech.event.OrderEventType;
+import com.n2s.infotech.service.EmailService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Prévient chaque vendeur d'une commande, par email, des articles vendus ou annulés
+ */
+@Component
+@RequiredArgsConstructor
+public class SellerNotificationConsumer implements OutboxConsumer {
+
+    private final EmailService emailService;
+
+    @Override
+    public String name() {
+        return "seller-notification";
+    }
+
+    @Override
+    public boolean supports(OrderEventType type) {
+        return type == OrderEventType.ORDER_CREATED || type == OrderEventType.ORDER_CANCELLED;
+    }
+
+    @Override
+    public void deliver(OrderEventType type, OrderEventPayload payload) {
+        boolean cancelled = type == OrderEventType.ORDER_CANCELLED;
+        Map<String, List<OrderEventPayload.Item>> itemsBySeller = payload.getItems().stream()
+                .filter(item -> item.getSellerEmail() != null)
+                .collect(Collectors.groupingBy(OrderEventPayload.Item::getSellerEmail, LinkedHashMap::new, Collectors.toList()));
+        String subject = cancelled
+                ? "Commande #" + payload.getOrderId() + " annulée"
+                : "Nouvelle commande #" + payload.getOrderId();
+        itemsBySeller.forEach((email, items) -> {
+            StringBuilder html = new StringBuilder("<p>")
+                    .append(cancelled ? "Les articles suivants de la commande #" : "Vous avez vendu, dans la commande #")
+                    .append(payload.getOrderId())
+                    .append(cancelled ? " ont été annulés :" : " :")
+                    .append("</p><ul>");
+            for (OrderEventPayload.Item item : items) {
+                html.append("<li>").append(item.getQuantity()).append(" x ")
+                        .append(HtmlUtils.htmlEscape(item.getProductTitle() != null ? item.getProductTitle() : ""))
+                        .append(" (").append(item.getPrice()).append(" €)</li>");
+            }
+            html.append("</ul>");
+            emailService.send(email, subject, html.toString());
+        });
+    }
+}
@@ -2,6 +2,9 @@ package com.n2s.infotech.repository;
 
 import com.n2s.infotech.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,6 +14,10 @@ import java.util.Optional;
 public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     List<CartItem> findByUserId(Long userId);
     Optional<CartItem> findByUserIdAndListingId(Long userId, Long listingId);
-    void deleteByUserId(Long userId);
+
+    // Un seul DELETE (la variante dérivée chargeait puis supprimait chaque ligne)
+    @Modifying
+    @Query("DELETE FROM CartItem c WHERE c.user.id = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
 }
 
@@ -2,9 +2,25 @@ package com.n2s.infotech.repository;
 
 import com.n2s.infotech.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-}
 
+    /**
+     * Ligne plate d'une catégorie, sans charger l'entité parente
+     */
+    interface CategoryRow {
+        Long getId();
+        String getName();
+        String getDescription();
+        Long getParentId();
+    }
+
+    @Query("SELECT c.id AS id, c.name AS name, c.description AS description, p.id AS parentId " +
+           "FROM Category c LEFT JOIN c.parent p")
+    List<CategoryRow> findAllRows();
+}
@@ -1,23 +1,56 @@
 package com.n2s.infotech.repository;
 
+import com.n2s.infotech.dto.CartLineView;
 import com.n2s.infotech.model.Listing;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ListingRepository extends JpaRepository<Listing, Long>, JpaSpecificationExecutor<Listing> {
+public interface ListingRepository extends JpaRepository<Listing, Long>, JpaSpecificationExecutor<Listing>, ListingRepositoryCustom {
+
+    // Produit et vendeur chargés par jointure : une seule requête pour toutes les lignes d'une commande
+    @Override
+    @EntityGraph(attributePaths = {"product", "seller"})
+    List<Listing> findAllById(Iterable<Long> ids);
 
     Page<Listing> findByActiveTrue(Pageable pageable);
 
+    // Vue du panier : offre, produit, vendeur et vignette (product_summary) en une requête, quelle que soit sa taille
+    @Query("SELECT new com.n2s.infotech.dto.CartLineView(l.id, p.id, p.title, p.brand, l.price, l.quantity, l.active, " +
+            "s.shopName, ps.thumbnailUrl) " +
+            "FROM Listing l JOIN l.product p JOIN l.seller s LEFT JOIN ProductSummary ps ON ps.productId = p.id " +
+            "WHERE l.id IN :ids")
+    List<CartLineView> findCartLines(@Param("ids") Collection<Long> ids);
+
     Page<Listing> findByProductIdAndActiveTrue(Long productId, Pageable pageable);
 
+    // Pages sans count(*)
+    Slice<Listing> findSliceBy(Pageable pageable);
+
+    Slice<Listing> findSliceByProductIdAndActiveTrue(Long productId, Pageable pageable);
+
+    long countByProductIdAndActiveTrue(Long productId);
+
+    // Pagination par curseur (keyset)
+    Window<Listing> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Listing> findByProductIdAndActiveTrue(Long productId, ScrollPosition position, Sort sort, Limit limit);
+
     Page<Listing> findBySellerIdAndActiveTrue(Long sellerId, Pageable pageable);
 
     List<Listing> findBySellerId(Long sellerId);
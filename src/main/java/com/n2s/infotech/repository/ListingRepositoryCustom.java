@@ -0,0 +1,19 @@
+package com.n2s.infotech.repository;
+
+import java.util.List;
+
+public interface ListingRepositoryCustom {
+
+    /**
+     * Décrément de stock d'une offre : quantité vendue et quantité réservée par d'autres paniers
+     */
+    record StockDecrement(Long listingId, int quantity, int heldElsewhere) {
+    }
+
+    /**
+     * Réserve le stock de plusieurs offres en un seul lot JDBC, dans l'ordre de la liste
+     *
+     * @return pour chaque décrément, 1 si le stock a été réservé, 0 sinon
+     */
+    int[] decrementStock(List<StockDecrement> decrements);
+}
@@ -0,0 +1,24 @@
+package com.n2s.infotech.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class ListingRepositoryCustomImpl implements ListingRepositoryCustom {
+
+    // Ne décrémente que si l'offre est active et le stock suffisant, et désactive l'offre quand il tombe
+    // à zéro (les expressions du SET lisent l'ancienne valeur)
+    private static final String DECREMENT_SQL = "UPDATE listings SET quantity = quantity - ?, active = (quantity - ? > 0) " +
+            "WHERE id = ? AND active = TRUE AND quantity - ? >= ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int[] decrementStock(List<StockDecrement> decrements) {
+        return jdbcTemplate.batchUpdate(DECREMENT_SQL, decrements.stream()
+                .map(d -> new Object[]{d.quantity(), d.quantity(), d.listingId(), d.heldElsewhere(), d.quantity()})
+                .toList());
+    }
+}
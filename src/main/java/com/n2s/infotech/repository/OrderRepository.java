@@ -1,10 +1,21 @@
 package com.n2s.infotech.repository;
 
 import com.n2s.infotech.model.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Historique d'un acheteur (index orders(buyer_id, created_at, id)) ; lignes, offres et produits
+    // suivent en quelques IN (default_batch_fetch_size)
+    Page<Order> findByBuyerId(Long buyerId, Pageable pageable);
+
+    Slice<Order> findSliceByBuyerId(Long buyerId, Pageable pageable);
+
+    long countByBuyerId(Long buyerId);
 }
 
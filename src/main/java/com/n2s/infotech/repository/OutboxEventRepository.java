@@ -0,0 +1,9 @@
+package com.n2s.infotech.repository;
+
+import com.n2s.infotech.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+}
@@ -0,0 +1,35 @@
+package com.n2s.infotech.repository;
+
+import com.n2s.infotech.model.ProductRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductRatingStatsRepository extends JpaRepository<ProductRatingStats, Long> {
+
+    /**
+     * Ajoute :delta avis de note :rating aux compteurs du produit, en une instruction :
+     * la ligne est créée au premier avis et verrouillée le temps de la transaction appelante
+     */
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats (product_id, count_1, count_2, count_3, count_4, count_5, " +
+            "review_count, rating_sum, average_rating) VALUES (:productId, " +
+            "CASE WHEN :rating = 1 THEN :delta ELSE 0 END, CASE WHEN :rating = 2 THEN :delta ELSE 0 END, " +
+            "CASE WHEN :rating = 3 THEN :delta ELSE 0 END, CASE WHEN :rating = 4 THEN :delta ELSE 0 END, " +
+            "CASE WHEN :rating = 5 THEN :delta ELSE 0 END, :delta, :rating * :delta, :rating) " +
+            "ON CONFLICT (product_id) DO UPDATE SET " +
+            "count_1 = product_rating_stats.count_1 + EXCLUDED.count_1, " +
+            "count_2 = product_rating_stats.count_2 + EXCLUDED.count_2, " +
+            "count_3 = product_rating_stats.count_3 + EXCLUDED.count_3, " +
+            "count_4 = product_rating_stats.count_4 + EXCLUDED.count_4, " +
+            "count_5 = product_rating_stats.count_5 + EXCLUDED.count_5, " +
+            "review_count = product_rating_stats.review_count + EXCLUDED.review_count, " +
+            "rating_sum = product_rating_stats.rating_sum + EXCLUDED.rating_sum, " +
+            "average_rating = COALESCE(ROUND((product_rating_stats.rating_sum + EXCLUDED.rating_sum)::numeric " +
+            "/ NULLIF(product_rating_stats.review_count + EXCLUDED.review_count, 0), 2), 0)",
+            nativeQuery = true)
+    int applyDelta(@Param("productId") Long productId, @Param("rating") int rating, @Param("delta") int delta);
+}
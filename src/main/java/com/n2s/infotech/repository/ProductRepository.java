@@ -3,16 +3,95 @@ package com.n2s.infotech.repository;
 import com.n2s.infotech.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
+
+    // Catalogue majoritairement en français : on combine les analyses française, anglaise et brute
+    String FULL_TEXT_QUERY = "(websearch_to_tsquery('french', :search) || websearch_to_tsquery('english', :search) " +
+            "|| websearch_to_tsquery('simple', :search))";
+
+    // :categoryIds ne peut pas être une liste vide ni nulle : :allCategories indique l'absence de filtre
+    String FULL_TEXT_FILTERS = "AND (:allCategories = true OR p.category_id IN (:categoryIds)) " +
+            "AND (CAST(:brand AS text) IS NULL OR p.brand = CAST(:brand AS text)) " +
+            "AND (CAST(:condition AS text) IS NULL OR p.condition = CAST(:condition AS text)) " +
+            "AND (CAST(:minPrice AS numeric) IS NULL OR p.best_price >= CAST(:minPrice AS numeric)) " +
+            "AND (CAST(:maxPrice AS numeric) IS NULL OR p.best_price <= CAST(:maxPrice AS numeric)) ";
+
+    String FULL_TEXT_SELECT = "SELECT p.id AS id, " +
+            "ts_headline('french', coalesce(p.description, p.title), q.query, " +
+            "'StartSel=<mark>, StopSel=</mark>, MaxWords=25, MinWords=10, MaxFragments=2') AS snippet " +
+            "FROM products p, (SELECT " + FULL_TEXT_QUERY + " AS query) q " +
+            "WHERE p.search_vector @@ q.query " + FULL_TEXT_FILTERS +
+            "ORDER BY ts_rank(p.search_vector, q.query) DESC, p.id";
+
+    String FULL_TEXT_COUNT = "SELECT count(*) FROM products p " +
+            "WHERE p.search_vector @@ " + FULL_TEXT_QUERY + " " + FULL_TEXT_FILTERS;
+
+    // Produits retenus par la recherche plein texte (tous si :search est vide), chacun avec sa tranche de prix
+    // (mêmes bornes que ProductSearchIndex, 0 = première tranche) et le résultat de chaque filtre
+    String FACET_MATCHES = "SELECT p.brand, p.condition, p.category_id, " +
+            "width_bucket(p.best_price, ARRAY[50, 100, 200, 500, 1000]::numeric[]) AS price_band, " +
+            "(:allCategories = true OR p.category_id IN (:categoryIds)) AS in_category, " +
+            "(CAST(:brand AS text) IS NULL OR p.brand = CAST(:brand AS text)) AS in_brand, " +
+            "(CAST(:condition AS text) IS NULL OR p.condition = CAST(:condition AS text)) AS in_condition, " +
+            "((CAST(:minPrice AS numeric) IS NULL OR p.best_price >= CAST(:minPrice AS numeric)) " +
+            "AND (CAST(:maxPrice AS numeric) IS NULL OR p.best_price <= CAST(:maxPrice AS numeric))) AS in_price " +
+            "FROM products p WHERE :search = '' OR p.search_vector @@ " + FULL_TEXT_QUERY;
+
+    // Chaque facette est comptée en ignorant son propre filtre, comme ProductSearchIndex.facets
+    String FACET_COUNTS = "WITH m AS (" + FACET_MATCHES + ") " +
+            "SELECT 'brand' AS facet, brand AS value, count(*) AS count FROM m " +
+            "WHERE brand IS NOT NULL AND in_category AND in_condition AND in_price GROUP BY brand " +
+            "UNION ALL SELECT 'condition', condition, count(*) FROM m " +
+            "WHERE condition IS NOT NULL AND in_category AND in_brand AND in_price GROUP BY condition " +
+            "UNION ALL SELECT 'category', CAST(category_id AS text), count(*) FROM m " +
+            "WHERE category_id IS NOT NULL AND in_brand AND in_condition AND in_price GROUP BY category_id " +
+            "UNION ALL SELECT 'price', CAST(price_band AS text), count(*) FROM m " +
+            "WHERE price_band IS NOT NULL AND in_category AND in_brand AND in_condition GROUP BY price_band";
+
+    /**
+     * Résultat de la recherche plein texte : identifiant du produit et extrait surligné
+     */
+    interface SearchHit {
+        Long getId();
+        String getSnippet();
+    }
+
+    // Catégorie chargée par jointure avec la page ; les images suivent en un seul IN (default_batch_fetch_size)
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Product> findAll(Specification<Product> spec, Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Product> findAllById(Iterable<Long> ids);
+
+    // Produits créés ou modifiés depuis un instantané (updated_at nul : insérés hors Hibernate, ex: data.sql)
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.updatedAt >= :since OR p.id > :maxId")
+    Page<Product> findChangedSince(@Param("since") OffsetDateTime since, @Param("maxId") long maxId, Pageable pageable);
+
+    @Query("SELECT p.id FROM Product p")
+    List<Long> findAllIds();
 
     @Query("SELECT p FROM Product p WHERE " +
            "LOWER(p.title) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
@@ -20,6 +99,59 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
            "LOWER(p.description) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<Product> searchProducts(@Param("search") String search, Pageable pageable);
 
+    /**
+     * Recherche plein texte PostgreSQL sur la colonne générée search_vector (index GIN),
+     * classée par ts_rank, avec un extrait surligné de la description.
+     * Le Pageable ne doit pas porter de tri : l'ordre est celui de la pertinence.
+     */
+    @Query(value = FULL_TEXT_SELECT, countQuery = FULL_TEXT_COUNT, nativeQuery = true)
+    Page<SearchHit> fullTextSearch(@Param("search") String search,
+                                   @Param("allCategories") boolean allCategories,
+                                   @Param("categoryIds") Collection<Long> categoryIds,
+                                   @Param("brand") String brand,
+                                   @Param("condition") String condition,
+                                   @Param("minPrice") BigDecimal minPrice,
+                                   @Param("maxPrice") BigDecimal maxPrice,
+                                   Pageable pageable);
+
+    @Query(value = FULL_TEXT_SELECT, nativeQuery = true)
+    Slice<SearchHit> fullTextSearchSlice(@Param("search") String search,
+                                         @Param("allCategories") boolean allCategories,
+                                         @Param("categoryIds") Collection<Long> categoryIds,
+                                         @Param("brand") String brand,
+                                         @Param("condition") String condition,
+                                         @Param("minPrice") BigDecimal minPrice,
+                                         @Param("maxPrice") BigDecimal maxPrice,
+                                         Pageable pageable);
+
+    @Query(value = FULL_TEXT_COUNT, nativeQuery = true)
+    long countFullTextSearch(@Param("search") String search,
+                             @Param("allCategories") boolean allCategories,
+                             @Param("categoryIds") Collection<Long> categoryIds,
+                             @Param("brand") String brand,
+                             @Param("condition") String condition,
+                             @Param("minPrice") BigDecimal minPrice,
+                             @Param("maxPrice") BigDecimal maxPrice);
+
+    /**
+     * Nombre de produits par valeur de facette (brand, condition, category, price), pour les mêmes critères
+     * que fullTextSearch ; :search vide compte tout le catalogue. Une seule lecture des produits retenus.
+     */
+    @Query(value = FACET_COUNTS, nativeQuery = true)
+    List<FacetCount> countFacets(@Param("search") String search,
+                                 @Param("allCategories") boolean allCategories,
+                                 @Param("categoryIds") Collection<Long> categoryIds,
+                                 @Param("brand") String brand,
+                                 @Param("condition") String condition,
+                                 @Param("minPrice") BigDecimal minPrice,
+                                 @Param("maxPrice") BigDecimal maxPrice);
+
+    interface FacetCount {
+        String getFacet();
+        String getValue();
+        Long getCount();
+    }
+
     Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
 
     Page<Product> findByBrand(String brand, Pageable pageable);
@@ -32,6 +164,31 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
     @Query("SELECT DISTINCT p.condition FROM Product p ORDER BY p.condition")
     List<String> findAllConditions();
 
+    /**
+     * Recalcule la meilleure offre active de plusieurs produits à partir de leurs seuls listings
+     * (index listings(product_id, active, price, id))
+     */
+    @Modifying
+    @Query(value = "UPDATE products p SET best_price = s.best_price, active_listing_count = s.listing_count, total_stock = s.stock " +
+           "FROM (SELECT pr.id, MIN(l.price) AS best_price, COUNT(l.id) AS listing_count, COALESCE(SUM(l.quantity), 0) AS stock " +
+           "FROM products pr LEFT JOIN listings l ON l.product_id = pr.id AND l.active = true " +
+           "WHERE pr.id IN (:productIds) GROUP BY pr.id) s " +
+           "WHERE p.id = s.id",
+           nativeQuery = true)
+    int refreshBestOffers(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Offre dénormalisée d'un produit après recalcul
+     */
+    interface OfferSummary {
+        Long getId();
+        BigDecimal getBestPrice();
+        Integer getActiveListingCount();
+    }
+
+    @Query("SELECT p.id AS id, p.bestPrice AS bestPrice, p.activeListingCount AS activeListingCount FROM Product p WHERE p.id IN :productIds")
+    List<OfferSummary> findOfferSummaries(@Param("productIds") Collection<Long> productIds);
+
     // Find product by title+brand+model to ensure idempotent seed
     java.util.Optional<Product> findByTitleAndBrandAndModel(String title, String brand, String model);
 }
@@ -0,0 +1,14 @@
+package com.n2s.infotech.repository;
+
+import com.n2s.infotech.model.Product;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Équivalent de findAll(spec, pageable) sans la requête count(*)
+     */
+    Slice<Product> findSlice(Specification<Product> spec, Pageable pageable);
+}
@@ -0,0 +1,91 @@
+package com.n2s.infotech.repository;
+
+import com.n2s.infotech.dto.ProductCardDto;
+import com.n2s.infotech.model.ProductSummary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface ProductSummaryRepository extends JpaRepository<ProductSummary, Long> {
+
+    // Chaque agrégat passe par l'index product_id de sa table source ; les notes sont lues dans product_rating_stats
+    String SUMMARY_SELECT = "INSERT INTO product_summary (product_id, min_price, seller_count, average_rating, review_count, " +
+            "thumbnail_url, has_passport, carbon_score, updated_at) " +
+            "SELECT p.id, l.min_price, l.seller_count, COALESCE(r.average_rating, 0), COALESCE(r.review_count, 0), " +
+            "i.url, d.id IS NOT NULL, cf.score, now() " +
+            "FROM products p " +
+            "LEFT JOIN LATERAL (SELECT MIN(price) AS min_price, COUNT(DISTINCT seller_id) AS seller_count " +
+            "FROM listings WHERE product_id = p.id AND active = TRUE) l ON TRUE " +
+            "LEFT JOIN product_rating_stats r ON r.product_id = p.id " +
+            "LEFT JOIN LATERAL (SELECT url FROM product_images WHERE product_id = p.id ORDER BY id LIMIT 1) i ON TRUE " +
+            "LEFT JOIN digital_passports d ON d.product_id = p.id " +
+            "LEFT JOIN carbon_footprints cf ON cf.id = d.carbon_footprint_id ";
+
+    String SUMMARY_UPSERT = "ON CONFLICT (product_id) DO UPDATE SET min_price = EXCLUDED.min_price, " +
+            "seller_count = EXCLUDED.seller_count, average_rating = EXCLUDED.average_rating, " +
+            "review_count = EXCLUDED.review_count, thumbnail_url = EXCLUDED.thumbnail_url, " +
+            "has_passport = EXCLUDED.has_passport, carbon_score = EXCLUDED.carbon_score, updated_at = EXCLUDED.updated_at";
+
+    // :categoryIds ne peut pas être une liste vide : :allCategories indique l'absence de filtre.
+    // Un tri par prix ne liste que les produits ayant une offre (:offersOnly), le tri ne gérant pas NULLS LAST
+    String CARD_SELECT = "SELECT new com.n2s.infotech.dto.ProductCardDto(p.id, p.title, p.brand, p.model, p.condition, " +
+            "s.minPrice, s.sellerCount, s.averageRating, s.reviewCount, s.thumbnailUrl, s.hasPassport, s.carbonScore) ";
+
+    String CARD_FROM = "FROM Product p LEFT JOIN ProductSummary s ON s.productId = p.id " +
+            "WHERE (:allCategories = true OR p.category.id IN :categoryIds) " +
+            "AND (:offersOnly = false OR s.minPrice IS NOT NULL)";
+
+    /**
+     * Recalcule les résumés des produits donnés à partir des tables sources
+     */
+    @Modifying
+    @Query(value = SUMMARY_SELECT + "WHERE p.id IN (:productIds) " + SUMMARY_UPSERT, nativeQuery = true)
+    int refresh(@Param("productIds") Collection<Long> productIds);
+
+    /**
+     * Recalcule les résumés d'une tranche d'identifiants (reconstruction complète)
+     */
+    @Modifying
+    @Query(value = SUMMARY_SELECT + "WHERE p.id BETWEEN :fromId AND :toId " + SUMMARY_UPSERT, nativeQuery = true)
+    int refreshRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Supprime les résumés dont le produit n'existe plus
+     */
+    @Modifying
+    @Query(value = "DELETE FROM product_summary s WHERE NOT EXISTS (SELECT 1 FROM products p WHERE p.id = s.product_id)",
+            nativeQuery = true)
+    int deleteOrphans();
+
+    @Query(value = "SELECT COALESCE(MIN(id), 0) FROM products", nativeQuery = true)
+    long findMinProductId();
+
+    @Query(value = "SELECT COALESCE(MAX(id), 0) FROM products", nativeQuery = true)
+    long findMaxProductId();
+
+    // Page du catalogue : produits et résumés joints sur la clé primaire, en une requête
+    @Query(value = CARD_SELECT + CARD_FROM, countQuery = "SELECT count(p) " + CARD_FROM)
+    Page<ProductCardDto> findCards(@Param("allCategories") boolean allCategories,
+                                   @Param("categoryIds") Collection<Long> categoryIds,
+                                   @Param("offersOnly") boolean offersOnly,
+                                   Pageable pageable);
+
+    @Query(CARD_SELECT + CARD_FROM)
+    Slice<ProductCardDto> findCardSlice(@Param("allCategories") boolean allCategories,
+                                        @Param("categoryIds") Collection<Long> categoryIds,
+                                        @Param("offersOnly") boolean offersOnly,
+                                        Pageable pageable);
+
+    @Query("SELECT count(p) " + CARD_FROM)
+    long countCards(@Param("allCategories") boolean allCategories,
+                    @Param("categoryIds") Collection<Long> categoryIds,
+                    @Param("offersOnly") boolean offersOnly);
+}
@@ -1,10 +1,14 @@
 package com.n2s.infotech.repository;
 
 import com.n2s.infotech.model.Review;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,12 +17,12 @@ import java.util.List;
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     Page<Review> findByProductId(Long productId, Pageable pageable);
 
-    @Query("SELECT AVG(r.rating) FROM Review r WHERE r.product.id = :productId")
-    Double getAverageRatingByProductId(Long productId);
+    Slice<Review> findSliceByProductId(Long productId, Pageable pageable);
+
+    // Pagination par curseur (keyset)
+    Window<Review> findByProductId(Long productId, ScrollPosition position, Sort sort, Limit limit);
 
     Long countByProductId(Long productId);
-    
-    Long countByProductIdAndRating(Long productId, Integer rating);
 
     boolean existsByUserIdAndProductId(Long userId, Long productId);
 }
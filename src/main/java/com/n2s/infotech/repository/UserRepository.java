@@ -2,8 +2,13 @@ package com.n2s.infotech.repository;
 
 import com.n2s.infotech.model.Role;
 import com.n2s.infotech.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -18,6 +23,20 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> findByEmailContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(
             String email, String displayName, Pageable pageable);
 
+    // Pages sans count(*)
+    Slice<User> findSliceBy(Pageable pageable);
+
+    Slice<User> findSliceByEmailContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(
+            String email, String displayName, Pageable pageable);
+
+    long countByEmailContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(String email, String displayName);
+
+    // Pagination par curseur (keyset)
+    Window<User> findByEmailContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(
+            String email, String displayName, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<User> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
     // Recherche par rôle
     List<User> findByRolesContaining(Role role);
 
@@ -0,0 +1,19 @@
+package com.n2s.infotech.search;
+
+import java.util.Set;
+
+/**
+ * Critères de recherche/filtrage appliqués par l'index produits
+ * (categoryIds : catégorie demandée et ses descendantes, null pour toutes)
+ */
+public record ProductFilter(String search, Set<Long> categoryIds, String brand, String condition,
+                            Double minPrice, Double maxPrice) {
+
+    public boolean hasSearch() {
+        return search != null && !search.isBlank();
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+}
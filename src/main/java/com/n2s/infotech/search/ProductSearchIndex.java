@@ -0,0 +1,614 @@
+package com.n2s.infotech.search;
+
+import com.n2s.infotech.config.SearchProperties;
+import com.n2s.infotech.dto.ProductFacetsDto;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Index inversé en mémoire sur les produits (titre, marque, modèle, description)
+ *
+ * Remplace les LIKE '%q%' par une recherche par termes classée avec BM25.
+ * Le dernier terme de la requête est traité comme un préfixe pour la saisie au fil de l'eau.
+ * Les fautes de frappe ("samsnug") sont rattrapées par un index de trigrammes sur le vocabulaire
+ * des titres, marques et modèles ; les produits trouvés ainsi sont classés après les correspondances exactes.
+ * Chaque valeur de facette (marque, état, catégorie, tranche de prix) a son bitmap de documents,
+ * ce qui permet de compter les facettes des filtres courants sans requête GROUP BY.
+ * L'index est construit au démarrage en tâche de fond : tant que {@link #isReady()} est faux,
+ * les appelants doivent utiliser la recherche JPA.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int MODEL_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final int MAX_QUERY_TERMS = 16;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_FUZZY_EXPANSIONS = 8;
+    // Score BM25 d'un terme approché, divisé par deux à chaque faute
+    private static final double FUZZY_DISCOUNT = 0.5;
+    private static final int WARMUP_BATCH_SIZE = 500;
+
+    // Bornes basses des tranches de prix (en euros), la dernière est ouverte
+    private static final int[] PRICE_BAND_BOUNDS = {0, 50, 100, 200, 500, 1000};
+
+    private static final BitSet EMPTY = new BitSet();
+
+    private final ProductRepository productRepository;
+    private final SearchProperties searchProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // terme -> (ordinal du document -> fréquence pondérée)
+    private final NavigableMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+    // ordinal -> document (null si le produit a été supprimé)
+    private final List<IndexedProduct> documents = new ArrayList<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final BitSet live = new BitSet();
+
+    // vocabulaire des titres, marques et modèles : terme -> nombre de documents, trigramme -> termes
+    private final Map<String, Integer> fuzzyTerms = new HashMap<>();
+    private final Map<String, Set<String>> trigramTerms = new HashMap<>();
+
+    // valeur de facette -> documents portant cette valeur
+    private final Map<String, BitSet> brandBits = new HashMap<>();
+    private final Map<String, BitSet> conditionBits = new HashMap<>();
+    private final Map<Long, BitSet> categoryBits = new HashMap<>();
+    private final Map<String, BitSet> priceBandBits = new HashMap<>();
+
+    // suppressions reçues pendant la construction initiale, à ne pas réindexer
+    private final Set<Long> removedDuringWarmup = new HashSet<>();
+
+    private long totalLength;
+    private volatile boolean ready;
+
+    /**
+     * Construit l'index à partir de la base, par lots, sans bloquer le démarrage.
+     * Également construit avec search.engine=postgres : les facettes de la liste produits sont
+     * toujours comptées sur les bitmaps de cet index.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            Page<Product> batch;
+            int page = 0;
+            do {
+                batch = productRepository.findAll(PageRequest.of(page++, WARMUP_BATCH_SIZE, Sort.by("id")));
+                lock.writeLock().lock();
+                try {
+                    for (Product product : batch) {
+                        // Une écriture reçue pendant le chargement est plus récente que le lot lu
+                        if (!ordinals.containsKey(product.getId()) && !removedDuringWarmup.contains(product.getId())) {
+                            add(product);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } while (batch.hasNext());
+
+            lock.writeLock().lock();
+            try {
+                removedDuringWarmup.clear();
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Index de recherche produits prêt: {} produits en {} ms", ordinals.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Échec de la construction de l'index de recherche, la recherche JPA reste utilisée", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ajoute ou remplace un produit dans l'index
+     */
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            add(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un produit de l'index
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                removedDuringWarmup.add(productId);
+            }
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                unlink(ordinal);
+                documents.set(ordinal, null);
+                live.clear(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vide l'index (suppression de tout le catalogue)
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                removedDuringWarmup.addAll(ordinals.keySet());
+            }
+            postings.clear();
+            documents.clear();
+            ordinals.clear();
+            live.clear();
+            fuzzyTerms.clear();
+            trigramTerms.clear();
+            brandBits.clear();
+            conditionBits.clear();
+            categoryBits.clear();
+            priceBandBits.clear();
+            totalLength = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Met à jour la meilleure offre active d'un produit (voir ProductOfferService)
+     */
+    public void updateBestPrice(Long productId, BigDecimal bestPrice) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null) {
+                setBestPrice(ordinal, bestPrice);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recherche les produits contenant tous les termes de la requête, classés par score BM25
+     *
+     * @return une page d'identifiants de produits, dans l'ordre de pertinence
+     */
+    public Page<Long> search(ProductFilter filter, Pageable pageable) {
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = new HashMap<>();
+            BitSet exact = new BitSet();
+            BitSet hits = matchText(filter.search(), scores, exact);
+            hits.and(filterBits(filter, null));
+
+            List<Integer> ranked = new ArrayList<>(hits.cardinality());
+            hits.stream().forEach(ranked::add);
+            ranked.sort(Comparator.<Integer, Boolean>comparing(exact::get).reversed()
+                    .thenComparing(Comparator.<Integer>comparingDouble(scores::get).reversed())
+                    .thenComparing(ordinal -> documents.get(ordinal).id()));
+
+            int from = (int) Math.min(pageable.getOffset(), ranked.size());
+            int to = Math.min(from + pageable.getPageSize(), ranked.size());
+            List<Long> ids = ranked.subList(from, to).stream()
+                    .map(ordinal -> documents.get(ordinal).id())
+                    .toList();
+            return new PageImpl<>(ids, pageable, ranked.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compte les produits par marque, état, catégorie et tranche de prix pour les filtres donnés
+     */
+    public ProductFacetsDto facets(ProductFilter filter) {
+        lock.readLock().lock();
+        try {
+            BitSet matches = filter.hasSearch() ? matchText(filter.search(), null, null) : (BitSet) live.clone();
+            return ProductFacetsDto.builder()
+                    .brands(count(brandBits, restrict(matches, filter, Facet.BRAND)))
+                    .conditions(count(conditionBits, restrict(matches, filter, Facet.CONDITION)))
+                    .categories(count(categoryBits, restrict(matches, filter, Facet.CATEGORY)))
+                    .priceBands(countPriceBands(restrict(matches, filter, Facet.PRICE)))
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Liste des marques présentes dans le catalogue, triées
+     */
+    public List<String> brands() {
+        lock.readLock().lock();
+        try {
+            return brandBits.keySet().stream().sorted().toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Liste des états présents dans le catalogue, triés
+     */
+    public List<String> conditions() {
+        lock.readLock().lock();
+        try {
+            return conditionBits.keySet().stream().sorted().toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Documents contenant tous les termes de la requête, au besoin à quelques fautes près ;
+     * remplit si demandé les scores BM25 et les documents trouvés sans aucun terme approché
+     */
+    private BitSet matchText(String query, Map<Integer, Double> scores, BitSet exact) {
+        List<String> terms = TextAnalyzer.tokenize(query);
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+        int documentCount = ordinals.size();
+        if (terms.isEmpty() || documentCount == 0) {
+            return new BitSet();
+        }
+        double averageLength = (double) totalLength / documentCount;
+
+        BitSet matches = null;
+        for (int i = 0; i < terms.size(); i++) {
+            boolean prefix = i == terms.size() - 1;
+            BitSet termMatches = new BitSet();
+            for (Map<Integer, Integer> posting : matchingPostings(terms.get(i), prefix)) {
+                collect(posting, 1.0, documentCount, averageLength, termMatches, scores);
+            }
+            BitSet exactTermMatches = (BitSet) termMatches.clone();
+            for (Map.Entry<String, Integer> fuzzy : fuzzyExpansions(terms.get(i), prefix).entrySet()) {
+                collect(postings.get(fuzzy.getKey()), Math.pow(FUZZY_DISCOUNT, fuzzy.getValue()),
+                        documentCount, averageLength, termMatches, scores);
+            }
+            if (matches == null) {
+                matches = termMatches;
+            } else {
+                matches.and(termMatches);
+            }
+            if (exact != null) {
+                if (i == 0) {
+                    exact.or(exactTermMatches);
+                } else {
+                    exact.and(exactTermMatches);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void collect(Map<Integer, Integer> posting, double weight, int documentCount, double averageLength,
+                         BitSet termMatches, Map<Integer, Double> scores) {
+        if (posting == null) {
+            return;
+        }
+        double idf = Math.log(1 + (documentCount - posting.size() + 0.5) / (posting.size() + 0.5));
+        for (Map.Entry<Integer, Integer> entry : posting.entrySet()) {
+            termMatches.set(entry.getKey());
+            if (scores != null) {
+                IndexedProduct doc = documents.get(entry.getKey());
+                int tf = entry.getValue();
+                double norm = tf + K1 * (1 - B + B * doc.length() / averageLength);
+                scores.merge(entry.getKey(), weight * idf * tf * (K1 + 1) / norm, Double::sum);
+            }
+        }
+    }
+
+    /**
+     * Termes du vocabulaire à au plus quelques fautes du terme donné, avec leur distance
+     *
+     * Une insertion, suppression ou substitution détruit au plus trois trigrammes, une transposition
+     * de deux lettres voisines jusqu'à quatre ($abcd$ -> $acbd$) : un candidat à k fautes partage donc
+     * au moins (trigrammes du terme - 4k) trigrammes avec lui, ce qui évite de comparer tout le vocabulaire.
+     */
+    private Map<String, Integer> fuzzyExpansions(String term, boolean prefix) {
+        int maxEdits = term.length() <= 3 ? 0 : term.length() <= 5 ? Math.min(1, searchProperties.getFuzzyMaxEdits())
+                : searchProperties.getFuzzyMaxEdits();
+        if (maxEdits <= 0) {
+            return Map.of();
+        }
+        Set<String> trigrams = TextAnalyzer.trigrams(term);
+        int minShared = Math.max(1, trigrams.size() - 4 * maxEdits);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : trigrams) {
+            for (String candidate : trigramTerms.getOrDefault(trigram, Set.of())) {
+                shared.merge(candidate, 1, Integer::sum);
+            }
+        }
+
+        Map<String, Integer> expansions = new HashMap<>();
+        shared.entrySet().stream()
+                // les termes déjà trouvés exactement ou par préfixe ne comptent pas comme approchés
+                .filter(e -> e.getValue() >= minShared && !(prefix ? e.getKey().startsWith(term) : e.getKey().equals(term)))
+                .map(e -> Map.entry(e.getKey(), TextAnalyzer.editDistance(term, e.getKey(), maxEdits)))
+                .filter(e -> e.getValue() <= maxEdits)
+                .sorted(Map.Entry.<String, Integer>comparingByValue()
+                        .thenComparing(e -> -fuzzyTerms.getOrDefault(e.getKey(), 0)))
+                .limit(MAX_FUZZY_EXPANSIONS)
+                .forEach(e -> expansions.put(e.getKey(), e.getValue()));
+        return expansions;
+    }
+
+    private Collection<Map<Integer, Integer>> matchingPostings(String term, boolean prefix) {
+        if (!prefix) {
+            Map<Integer, Integer> posting = postings.get(term);
+            return posting != null ? List.of(posting) : List.of();
+        }
+        return postings.subMap(term, true, term + Character.MAX_VALUE, false).values().stream()
+                .limit(MAX_PREFIX_EXPANSIONS)
+                .toList();
+    }
+
+    /**
+     * Documents vivants respectant les filtres, sauf celui de la facette ignorée
+     */
+    private BitSet filterBits(ProductFilter filter, Facet ignored) {
+        BitSet bits = (BitSet) live.clone();
+        if (filter.categoryIds() != null && ignored != Facet.CATEGORY) {
+            BitSet inCategories = new BitSet();
+            for (Long categoryId : filter.categoryIds()) {
+                inCategories.or(categoryBits.getOrDefault(categoryId, EMPTY));
+            }
+            bits.and(inCategories);
+        }
+        if (filter.brand() != null && !filter.brand().isEmpty() && ignored != Facet.BRAND) {
+            bits.and(brandBits.getOrDefault(filter.brand(), EMPTY));
+        }
+        if (filter.condition() != null && !filter.condition().isEmpty() && ignored != Facet.CONDITION) {
+            bits.and(conditionBits.getOrDefault(filter.condition(), EMPTY));
+        }
+        if (filter.hasPriceRange() && ignored != Facet.PRICE) {
+            for (int ordinal = bits.nextSetBit(0); ordinal >= 0; ordinal = bits.nextSetBit(ordinal + 1)) {
+                if (!documents.get(ordinal).inPriceRange(filter.minPrice(), filter.maxPrice())) {
+                    bits.clear(ordinal);
+                }
+            }
+        }
+        return bits;
+    }
+
+    private BitSet restrict(BitSet matches, ProductFilter filter, Facet facet) {
+        BitSet bits = filterBits(filter, facet);
+        bits.and(matches);
+        return bits;
+    }
+
+    private static <K> Map<K, Long> count(Map<K, BitSet> facetBits, BitSet matches) {
+        List<Map.Entry<K, Long>> counts = new ArrayList<>();
+        facetBits.forEach((value, bits) -> {
+            long count = countIntersection(bits, matches);
+            if (count > 0) {
+                counts.add(Map.entry(value, count));
+            }
+        });
+        counts.sort(Map.Entry.<K, Long>comparingByValue().reversed());
+        Map<K, Long> result = new LinkedHashMap<>();
+        counts.forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+        return result;
+    }
+
+    private Map<String, Long> countPriceBands(BitSet matches) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < PRICE_BAND_BOUNDS.length; i++) {
+            String band = priceBandLabel(i);
+            result.put(band, countIntersection(priceBandBits.getOrDefault(band, EMPTY), matches));
+        }
+        return result;
+    }
+
+    private static long countIntersection(BitSet a, BitSet b) {
+        BitSet intersection = (BitSet) a.clone();
+        intersection.and(b);
+        return intersection.cardinality();
+    }
+
+    private void add(Product product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        accumulate(frequencies, product.getTitle(), TITLE_WEIGHT);
+        accumulate(frequencies, product.getBrand(), BRAND_WEIGHT);
+        accumulate(frequencies, product.getModel(), MODEL_WEIGHT);
+        accumulate(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        Set<String> vocabulary = new HashSet<>();
+        vocabulary.addAll(TextAnalyzer.tokenize(product.getTitle()));
+        vocabulary.addAll(TextAnalyzer.tokenize(product.getBrand()));
+        vocabulary.addAll(TextAnalyzer.tokenize(product.getModel()));
+
+        // Le prix est tenu à jour par updateBestPrice : on garde celui déjà indexé
+        BigDecimal bestPrice = product.getBestPrice();
+        Integer ordinal = ordinals.get(product.getId());
+        if (ordinal != null) {
+            bestPrice = documents.get(ordinal).bestPrice();
+            unlink(ordinal);
+        } else {
+            ordinal = documents.size();
+            documents.add(null);
+            ordinals.put(product.getId(), ordinal);
+        }
+
+        IndexedProduct doc = new IndexedProduct(
+                product.getId(),
+                product.getCategory() != null ? product.getCategory().getId() : null,
+                product.getBrand(),
+                product.getCondition(),
+                bestPrice,
+                frequencies.keySet(),
+                vocabulary,
+                length
+        );
+        documents.set(ordinal, doc);
+        live.set(ordinal);
+        totalLength += length;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(ordinal, entry.getValue());
+        }
+        for (String term : vocabulary) {
+            if (fuzzyTerms.merge(term, 1, Integer::sum) == 1) {
+                for (String trigram : TextAnalyzer.trigrams(term)) {
+                    trigramTerms.computeIfAbsent(trigram, k -> new HashSet<>()).add(term);
+                }
+            }
+        }
+        setFacet(brandBits, doc.brand(), ordinal, true);
+        setFacet(conditionBits, doc.condition(), ordinal, true);
+        setFacet(categoryBits, doc.categoryId(), ordinal, true);
+        setFacet(priceBandBits, priceBand(doc.bestPrice()), ordinal, true);
+    }
+
+    private void unlink(int ordinal) {
+        IndexedProduct previous = documents.get(ordinal);
+        if (previous == null) {
+            return;
+        }
+        totalLength -= previous.length();
+        for (String term : previous.terms()) {
+            Map<Integer, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(ordinal);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        for (String term : previous.vocabulary()) {
+            if (fuzzyTerms.merge(term, -1, Integer::sum) == 0) {
+                fuzzyTerms.remove(term);
+                for (String trigram : TextAnalyzer.trigrams(term)) {
+                    Set<String> trigramSet = trigramTerms.get(trigram);
+                    if (trigramSet != null && trigramSet.remove(term) && trigramSet.isEmpty()) {
+                        trigramTerms.remove(trigram);
+                    }
+                }
+            }
+        }
+        setFacet(brandBits, previous.brand(), ordinal, false);
+        setFacet(conditionBits, previous.condition(), ordinal, false);
+        setFacet(categoryBits, previous.categoryId(), ordinal, false);
+        setFacet(priceBandBits, priceBand(previous.bestPrice()), ordinal, false);
+    }
+
+    private void setBestPrice(int ordinal, BigDecimal bestPrice) {
+        IndexedProduct doc = documents.get(ordinal);
+        if (doc == null) {
+            return;
+        }
+        setFacet(priceBandBits, priceBand(doc.bestPrice()), ordinal, false);
+        documents.set(ordinal, doc.withBestPrice(bestPrice));
+        setFacet(priceBandBits, priceBand(bestPrice), ordinal, true);
+    }
+
+    private static <K> void setFacet(Map<K, BitSet> facetBits, K value, int ordinal, boolean present) {
+        if (value == null) {
+            return;
+        }
+        if (present) {
+            facetBits.computeIfAbsent(value, k -> new BitSet()).set(ordinal);
+            return;
+        }
+        BitSet bits = facetBits.get(value);
+        if (bits != null) {
+            bits.clear(ordinal);
+            if (bits.isEmpty()) {
+                facetBits.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Libellés des tranches de prix des facettes, dans l'ordre ("0-50", ..., "1000+")
+     */
+    public static List<String> priceBandLabels() {
+        return IntStream.range(0, PRICE_BAND_BOUNDS.length).mapToObj(ProductSearchIndex::priceBandLabel).toList();
+    }
+
+    private static String priceBand(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        for (int i = PRICE_BAND_BOUNDS.length - 1; i > 0; i--) {
+            if (price.compareTo(BigDecimal.valueOf(PRICE_BAND_BOUNDS[i])) >= 0) {
+                return priceBandLabel(i);
+            }
+        }
+        return priceBandLabel(0);
+    }
+
+    private static String priceBandLabel(int band) {
+        return band == PRICE_BAND_BOUNDS.length - 1
+                ? PRICE_BAND_BOUNDS[band] + "+"
+                : PRICE_BAND_BOUNDS[band] + "-" + PRICE_BAND_BOUNDS[band + 1];
+    }
+
+    private static void accumulate(Map<String, Integer> frequencies, String text, int weight) {
+        for (String term : TextAnalyzer.tokenize(text)) {
+            frequencies.merge(term, weight, Integer::sum);
+        }
+    }
+
+    private enum Facet {
+        BRAND, CONDITION, CATEGORY, PRICE
+    }
+
+    /**
+     * Instantané des champs indexés d'un produit
+     */
+    private record IndexedProduct(Long id, Long categoryId, String brand, String condition, BigDecimal bestPrice,
+                                  Set<String> terms, Set<String> vocabulary, int length) {
+
+        IndexedProduct withBestPrice(BigDecimal price) {
+            return new IndexedProduct(id, categoryId, brand, condition, price, terms, vocabulary, length);
+        }
+
+        boolean inPriceRange(Double minPrice, Double maxPrice) {
+            if (bestPrice == null) {
+                return false;
+            }
+            return (minPrice == null || bestPrice.compareTo(BigDecimal.valueOf(minPrice)) >= 0)
+                    && (maxPrice == null || bestPrice.compareTo(BigDecimal.valueOf(maxPrice)) <= 0);
+        }
+    }
+}
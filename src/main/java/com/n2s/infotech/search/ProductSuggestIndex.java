@@ -0,0 +1,717 @@
+package com.n2s.infotech.search;
+
+import com.n2s.infotech.config.SearchProperties;
+import com.n2s.infotech.dto.SuggestionDto;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Index d'autocomplétion en mémoire : arbre préfixe (trie) sur les titres, marques, modèles
+ * et noms de catégorie des produits
+ *
+ * Chaque nœud garde les meilleures complétions de son sous-arbre, classées par popularité
+ * (nombre de produits et d'offres actives), ce qui rend une suggestion proportionnelle
+ * à la longueur du préfixe seulement. Chaque phrase est aussi indexée à partir de ses mots
+ * suivants ("iph" complète "Apple iPhone 13").
+ * L'index est sauvegardé dans un instantané à l'arrêt et relu au démarrage ;
+ * seuls les produits créés ou modifiés depuis (updated_at) sont alors lus en base,
+ * et ceux supprimés depuis retirés.
+ *
+ * Pendant la construction initiale, les meilleures complétions ne sont pas tenues à jour :
+ * elles sont calculées en une passe, des feuilles vers la racine, une fois tout chargé.
+ * Ensuite, une écriture ne modifie un nœud que si l'entrée concernée entre dans son top,
+ * en sort ou y change de place.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final int MAX_WORD_KEYS = 6;
+    private static final int WARMUP_BATCH_SIZE = 500;
+    private static final int SNAPSHOT_VERSION = 1;
+    // Les produits modifiés juste avant l'instantané sont relus : updated_at est posé avant la validation
+    private static final Duration WATERMARK_MARGIN = Duration.ofMinutes(1);
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    // Plus populaire d'abord, puis la phrase la plus courte
+    private static final Comparator<Entry> RANKING = Comparator.<Entry>comparingLong(e -> -e.weight)
+            .thenComparingInt(e -> e.text.length())
+            .thenComparing(e -> e.text);
+
+    private final ProductRepository productRepository;
+    private final SearchProperties searchProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+    // type + phrase normalisée -> entrée
+    private final Map<String, Entry> entries = new HashMap<>();
+    // produit -> entrées auxquelles il contribue
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+
+    // produits écrits ou supprimés pendant la construction initiale : plus récents que la base lue
+    private final Set<Long> writtenDuringWarmup = new HashSet<>();
+
+    private volatile boolean ready;
+
+    /**
+     * Charge l'instantané puis les produits créés ou modifiés depuis, ou reconstruit tout depuis la base
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            Watermark watermark = loadSnapshot();
+            if (watermark != null) {
+                OffsetDateTime since = OffsetDateTime.ofInstant(
+                        Instant.ofEpochMilli(watermark.writtenAt()).minus(WATERMARK_MARGIN), ZoneOffset.UTC);
+                int changed = load(pageable -> productRepository.findChangedSince(since, watermark.maxId(), pageable));
+                int deleted = removeDeleted();
+                log.info("Instantané d'autocomplétion relu: {} produits rechargés, {} retirés", changed, deleted);
+            } else {
+                load(productRepository::findAll);
+            }
+
+            lock.writeLock().lock();
+            try {
+                buildTops(root);
+                writtenDuringWarmup.clear();
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Index d'autocomplétion prêt: {} phrases pour {} produits en {} ms",
+                    entries.size(), productCount(), System.currentTimeMillis() - start);
+            writeSnapshot();
+        } catch (Exception e) {
+            log.error("Échec de la construction de l'index d'autocomplétion", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Retourne les meilleures complétions d'un préfixe
+     */
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        String key = key(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        // "apple " ne complète que les phrases où "apple" est suivi d'un autre mot
+        if (!Character.isLetterOrDigit(prefix.charAt(prefix.length() - 1))) {
+            key += ' ';
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            return Arrays.stream(node.top)
+                    .limit(Math.max(1, Math.min(limit, MAX_SUGGESTIONS)))
+                    .map(e -> SuggestionDto.builder().text(e.text).type(e.type).build())
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ajoute ou remplace les phrases d'un produit
+     */
+    public void index(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                writtenDuringWarmup.add(product.getId());
+            }
+            add(product, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Réindexe les produits d'une catégorie, dont le nom fait partie des phrases (ex: après un renommage)
+     */
+    public void reindexCategory(Long categoryId) {
+        load(pageable -> productRepository.findByCategoryId(categoryId, pageable));
+    }
+
+    /**
+     * Retire les phrases d'un produit
+     */
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                writtenDuringWarmup.add(productId);
+            }
+            Contribution contribution = contributions.remove(productId);
+            if (contribution != null) {
+                unlink(contribution);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vide l'index (suppression de tout le catalogue)
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            if (!ready) {
+                writtenDuringWarmup.addAll(contributions.keySet());
+            }
+            root = new Node();
+            entries.clear();
+            contributions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Met à jour la popularité d'un produit d'après son nombre d'offres actives (voir ProductOfferService)
+     */
+    public void updatePopularity(Long productId, Integer activeListingCount) {
+        lock.writeLock().lock();
+        try {
+            Contribution contribution = contributions.get(productId);
+            if (contribution == null) {
+                return;
+            }
+            int weight = popularity(activeListingCount);
+            int delta = weight - contribution.weight;
+            if (delta == 0) {
+                return;
+            }
+            contribution.weight = weight;
+            for (Entry entry : contribution.entries) {
+                long previousWeight = entry.weight;
+                entry.weight += delta;
+                refresh(entry, previousWeight);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sauvegarde l'index dans l'instantané (écriture dans un fichier temporaire puis renommage)
+     */
+    @PreDestroy
+    public void writeSnapshot() {
+        if (!ready) {
+            return;
+        }
+        Map<Long, Contribution> copy;
+        long writtenAt;
+        lock.readLock().lock();
+        try {
+            // Toute écriture antérieure à cet instant figure dans la copie
+            writtenAt = System.currentTimeMillis();
+            copy = new TreeMap<>();
+            contributions.forEach((id, c) -> copy.put(id, new Contribution(c.weight, List.copyOf(c.entries))));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Path path = Paths.get(searchProperties.getSuggestSnapshot());
+        try {
+            Path dir = path.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "suggest", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(writtenAt);
+                out.writeInt(copy.size());
+                for (Map.Entry<Long, Contribution> product : copy.entrySet()) {
+                    out.writeLong(product.getKey());
+                    out.writeInt(product.getValue().weight);
+                    out.writeInt(product.getValue().entries.size());
+                    for (Entry entry : product.getValue().entries) {
+                        out.writeUTF(entry.type);
+                        out.writeUTF(entry.text);
+                    }
+                }
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Instantané d'autocomplétion écrit: {} produits", copy.size());
+        } catch (IOException e) {
+            log.warn("Impossible d'écrire l'instantané d'autocomplétion {}", path, e);
+        }
+    }
+
+    /**
+     * Relit l'instantané s'il existe et n'est pas trop ancien
+     *
+     * @return la date d'écriture de l'instantané et le plus grand id de produit lu, ou null si l'instantané
+     * n'est pas utilisable
+     */
+    private Watermark loadSnapshot() {
+        Path path = Paths.get(searchProperties.getSuggestSnapshot());
+        if (!Files.isReadable(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(
+                new BufferedInputStream(Files.newInputStream(path))))) {
+            if (in.readInt() != SNAPSHOT_VERSION) {
+                return null;
+            }
+            long writtenAt = in.readLong();
+            Duration age = Duration.ofMillis(System.currentTimeMillis() - writtenAt);
+            if (age.compareTo(searchProperties.getSuggestSnapshotMaxAge()) > 0) {
+                log.info("Instantané d'autocomplétion trop ancien ({}), reconstruction depuis la base", age);
+                return null;
+            }
+            long maxId = 0;
+            int products = in.readInt();
+            lock.writeLock().lock();
+            try {
+                for (int i = 0; i < products; i++) {
+                    long id = in.readLong();
+                    int weight = in.readInt();
+                    int count = in.readInt();
+                    List<Phrase> phrases = new ArrayList<>(count);
+                    for (int j = 0; j < count; j++) {
+                        phrases.add(new Phrase(in.readUTF(), in.readUTF()));
+                    }
+                    if (!writtenDuringWarmup.contains(id)) {
+                        link(id, weight, phrases);
+                    }
+                    maxId = Math.max(maxId, id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return new Watermark(writtenAt, maxId);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Instantané d'autocomplétion illisible {}, reconstruction depuis la base", path, e);
+            reset();
+            return null;
+        }
+    }
+
+    /**
+     * Indexe les produits lus, en remplaçant leurs phrases et leur popularité déjà indexées
+     *
+     * @return nombre de produits indexés
+     */
+    private int load(Function<Pageable, Page<Product>> source) {
+        Page<Product> batch;
+        int page = 0;
+        int loaded = 0;
+        do {
+            batch = source.apply(PageRequest.of(page++, WARMUP_BATCH_SIZE, Sort.by("id")));
+            lock.writeLock().lock();
+            try {
+                for (Product product : batch) {
+                    // Une écriture reçue pendant le chargement est plus récente que le lot lu
+                    if (!writtenDuringWarmup.contains(product.getId())) {
+                        add(product, false);
+                        loaded++;
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } while (batch.hasNext());
+        return loaded;
+    }
+
+    /**
+     * Retire les produits de l'instantané qui n'existent plus en base
+     *
+     * @return nombre de produits retirés
+     */
+    private int removeDeleted() {
+        Set<Long> existing = new HashSet<>(productRepository.findAllIds());
+        lock.writeLock().lock();
+        try {
+            List<Long> deleted = contributions.keySet().stream()
+                    .filter(id -> !existing.contains(id) && !writtenDuringWarmup.contains(id))
+                    .toList();
+            deleted.forEach(id -> unlink(contributions.remove(id)));
+            return deleted.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reset() {
+        lock.writeLock().lock();
+        try {
+            root = new Node();
+            entries.clear();
+            contributions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int productCount() {
+        lock.readLock().lock();
+        try {
+            return contributions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param keepWeight garder la popularité déjà indexée, tenue à jour par updatePopularity,
+     *                   plutôt que celle du produit (lu en base lors d'un chargement)
+     */
+    private void add(Product product, boolean keepWeight) {
+        Contribution previous = contributions.remove(product.getId());
+        int weight = keepWeight && previous != null ? previous.weight : popularity(product.getActiveListingCount());
+        if (previous != null) {
+            unlink(previous);
+        }
+
+        List<Phrase> phrases = new ArrayList<>(4);
+        addPhrase(phrases, "product", product.getTitle());
+        addPhrase(phrases, "brand", product.getBrand());
+        addPhrase(phrases, "model", product.getModel());
+        if (product.getCategory() != null) {
+            addPhrase(phrases, "category", product.getCategory().getName());
+        }
+        link(product.getId(), weight, phrases);
+    }
+
+    private static void addPhrase(List<Phrase> phrases, String type, String text) {
+        if (text != null && !text.isBlank()) {
+            phrases.add(new Phrase(type, text.trim()));
+        }
+    }
+
+    private void link(Long productId, int weight, List<Phrase> phrases) {
+        Set<Entry> linked = new LinkedHashSet<>();
+        for (Phrase phrase : phrases) {
+            String key = key(phrase.text());
+            if (key.isEmpty()) {
+                continue;
+            }
+            Entry entry = entries.computeIfAbsent(phrase.type() + ':' + key, id -> insert(new Entry(phrase.type(), phrase.text(), keys(key))));
+            if (linked.add(entry)) {
+                long previousWeight = entry.weight;
+                entry.weight += weight;
+                entry.products++;
+                refresh(entry, previousWeight);
+            }
+        }
+        contributions.put(productId, new Contribution(weight, new ArrayList<>(linked)));
+    }
+
+    private void unlink(Contribution contribution) {
+        for (Entry entry : contribution.entries) {
+            long previousWeight = entry.weight;
+            entry.weight -= contribution.weight;
+            entry.products--;
+            if (entry.products == 0) {
+                entries.remove(entry.type + ':' + entry.keys.get(0));
+                for (String key : entry.keys) {
+                    Node node = find(key);
+                    if (node != null && node.terminals != null) {
+                        node.terminals.remove(entry);
+                    }
+                }
+            }
+            refresh(entry, previousWeight);
+        }
+    }
+
+    private Entry insert(Entry entry) {
+        for (String key : entry.keys) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+            }
+            if (node.terminals == null) {
+                node.terminals = new ArrayList<>(1);
+            }
+            node.terminals.add(entry);
+        }
+        return entry;
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Met à jour les meilleures complétions des nœuds situés sur les chemins d'une entrée dont le poids
+     * vient de passer de previousWeight à entry.weight (retirée si elle n'a plus de produit), des feuilles
+     * vers la racine, en élaguant les nœuds devenus vides. On cesse de remonter dès que l'entrée n'est
+     * ni n'était dans le top d'un nœud : elle ne peut alors figurer dans celui d'aucun ancêtre.
+     * Rien n'est calculé pendant la construction initiale (voir buildTops).
+     */
+    private void refresh(Entry entry, long previousWeight) {
+        if (!ready) {
+            return;
+        }
+        boolean removed = entry.products == 0;
+        for (String key : entry.keys) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            int depth = 0;
+            while (depth < key.length() && path[depth].child(key.charAt(depth)) != null) {
+                path[depth + 1] = path[depth].child(key.charAt(depth));
+                depth++;
+            }
+            for (int i = depth; i >= 0; i--) {
+                Node node = path[i];
+                if (i > 0 && node.isEmpty()) {
+                    path[i - 1].removeChild(key.charAt(i - 1));
+                    continue;
+                }
+                Entry[] previous = node.top;
+                node.top = merge(node, entry, previousWeight, removed);
+                if (indexOf(previous, entry) < 0 && indexOf(node.top, entry) < 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Top d'un nœud après le changement de poids d'une entrée de son sous-arbre. Seul le cas où l'entrée
+     * quitte un top complet, ou passe derrière son dernier, oblige à relire les tops des enfants :
+     * les candidats qui n'y figurent pas sont tous classés après ce dernier.
+     */
+    private static Entry[] merge(Node node, Entry entry, long previousWeight, boolean removed) {
+        Entry[] top = node.top;
+        int at = indexOf(top, entry);
+        if (at < 0) {
+            if (removed || entry.weight <= previousWeight
+                    || (top.length == MAX_SUGGESTIONS && RANKING.compare(entry, top[top.length - 1]) > 0)) {
+                return top;
+            }
+            return insertRanked(top, entry);
+        }
+        if (top.length == MAX_SUGGESTIONS) {
+            Entry last = top[top.length - 1];
+            if (removed || (entry.weight < previousWeight && (last == entry || RANKING.compare(entry, last) > 0))) {
+                return best(node);
+            }
+        }
+        Entry[] rest = new Entry[top.length - 1];
+        System.arraycopy(top, 0, rest, 0, at);
+        System.arraycopy(top, at + 1, rest, at, top.length - at - 1);
+        return removed ? rest : insertRanked(rest, entry);
+    }
+
+    /**
+     * Insère une entrée à son rang dans un top trié, limité à MAX_SUGGESTIONS
+     */
+    private static Entry[] insertRanked(Entry[] top, Entry entry) {
+        int at = Arrays.binarySearch(top, entry, RANKING);
+        at = at >= 0 ? at : -at - 1;
+        if (at >= MAX_SUGGESTIONS) {
+            return top;
+        }
+        Entry[] merged = new Entry[Math.min(top.length + 1, MAX_SUGGESTIONS)];
+        System.arraycopy(top, 0, merged, 0, at);
+        merged[at] = entry;
+        System.arraycopy(top, at, merged, at + 1, merged.length - at - 1);
+        return merged;
+    }
+
+    private static int indexOf(Entry[] top, Entry entry) {
+        for (int i = 0; i < top.length; i++) {
+            if (top[i] == entry) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Calcule les tops de tout le sous-arbre en une passe, des feuilles vers la racine, en élaguant
+     * les nœuds vides (fin de la construction initiale)
+     */
+    private static void buildTops(Node node) {
+        for (int i = node.children.length - 1; i >= 0; i--) {
+            Node child = node.children[i];
+            buildTops(child);
+            if (child.isEmpty()) {
+                node.removeChild(node.labels[i]);
+            }
+        }
+        node.top = best(node);
+    }
+
+    private static Entry[] best(Node node) {
+        List<Entry> candidates = new ArrayList<>();
+        if (node.terminals != null) {
+            candidates.addAll(node.terminals);
+        }
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        return candidates.stream()
+                .distinct()
+                .sorted(RANKING)
+                .limit(MAX_SUGGESTIONS)
+                .toArray(Entry[]::new);
+    }
+
+    private static int popularity(Integer activeListingCount) {
+        return 1 + (activeListingCount != null ? activeListingCount : 0);
+    }
+
+    private static String key(String text) {
+        return String.join(" ", TextAnalyzer.words(text));
+    }
+
+    /**
+     * Clés d'une phrase : la phrase entière puis à partir de chacun des mots suivants
+     */
+    private static List<String> keys(String key) {
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        int from = 0;
+        for (int i = 1; i < MAX_WORD_KEYS; i++) {
+            from = key.indexOf(' ', from) + 1;
+            if (from == 0) {
+                break;
+            }
+            keys.add(key.substring(from));
+        }
+        return keys;
+    }
+
+    private record Phrase(String type, String text) {
+    }
+
+    private record Watermark(long writtenAt, long maxId) {
+    }
+
+    private static final class Contribution {
+        private int weight;
+        private final List<Entry> entries;
+
+        private Contribution(int weight, List<Entry> entries) {
+            this.weight = weight;
+            this.entries = entries;
+        }
+    }
+
+    private static final class Entry {
+        private final String type;
+        private final String text;
+        private final List<String> keys;
+        private long weight;
+        private int products;
+
+        private Entry(String type, String text, List<String> keys) {
+            this.type = type;
+            this.text = text;
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Nœud du trie : enfants triés par caractère dans deux tableaux parallèles (recherche dichotomique)
+     */
+    private static final class Node {
+        private char[] labels = NO_LABELS;
+        private Node[] children = NO_CHILDREN;
+        private List<Entry> terminals;
+        private Entry[] top = NO_ENTRIES;
+
+        private Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        private Node childOrCreate(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newLabels[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            labels = newLabels;
+            children = newChildren;
+            return newChildren[at];
+        }
+
+        private void removeChild(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            labels = newLabels.length == 0 ? NO_LABELS : newLabels;
+            children = newChildren.length == 0 ? NO_CHILDREN : newChildren;
+        }
+
+        private boolean isEmpty() {
+            return labels.length == 0 && (terminals == null || terminals.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.n2s.infotech.search;
+
+import com.n2s.infotech.config.SearchProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Crée la colonne search_vector et son index GIN utilisés par search.engine=postgres.
+ * <p>
+ * data.sql s'exécute avant qu'Hibernate ne crée les tables : sur une base neuve ce DDL y échouerait.
+ * Il est donc joué ici, une fois le schéma mis à jour (après l'EntityManagerFactory) et avant
+ * que l'application ne reçoive des requêtes.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@Slf4j
+public class SearchSchemaInitializer {
+
+    private static final String SEARCH_VECTOR_SQL = "ALTER TABLE products ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+            "GENERATED ALWAYS AS (" +
+            "setweight(to_tsvector('french', coalesce(title, '')), 'A') || " +
+            "setweight(to_tsvector('simple', coalesce(brand, '') || ' ' || coalesce(model, '')), 'A') || " +
+            "setweight(to_tsvector('english', coalesce(title, '')), 'B') || " +
+            "setweight(to_tsvector('french', coalesce(description, '')), 'C') || " +
+            "setweight(to_tsvector('english', coalesce(description, '')), 'D')" +
+            ") STORED";
+    private static final String SEARCH_INDEX_SQL =
+            "CREATE INDEX IF NOT EXISTS idx_products_search_vector ON products USING GIN (search_vector)";
+
+    private final SearchProperties searchProperties;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        if (!searchProperties.isPostgres()) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute(SEARCH_VECTOR_SQL);
+            jdbcTemplate.execute(SEARCH_INDEX_SQL);
+        } catch (DataAccessException e) {
+            log.error("Impossible de créer search_vector, la recherche plein texte PostgreSQL échouera", e);
+        }
+    }
+}
@@ -1,122 +1,234 @@
 package com.n2s.infotech.service;
 
+import com.n2s.infotech.dto.CartBulkRequest;
+import com.n2s.infotech.dto.CartBulkResponse;
+import com.n2s.infotech.dto.CartDto;
 import com.n2s.infotech.dto.CartItemDto;
-import com.n2s.infotech.model.CartItem;
+import com.n2s.infotech.dto.CartLineView;
 import com.n2s.infotech.model.Listing;
-import com.n2s.infotech.model.User;
-import com.n2s.infotech.repository.CartItemRepository;
 import com.n2s.infotech.repository.ListingRepository;
-import com.n2s.infotech.repository.UserRepository;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
- * Service pour gérer le panier d'achats
+ * Service pour gérer le panier d'achats.
+ * Le contenu des paniers est lu et modifié dans CartStore (mémoire, écriture différée en base).
  */
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
     private final ListingRepository listingRepository;
-    private final UserRepository userRepository;
+    private final StockHoldService stockHoldService;
 
     /**
-     * Récupère tous les articles du panier d'un utilisateur
+     * Récupère tous les articles du panier d'un utilisateur et prolonge ses réservations de stock
      */
     public List<CartItemDto> getUserCart(Long userId) {
-        return cartItemRepository.findByUserId(userId).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return getCart(userId).getItems();
     }
 
     /**
-     * Ajoute un article au panier
+     * Récupère le panier avec ses totaux et ses alertes de stock, et prolonge ses réservations.
+     * Les lignes viennent de CartStore ; leurs offres, produits, vendeurs et vignettes d'une seule requête.
+     */
+    public CartDto getCart(Long userId) {
+        stockHoldService.extend(userId);
+        List<CartStore.Line> lines = cartStore.lines(userId);
+        Map<Long, CartLineView> views = lines.isEmpty() ? Map.of()
+                : listingRepository.findCartLines(lines.stream().map(CartStore.Line::listingId).toList()).stream()
+                .collect(Collectors.toMap(CartLineView::getListingId, Function.identity()));
+
+        List<CartItemDto> items = new ArrayList<>();
+        BigDecimal subtotal = BigDecimal.ZERO;
+        int totalQuantity = 0;
+        for (CartStore.Line line : lines) {
+            CartLineView view = views.get(line.listingId());
+            if (view == null) {
+                continue;
+            }
+            CartItemDto item = convertToDto(line, view, userId);
+            items.add(item);
+            subtotal = subtotal.add(item.getLineTotal());
+            totalQuantity += line.quantity();
+        }
+        return CartDto.builder()
+                .items(items)
+                .subtotal(subtotal)
+                .totalQuantity(totalQuantity)
+                .hasStockWarnings(items.stream().anyMatch(item -> item.getStockWarning() != null))
+                .build();
+    }
+
+    /**
+     * Ajoute un article au panier et réserve la quantité pour la durée de vie du panier
      */
     public CartItemDto addToCart(Long userId, CartItemDto dto) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
         Listing listing = listingRepository.findById(dto.getListingId())
                 .orElseThrow(() -> new RuntimeException("Listing not found"));
 
-        // Vérifier la disponibilité
-        if (!listing.getActive() || listing.getQuantity() < dto.getQuantity()) {
+        if (!listing.getActive()) {
             throw new RuntimeException("Insufficient stock");
         }
 
-        // Vérifier si l'article existe déjà dans le panier
-        CartItem existingItem = cartItemRepository
-                .findByUserIdAndListingId(userId, listing.getId())
-                .orElse(null);
+        // Quantité ajoutée à celle déjà au panier ; la réservation échoue si les autres paniers en tiennent trop
+        CartStore.Line line = cartStore.put(userId, listing.getId(), current -> {
+            int newQuantity = current + dto.getQuantity();
+            stockHoldService.hold(userId, listing.getId(), newQuantity, listing.getQuantity());
+            return newQuantity;
+        });
+        stockHoldService.extend(userId);
+        return convertToDto(line, listing);
+    }
+
+    /**
+     * Applique des ajouts, mises à jour et retraits groupés, dans l'ordre. Les offres concernées sont
+     * lues en une requête et les modifications appliquées ensemble au panier, puis écrites en base par
+     * lot ; une opération refusée (offre introuvable, stock insuffisant) n'empêche pas les suivantes.
+     */
+    public CartBulkResponse bulkUpdate(Long userId, CartBulkRequest request) {
+        List<CartBulkRequest.Operation> operations = request.getOperations() != null ? request.getOperations() : List.of();
+        Set<Long> listingIds = operations.stream()
+                .map(CartBulkRequest.Operation::getListingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, CartLineView> views = listingIds.isEmpty() ? Map.of()
+                : listingRepository.findCartLines(listingIds).stream()
+                .collect(Collectors.toMap(CartLineView::getListingId, Function.identity()));
+
+        List<CartBulkResponse.Result> results = cartStore.edit(userId, cart -> operations.stream()
+                .map(operation -> apply(userId, cart, operation, views))
+                .toList());
+        stockHoldService.extend(userId);
+        return CartBulkResponse.builder()
+                .results(results)
+                .cart(getCart(userId))
+                .build();
+    }
 
-        if (existingItem != null) {
-            // Mettre à jour la quantité
-            int newQuantity = existingItem.getQuantity() + dto.getQuantity();
-            if (listing.getQuantity() < newQuantity) {
+    private CartBulkResponse.Result apply(Long userId, CartStore.Editor cart, CartBulkRequest.Operation operation,
+                                          Map<Long, CartLineView> views) {
+        CartBulkResponse.Result.ResultBuilder result = CartBulkResponse.Result.builder()
+                .type(operation.getType())
+                .listingId(operation.getListingId());
+        try {
+            Long listingId = operation.getListingId();
+            if (operation.getType() == null || listingId == null) {
+                throw new IllegalArgumentException("Operation type and listingId are required");
+            }
+            if (operation.getType() == CartBulkRequest.Type.REMOVE) {
+                cart.remove(listingId).ifPresent(line -> stockHoldService.release(userId, listingId));
+                return result.success(true).quantity(0).build();
+            }
+            if (operation.getQuantity() == null || operation.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for listing: " + listingId);
+            }
+            CartLineView view = views.get(listingId);
+            if (view == null) {
+                throw new RuntimeException("Listing not found");
+            }
+            if (!Boolean.TRUE.equals(view.getActive())) {
                 throw new RuntimeException("Insufficient stock");
             }
-            existingItem.setQuantity(newQuantity);
-            return convertToDto(cartItemRepository.save(existingItem));
+            int quantity = operation.getType() == CartBulkRequest.Type.ADD
+                    ? cart.quantity(listingId) + operation.getQuantity()
+                    : operation.getQuantity();
+            stockHoldService.hold(userId, listingId, quantity, view.getStock() != null ? view.getStock() : 0);
+            return result.success(true).quantity(cart.set(listingId, quantity).quantity()).build();
+        } catch (RuntimeException e) {
+            return result.success(false)
+                    .quantity(operation.getListingId() != null ? cart.quantity(operation.getListingId()) : null)
+                    .error(e.getMessage())
+                    .build();
         }
-
-        // Créer un nouvel article
-        CartItem cartItem = CartItem.builder()
-                .user(user)
-                .listing(listing)
-                .quantity(dto.getQuantity())
-                .build();
-
-        return convertToDto(cartItemRepository.save(cartItem));
     }
 
     /**
      * Met à jour la quantité d'un article du panier
      */
     public CartItemDto updateQuantity(Long cartItemId, Integer quantity) {
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
+        CartStore.Line item = cartStore.findItem(cartItemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
+        Listing listing = listingRepository.findById(item.listingId())
+                .orElseThrow(() -> new RuntimeException("Listing not found"));
 
-        // Vérifier la disponibilité
-        if (cartItem.getListing().getQuantity() < quantity) {
-            throw new RuntimeException("Insufficient stock");
-        }
-
-        cartItem.setQuantity(quantity);
-        return convertToDto(cartItemRepository.save(cartItem));
+        Long userId = item.userId();
+        CartStore.Line line = cartStore.put(userId, listing.getId(), current -> {
+            stockHoldService.hold(userId, listing.getId(), quantity, listing.getQuantity());
+            return quantity;
+        });
+        stockHoldService.extend(userId);
+        return convertToDto(line, listing);
     }
 
     /**
      * Supprime un article du panier
      */
     public void removeFromCart(Long cartItemId) {
-        cartItemRepository.deleteById(cartItemId);
+        cartStore.removeItem(cartItemId)
+                .ifPresent(line -> stockHoldService.release(line.userId(), line.listingId()));
     }
 
     /**
      * Vide le panier d'un utilisateur
      */
-    @Transactional
     public void clearCart(Long userId) {
-        cartItemRepository.deleteByUserId(userId);
+        cartStore.clear(userId);
+        stockHoldService.releaseAll(userId);
     }
 
     /**
-     * Convertit un CartItem en DTO
+     * Convertit une ligne de panier en DTO
      */
-    private CartItemDto convertToDto(CartItem item) {
+    private CartItemDto convertToDto(CartStore.Line line, Listing listing) {
         return CartItemDto.builder()
-                .id(item.getId())
-                .listingId(item.getListing().getId())
-                .productTitle(item.getListing().getProduct().getTitle())
-                .productBrand(item.getListing().getProduct().getBrand())
-                .price(item.getListing().getPrice())
-                .quantity(item.getQuantity())
-                .sellerShopName(item.getListing().getSeller().getShopName())
+                .id(line.id())
+                .listingId(listing.getId())
+                .productTitle(listing.getProduct().getTitle())
+                .productBrand(listing.getProduct().getBrand())
+                .price(listing.getPrice())
+                .quantity(line.quantity())
+                .sellerShopName(listing.getSeller().getShopName())
+                .lineTotal(listing.getPrice().multiply(BigDecimal.valueOf(line.quantity())))
                 .build();
     }
-}
 
+    /**
+     * Convertit une ligne de panier et la vue de son offre en DTO, avec le total de la ligne et l'alerte de stock
+     */
+    private CartItemDto convertToDto(CartStore.Line line, CartLineView view, Long userId) {
+        int stock = view.getStock() != null ? view.getStock() : 0;
+        int available = stock - stockHoldService.heldByOthers(userId, view.getListingId());
+        String warning = null;
+        if (!Boolean.TRUE.equals(view.getActive())) {
+            warning = "UNAVAILABLE";
+        } else if (available <= 0) {
+            warning = "OUT_OF_STOCK";
+        } else if (available < line.quantity()) {
+            warning = "INSUFFICIENT_STOCK";
+        }
+        return CartItemDto.builder()
+                .id(line.id())
+                .listingId(view.getListingId())
+                .productTitle(view.getProductTitle())
+                .productBrand(view.getProductBrand())
+                .price(view.getPrice())
+                .quantity(line.quantity())
+                .sellerShopName(view.getSellerShopName())
+                .imageUrl(view.getThumbnailUrl())
+                .lineTotal(view.getPrice().multiply(BigDecimal.valueOf(line.quantity())))
+                .availableQuantity(Math.max(available, 0))
+                .stockWarning(warning)
+                .build();
+    }
+}
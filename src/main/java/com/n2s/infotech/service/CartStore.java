@@ -0,0 +1,523 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.config.CartStoreProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.Timestamp;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Paniers tenus en mémoire, par utilisateur.
+ * <p>
+ * Un panier est chargé depuis cart_items au premier accès puis lu et modifié en mémoire ; les lignes
+ * modifiées sont recopiées en différé dans cart_items par un upsert groupé et un lot de suppressions. Les paniers
+ * inactifs (idleTtl) ou les moins récemment utilisés au-delà de maxCarts sont retirés de la mémoire une
+ * fois écrits. Les ids des nouvelles lignes sont pris dans cart_items_id_seq, par blocs comme Hibernate
+ * (pooled-lo), de la taille de l'incrément réel de la séquence. L'état étant local à l'instance,
+ * l'application suppose une seule instance.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartStore {
+
+    private static final String LOAD_SQL = "SELECT u.id AS user_id, c.id, c.listing_id, c.quantity, c.added_at " +
+            "FROM users u LEFT JOIN cart_items c ON c.user_id = u.id WHERE u.id = ? ORDER BY c.id";
+    // N'écrase jamais la ligne d'un autre panier ou d'une autre offre portant le même id
+    private static final String CONFLICT_SQL = " ON CONFLICT (id) DO UPDATE SET quantity = EXCLUDED.quantity " +
+            "WHERE cart_items.user_id = EXCLUDED.user_id AND cart_items.listing_id = EXCLUDED.listing_id RETURNING id";
+    private static final String UPSERT_SQL = "INSERT INTO cart_items (id, user_id, listing_id, quantity, added_at) " +
+            "VALUES (?, ?, ?, ?, ?)" + CONFLICT_SQL;
+    // Toutes les lignes en une instruction, dont RETURNING donne les ids écrits : les compteurs d'un lot JDBC
+    // ne le permettent pas, reWriteBatchedInserts les remplaçant par SUCCESS_NO_INFO
+    private static final String BULK_UPSERT_SQL = "INSERT INTO cart_items (id, user_id, listing_id, quantity, added_at) " +
+            "SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::bigint[], ?::int[], ?::timestamptz[])" + CONFLICT_SQL;
+    private static final String INCREMENT_SQL = "SELECT increment_by FROM pg_sequences " +
+            "WHERE schemaname = current_schema() AND sequencename = 'cart_items_id_seq'";
+    private static final String DELETE_SQL = "DELETE FROM cart_items WHERE id = ?";
+
+    private final CartStoreProperties cartStoreProperties;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, Cart> carts = new ConcurrentHashMap<>();
+    // Propriétaire de chaque ligne des paniers en mémoire, pour les accès par id de ligne
+    private final Map<Long, Long> ownerByItem = new ConcurrentHashMap<>();
+    // Paniers ayant des lignes à écrire en base
+    private final Set<Long> dirtyCarts = ConcurrentHashMap.newKeySet();
+
+    private long nextId;
+    private long idBlockEnd;
+    // Incrément de cart_items_id_seq, lu au premier bloc
+    private long idBlockSize;
+
+    /**
+     * Ligne de panier
+     */
+    public record Line(Long id, Long userId, Long listingId, int quantity, OffsetDateTime addedAt) {
+    }
+
+    /**
+     * Panier d'un utilisateur ; toute lecture ou modification se fait sous son verrou
+     */
+    private static final class Cart {
+        final Long userId;
+        // Lignes par id d'offre, dans l'ordre d'ajout
+        final Map<Long, Line> lines = new LinkedHashMap<>();
+        // Ids des lignes ajoutées, modifiées ou supprimées et pas encore écrites ; un id n'en sort
+        // qu'une fois son état écrit, si bien qu'un panier en cours d'écriture n'est pas retiré de la mémoire
+        final Set<Long> dirtyItems = new LinkedHashSet<>();
+        volatile long lastAccess = System.nanoTime();
+        boolean evicted;
+
+        Cart(Long userId) {
+            this.userId = userId;
+        }
+
+        Optional<Line> byId(Long itemId) {
+            return lines.values().stream().filter(line -> line.id().equals(itemId)).findFirst();
+        }
+    }
+
+    private record Candidate(long lastAccess, Cart cart) {
+    }
+
+    /**
+     * Modifications d'un panier appliquées sous un seul verrou ; valable pendant l'appel à edit()
+     */
+    public final class Editor {
+        private final Cart cart;
+
+        private Editor(Cart cart) {
+            this.cart = cart;
+        }
+
+        /**
+         * Quantité actuelle de l'offre dans le panier, 0 si absente
+         */
+        public int quantity(Long listingId) {
+            Line line = cart.lines.get(listingId);
+            return line != null ? line.quantity() : 0;
+        }
+
+        public Line set(Long listingId, int quantity) {
+            return CartStore.this.set(cart, listingId, quantity);
+        }
+
+        public Optional<Line> remove(Long listingId) {
+            Optional<Line> line = Optional.ofNullable(cart.lines.get(listingId));
+            line.ifPresent(removed -> CartStore.this.remove(cart, removed));
+            return line;
+        }
+    }
+
+    /**
+     * Lignes du panier de l'utilisateur
+     *
+     * @throws RuntimeException si l'utilisateur n'existe pas
+     */
+    public List<Line> lines(Long userId) {
+        return withCart(userId, cart -> List.copyOf(cart.lines.values()));
+    }
+
+    /**
+     * Applique plusieurs modifications au panier sous un seul verrou ; elles sont écrites en base
+     * avec les autres au prochain passage de l'écriture différée
+     */
+    public <T> T edit(Long userId, Function<Editor, T> edits) {
+        return withCart(userId, cart -> edits.apply(new Editor(cart)));
+    }
+
+    /**
+     * Fixe la quantité de l'offre dans le panier à partir de la quantité actuelle (0 si absente).
+     * La fonction est appelée sous le verrou du panier et peut lever une exception pour refuser la modification.
+     */
+    public Line put(Long userId, Long listingId, IntUnaryOperator quantity) {
+        return withCart(userId, cart -> {
+            Line current = cart.lines.get(listingId);
+            return set(cart, listingId, quantity.applyAsInt(current != null ? current.quantity() : 0));
+        });
+    }
+
+    /**
+     * Ligne de panier par son id, chargeant au besoin le panier de son propriétaire
+     */
+    public Optional<Line> findItem(Long itemId) {
+        Long userId = owner(itemId);
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return withCart(userId, cart -> cart.byId(itemId));
+    }
+
+    /**
+     * Retire une ligne du panier
+     *
+     * @return la ligne retirée, vide si elle n'existait pas
+     */
+    public Optional<Line> removeItem(Long itemId) {
+        Long userId = owner(itemId);
+        if (userId == null) {
+            return Optional.empty();
+        }
+        return withCart(userId, cart -> {
+            Optional<Line> line = cart.byId(itemId);
+            line.ifPresent(removed -> remove(cart, removed));
+            return line;
+        });
+    }
+
+    /**
+     * Vide le panier
+     *
+     * @return les lignes retirées
+     */
+    public List<Line> clear(Long userId) {
+        return withCart(userId, cart -> {
+            List<Line> removed = List.copyOf(cart.lines.values());
+            removed.forEach(line -> remove(cart, line));
+            return removed;
+        });
+    }
+
+    /**
+     * Vide le panier une fois la transaction courante validée (commande passée) ; rien en cas d'annulation
+     */
+    public void clearAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            clear(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                clear(userId);
+            }
+        });
+    }
+
+    /**
+     * Oublie tous les paniers en mémoire sans les écrire (après une suppression directe de cart_items)
+     */
+    public void reset() {
+        carts.values().forEach(cart -> {
+            synchronized (cart) {
+                cart.evicted = true;
+            }
+        });
+        carts.clear();
+        ownerByItem.clear();
+        dirtyCarts.clear();
+    }
+
+    /**
+     * Écrit en base, par lots, les lignes modifiées depuis le dernier passage. Les lignes restent marquées
+     * à écrire jusqu'au succès : en cas d'échec elles sont reprises au passage suivant.
+     */
+    @Scheduled(fixedDelayString = "#{@cartStoreProperties.flushInterval.toMillis()}")
+    @PreDestroy
+    public void flush() {
+        if (dirtyCarts.isEmpty()) {
+            return;
+        }
+        List<Line> upserts = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        // État écrit de chaque ligne, null pour une suppression
+        Map<Cart, Map<Long, Line>> written = new LinkedHashMap<>();
+        for (Long userId : List.copyOf(dirtyCarts)) {
+            dirtyCarts.remove(userId);
+            Cart cart = carts.get(userId);
+            if (cart == null) {
+                continue;
+            }
+            synchronized (cart) {
+                Map<Long, Line> state = new LinkedHashMap<>();
+                for (Long itemId : cart.dirtyItems) {
+                    Line line = cart.byId(itemId).orElse(null);
+                    if (line != null) {
+                        upserts.add(line);
+                    } else {
+                        deletes.add(itemId);
+                    }
+                    state.put(itemId, line);
+                }
+                written.put(cart, state);
+            }
+        }
+        List<Line> conflicts;
+        try {
+            conflicts = write(upserts, deletes);
+        } catch (DataAccessException e) {
+            written.keySet().forEach(cart -> dirtyCarts.add(cart.userId));
+            log.warn("Écriture des paniers reportée: {}", e.getMessage());
+            return;
+        }
+        written.forEach((cart, state) -> {
+            synchronized (cart) {
+                // Une ligne modifiée pendant l'écriture reste à écrire
+                state.forEach((itemId, line) -> {
+                    if (Objects.equals(cart.byId(itemId).orElse(null), line)) {
+                        cart.dirtyItems.remove(itemId);
+                    }
+                });
+                if (!cart.dirtyItems.isEmpty()) {
+                    dirtyCarts.add(cart.userId);
+                }
+            }
+        });
+        conflicts.forEach(this::reassignId);
+    }
+
+    /**
+     * Retire de la mémoire les paniers inactifs, puis les moins récemment utilisés au-delà de maxCarts ;
+     * un panier ayant des lignes non écrites est gardé jusqu'au prochain passage
+     */
+    @Scheduled(fixedDelayString = "#{@cartStoreProperties.evictInterval.toMillis()}")
+    public void evict() {
+        long idleBefore = System.nanoTime() - cartStoreProperties.getIdleTtl().toNanos();
+        // lastAccess change pendant le tri : on trie une copie figée des dates
+        List<Candidate> candidates = new ArrayList<>();
+        carts.values().forEach(cart -> candidates.add(new Candidate(cart.lastAccess, cart)));
+        candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+        int excess = candidates.size() - cartStoreProperties.getMaxCarts();
+        int evicted = 0;
+        for (Candidate candidate : candidates) {
+            Cart cart = candidate.cart();
+            boolean idle = candidate.lastAccess() - idleBefore < 0;
+            if (!idle && evicted >= excess) {
+                break;
+            }
+            synchronized (cart) {
+                if (!cart.dirtyItems.isEmpty()) {
+                    continue;
+                }
+                cart.evicted = true;
+                carts.remove(cart.userId, cart);
+                cart.lines.values().forEach(line -> ownerByItem.remove(line.id(), cart.userId));
+            }
+            evicted++;
+        }
+        if (evicted > 0) {
+            log.debug("{} paniers retirés de la mémoire", evicted);
+        }
+    }
+
+    /**
+     * Exécute l'opération sous le verrou du panier, chargé au besoin ; recommence si le panier a été
+     * retiré de la mémoire entre-temps
+     */
+    private <T> T withCart(Long userId, Function<Cart, T> operation) {
+        while (true) {
+            Cart cart = carts.get(userId);
+            if (cart == null) {
+                cart = load(userId);
+            }
+            synchronized (cart) {
+                if (!cart.evicted) {
+                    cart.lastAccess = System.nanoTime();
+                    return operation.apply(cart);
+                }
+            }
+        }
+    }
+
+    private Cart load(Long userId) {
+        Cart loaded = new Cart(userId);
+        boolean[] userExists = {false};
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            userExists[0] = true;
+            long itemId = rs.getLong("id");
+            if (!rs.wasNull()) {
+                Long listingId = rs.getLong("listing_id");
+                Timestamp addedAt = rs.getTimestamp("added_at");
+                loaded.lines.put(listingId, new Line(itemId, userId, listingId, rs.getInt("quantity"),
+                        addedAt != null ? addedAt.toInstant().atOffset(ZoneOffset.UTC) : null));
+            }
+        }, userId);
+        if (!userExists[0]) {
+            throw new RuntimeException("User not found");
+        }
+        Cart existing = carts.putIfAbsent(userId, loaded);
+        if (existing != null) {
+            return existing;
+        }
+        loaded.lines.values().forEach(line -> ownerByItem.put(line.id(), userId));
+        return loaded;
+    }
+
+    /**
+     * Propriétaire d'une ligne : en mémoire si son panier y est, sinon en base
+     */
+    private Long owner(Long itemId) {
+        Long userId = ownerByItem.get(itemId);
+        if (userId != null) {
+            return userId;
+        }
+        List<Long> owners = jdbcTemplate.queryForList("SELECT user_id FROM cart_items WHERE id = ?", Long.class, itemId);
+        return owners.isEmpty() ? null : owners.get(0);
+    }
+
+    private Line set(Cart cart, Long listingId, int quantity) {
+        Line current = cart.lines.get(listingId);
+        Line line = current != null
+                ? new Line(current.id(), cart.userId, listingId, quantity, current.addedAt())
+                : new Line(nextId(), cart.userId, listingId, quantity, OffsetDateTime.now());
+        cart.lines.put(listingId, line);
+        ownerByItem.put(line.id(), cart.userId);
+        markDirty(cart, line.id());
+        return line;
+    }
+
+    private void remove(Cart cart, Line line) {
+        cart.lines.remove(line.listingId());
+        ownerByItem.remove(line.id(), cart.userId);
+        markDirty(cart, line.id());
+    }
+
+    private void markDirty(Cart cart, Long itemId) {
+        cart.dirtyItems.add(itemId);
+        dirtyCarts.add(cart.userId);
+    }
+
+    /**
+     * Id de ligne pris dans un bloc de cart_items_id_seq. Comme Hibernate (pooled-lo), un appel à nextval
+     * réserve les ids de la valeur rendue jusqu'à l'incrément suivant ; la taille du bloc est l'incrément
+     * réel de la séquence, pour ne jamais empiéter sur les ids réservés par un autre appel.
+     */
+    private synchronized long nextId() {
+        if (nextId >= idBlockEnd) {
+            if (idBlockSize == 0) {
+                Long increment = jdbcTemplate.queryForObject(INCREMENT_SQL, Long.class);
+                if (increment == null || increment < 1) {
+                    throw new IllegalStateException("Incrément de cart_items_id_seq invalide: " + increment);
+                }
+                idBlockSize = increment;
+            }
+            Long low = jdbcTemplate.queryForObject("SELECT nextval('cart_items_id_seq')", Long.class);
+            nextId = low;
+            idBlockEnd = low + idBlockSize;
+        }
+        return nextId++;
+    }
+
+    /**
+     * Upserts puis suppressions, par lots ; ligne par ligne si un lot est refusé
+     *
+     * @return les lignes dont l'id est déjà pris par une autre ligne de cart_items
+     */
+    private List<Line> write(List<Line> upserts, List<Long> deletes) {
+        List<Line> conflicts = new ArrayList<>();
+        try {
+            Set<Long> written = new HashSet<>(upsertAll(upserts));
+            upserts.stream().filter(line -> !written.contains(line.id())).forEach(conflicts::add);
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes.stream().map(id -> new Object[]{id}).toList());
+        } catch (DataIntegrityViolationException e) {
+            // Une ligne refusée (offre supprimée entre-temps) ne doit pas bloquer les autres
+            log.warn("Écriture groupée des paniers refusée, reprise ligne par ligne: {}", e.getMessage());
+            conflicts.clear();
+            upserts.forEach(line -> {
+                if (upsertOne(line) == 0) {
+                    conflicts.add(line);
+                }
+            });
+            deletes.forEach(id -> writeOne(DELETE_SQL, new Object[]{id}));
+        }
+        return conflicts;
+    }
+
+    /**
+     * @return les ids des lignes écrites
+     */
+    private List<Long> upsertAll(List<Line> lines) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(BULK_UPSERT_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setArray(1, connection.createArrayOf("bigint", lines.stream().map(Line::id).toArray()));
+            ps.setArray(2, connection.createArrayOf("bigint", lines.stream().map(Line::userId).toArray()));
+            ps.setArray(3, connection.createArrayOf("bigint", lines.stream().map(Line::listingId).toArray()));
+            ps.setArray(4, connection.createArrayOf("integer", lines.stream().map(Line::quantity).toArray()));
+            ps.setArray(5, connection.createArrayOf("timestamptz", lines.stream().map(CartStore::addedAt).toArray()));
+        }, (rs, rowNum) -> rs.getLong("id"));
+    }
+
+    /**
+     * @return 1 si la ligne est écrite, 0 si son id est pris par une autre ligne, -1 si elle est abandonnée
+     */
+    private int upsertOne(Line line) {
+        try {
+            return jdbcTemplate.query(UPSERT_SQL, (rs, rowNum) -> rs.getLong("id"), upsertArgs(line)).size();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Ligne de panier {} abandonnée: {}", line.id(), e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Id déjà pris en base par la ligne d'un autre panier ou d'une autre offre : l'upsert n'a rien écrasé,
+     * la ligne reçoit un nouvel id et sera écrite au prochain passage
+     */
+    private void reassignId(Line conflict) {
+        log.error("Id de ligne de panier {} déjà utilisé en base, nouvel id attribué", conflict.id());
+        Cart cart = carts.get(conflict.userId());
+        if (cart == null) {
+            return;
+        }
+        synchronized (cart) {
+            Line current = cart.lines.get(conflict.listingId());
+            if (cart.evicted || current == null || !current.id().equals(conflict.id())) {
+                return;
+            }
+            Line line = new Line(nextId(), cart.userId, current.listingId(), current.quantity(), current.addedAt());
+            cart.lines.put(line.listingId(), line);
+            ownerByItem.remove(current.id(), cart.userId);
+            ownerByItem.put(line.id(), cart.userId);
+            cart.dirtyItems.remove(current.id());
+            markDirty(cart, line.id());
+        }
+    }
+
+    private static Object[] upsertArgs(Line line) {
+        return new Object[]{line.id(), line.userId(), line.listingId(), line.quantity(), addedAt(line)};
+    }
+
+    private static Timestamp addedAt(Line line) {
+        return line.addedAt() != null ? Timestamp.from(line.addedAt().toInstant()) : null;
+    }
+
+    /**
+     * @return le nombre de lignes écrites, -1 si la ligne est abandonnée
+     */
+    private int writeOne(String sql, Object[] args) {
+        try {
+            return jdbcTemplate.update(sql, args);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Ligne de panier {} abandonnée: {}", args[0], e.getMessage());
+            return -1;
+        }
+    }
+}
@@ -3,11 +3,12 @@ package com.n2s.infotech.service;
 import com.n2s.infotech.dto.CategoryDto;
 import com.n2s.infotech.model.Category;
 import com.n2s.infotech.repository.CategoryRepository;
+import com.n2s.infotech.search.ProductSuggestIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Objects;
 
 /**
  * Service pour gérer les catégories de produits
@@ -17,23 +18,22 @@ import java.util.stream.Collectors;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ProductSuggestIndex productSuggestIndex;
 
     /**
-     * Récupère toutes les catégories
+     * Récupère toutes les catégories (depuis l'arbre en mémoire)
      */
     public List<CategoryDto> getAllCategories() {
-        return categoryRepository.findAll().stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return categoryTreeCache.getAll();
     }
 
     /**
-     * Récupère une catégorie par son ID
+     * Récupère une catégorie par son ID (depuis l'arbre en mémoire)
      */
     public CategoryDto getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
+        return categoryTreeCache.get(id)
                 .orElseThrow(() -> new RuntimeException("Category not found"));
-        return convertToDto(category);
     }
 
     /**
@@ -43,9 +43,11 @@ public class CategoryService {
         Category category = Category.builder()
                 .name(dto.getName())
                 .description(dto.getDescription())
+                .parent(findParent(null, dto.getParentId()))
                 .build();
 
         category = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
         return convertToDto(category);
     }
 
@@ -56,10 +58,17 @@ public class CategoryService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found"));
 
+        boolean renamed = !Objects.equals(category.getName(), dto.getName());
         category.setName(dto.getName());
         category.setDescription(dto.getDescription());
+        category.setParent(findParent(id, dto.getParentId()));
 
         category = categoryRepository.save(category);
+        categoryTreeCache.invalidate();
+        if (renamed) {
+            // Le nom de la catégorie est une phrase d'autocomplétion de chacun de ses produits
+            productSuggestIndex.reindexCategory(id);
+        }
         return convertToDto(category);
     }
 
@@ -68,6 +77,21 @@ public class CategoryService {
      */
     public void deleteCategory(Long id) {
         categoryRepository.deleteById(id);
+        categoryTreeCache.invalidate();
+    }
+
+    /**
+     * Charge le parent demandé en refusant qu'une catégorie soit rattachée à son propre sous-arbre
+     */
+    private Category findParent(Long categoryId, Long parentId) {
+        if (parentId == null) {
+            return null;
+        }
+        if (categoryId != null && categoryTreeCache.subtree(categoryId).contains(parentId)) {
+            throw new IllegalArgumentException("Une catégorie ne peut pas être rattachée à l'une de ses sous-catégories");
+        }
+        return categoryRepository.findById(parentId)
+                .orElseThrow(() -> new RuntimeException("Parent category not found"));
     }
 
     /**
@@ -78,6 +102,7 @@ public class CategoryService {
                 .id(category.getId())
                 .name(category.getName())
                 .description(category.getDescription())
+                .parentId(category.getParent() != null ? category.getParent().getId() : null)
                 .build();
     }
 }
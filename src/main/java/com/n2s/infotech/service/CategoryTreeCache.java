@@ -0,0 +1,127 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.dto.CategoryDto;
+import com.n2s.infotech.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Arbre des catégories en mémoire, sous forme d'instantané immuable
+ *
+ * Chaque catégorie porte son chemin matérialisé ("/1/4/9/") et l'ensemble de ses descendants,
+ * ce qui permet de filtrer les produits d'un sous-arbre avec un seul IN sur category_id.
+ * L'instantané est reconstruit en une requête après chaque écriture sur les catégories,
+ * et au plus tard après MAX_AGE pour suivre les écritures faites par les autres instances.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeCache {
+
+    private static final Duration MAX_AGE = Duration.ofMinutes(10);
+
+    private final CategoryRepository categoryRepository;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Toutes les catégories, triées par chemin (chaque parent avant ses enfants)
+     */
+    public List<CategoryDto> getAll() {
+        return current().ordered();
+    }
+
+    public Optional<CategoryDto> get(Long id) {
+        return Optional.ofNullable(current().categories().get(id));
+    }
+
+    /**
+     * La catégorie et tous ses descendants ; vide si la catégorie n'existe pas
+     */
+    public Set<Long> subtree(Long id) {
+        return current().subtrees().getOrDefault(id, Set.of());
+    }
+
+    /**
+     * À appeler après chaque création, modification ou suppression de catégorie
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current == null || current.loadedAt().plus(MAX_AGE).isBefore(Instant.now())) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.loadedAt().plus(MAX_AGE).isBefore(Instant.now())) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        Map<Long, CategoryRepository.CategoryRow> rows = new HashMap<>();
+        for (CategoryRepository.CategoryRow row : categoryRepository.findAllRows()) {
+            rows.put(row.getId(), row);
+        }
+
+        Map<Long, String> paths = new HashMap<>();
+        for (Long id : rows.keySet()) {
+            path(id, rows, paths, new HashSet<>());
+        }
+
+        Map<Long, CategoryDto> categories = new HashMap<>();
+        Map<Long, Set<Long>> subtrees = new HashMap<>();
+        for (CategoryRepository.CategoryRow row : rows.values()) {
+            categories.put(row.getId(), CategoryDto.builder()
+                    .id(row.getId())
+                    .name(row.getName())
+                    .description(row.getDescription())
+                    .parentId(row.getParentId())
+                    .path(paths.get(row.getId()))
+                    .build());
+            // Une catégorie appartient au sous-arbre de chaque ancêtre de son chemin
+            for (String segment : paths.get(row.getId()).split("/")) {
+                if (!segment.isEmpty()) {
+                    subtrees.computeIfAbsent(Long.valueOf(segment), k -> new HashSet<>()).add(row.getId());
+                }
+            }
+        }
+        subtrees.replaceAll((id, ids) -> Set.copyOf(ids));
+
+        List<CategoryDto> ordered = categories.values().stream()
+                .sorted(Comparator.comparing(CategoryDto::getPath))
+                .toList();
+        log.debug("Arbre des catégories rechargé: {} catégories", categories.size());
+        return new Snapshot(Map.copyOf(categories), Map.copyOf(subtrees), ordered, Instant.now());
+    }
+
+    private static String path(Long id, Map<Long, CategoryRepository.CategoryRow> rows, Map<Long, String> paths, Set<Long> visiting) {
+        String known = paths.get(id);
+        if (known != null) {
+            return known;
+        }
+        CategoryRepository.CategoryRow row = rows.get(id);
+        Long parentId = row.getParentId();
+        // Parent absent ou cycle en base : la catégorie est traitée comme une racine
+        String parentPath = parentId == null || !rows.containsKey(parentId) || !visiting.add(id)
+                ? "/"
+                : path(parentId, rows, paths, visiting);
+        String path = parentPath + id + "/";
+        paths.put(id, path);
+        return path;
+    }
+
+    private record Snapshot(Map<Long, CategoryDto> categories, Map<Long, Set<Long>> subtrees,
+                            List<CategoryDto> ordered, Instant loadedAt) {
+    }
+}
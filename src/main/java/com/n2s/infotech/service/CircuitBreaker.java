@@ -0,0 +1,101 @@
+package com.n2s.infotech.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Disjoncteur d'un service distant.
+ * <p>
+ * Après failureThreshold échecs consécutifs le circuit s'ouvre : les appels sont refusés aussitôt pendant
+ * openDuration, sans attendre le délai d'expiration du service. Passé ce délai, un seul appel d'essai est
+ * laissé passer ; il referme le circuit s'il réussit, le rouvre sinon. Seules les exceptions retenues par
+ * isFailure comptent comme échecs (une requête refusée par le service prouve qu'il répond).
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Predicate<Exception> isFailure;
+    private final Clock clock;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probing = new AtomicBoolean();
+    // null tant que le circuit est fermé
+    private volatile Instant openUntil;
+
+    @FunctionalInterface
+    public interface Call<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Predicate<Exception> isFailure) {
+        this(name, failureThreshold, openDuration, isFailure, Clock.systemUTC());
+    }
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, Predicate<Exception> isFailure, Clock clock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.isFailure = isFailure;
+        this.clock = clock;
+    }
+
+    /**
+     * Exécute l'appel si le circuit le permet
+     *
+     * @throws IllegalStateException si le circuit est ouvert
+     */
+    public <T, E extends Exception> T call(Call<T, E> call) throws E {
+        boolean probe = false;
+        Instant until = openUntil;
+        if (until != null) {
+            if (clock.instant().isBefore(until) || !probing.compareAndSet(false, true)) {
+                throw new IllegalStateException(name + " indisponible, réessayez plus tard");
+            }
+            probe = true;
+        }
+        try {
+            T result = call.run();
+            onSuccess();
+            return result;
+        } catch (Exception e) {
+            if (isFailure.test(e)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+            throw e;
+        } finally {
+            if (probe) {
+                probing.set(false);
+            }
+        }
+    }
+
+    public boolean isOpen() {
+        return openUntil != null;
+    }
+
+    private void onSuccess() {
+        consecutiveFailures.set(0);
+        if (openUntil != null) {
+            openUntil = null;
+            log.info("Circuit {} refermé", name);
+        }
+    }
+
+    private void onFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openUntil = clock.instant().plus(openDuration);
+            log.warn("Circuit {} ouvert pour {} après {} échecs consécutifs", name, openDuration, consecutiveFailures.get());
+        }
+    }
+}
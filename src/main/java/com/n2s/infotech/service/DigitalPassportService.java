@@ -2,10 +2,12 @@ package com.n2s.infotech.service;
 
 import com.n2s.infotech.dto.CreateDigitalPassportRequest;
 import com.n2s.infotech.dto.DigitalPassportDto;
+import com.n2s.infotech.event.ProductChangedEvent;
 import com.n2s.infotech.model.*;
 import com.n2s.infotech.repository.DigitalPassportRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,6 +21,7 @@ import java.util.stream.Collectors;
 public class DigitalPassportService {
 
     private final DigitalPassportRepository digitalPassportRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public boolean existsByProductId(Long productId) {
@@ -53,6 +56,7 @@ public class DigitalPassportService {
         DigitalPassport saved = digitalPassportRepository.save(passport);
 
         log.info("Digital passport created with ID: {}", saved.getId());
+        publishPassportChange(saved.getProductId());
         return mapToDto(saved);
     }
 
@@ -75,6 +79,7 @@ public class DigitalPassportService {
         DigitalPassport updated = digitalPassportRepository.save(passport);
 
         log.info("Digital passport updated: {}", id);
+        publishPassportChange(updated.getProductId());
         return mapToDto(updated);
     }
 
@@ -82,12 +87,16 @@ public class DigitalPassportService {
     public void delete(Long id) {
         log.info("Deleting digital passport ID: {}", id);
 
-        if (!digitalPassportRepository.existsById(id)) {
-            throw new RuntimeException("Digital passport not found: " + id);
-        }
+        DigitalPassport passport = digitalPassportRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Digital passport not found: " + id));
 
-        digitalPassportRepository.deleteById(id);
+        digitalPassportRepository.delete(passport);
         log.info("Digital passport deleted: {}", id);
+        publishPassportChange(passport.getProductId());
+    }
+
+    private void publishPassportChange(Long productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.Source.PASSPORT));
     }
 
     private String calculateCarbonScore(Double totalCO2) {
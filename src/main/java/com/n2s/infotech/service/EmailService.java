@@ -33,6 +33,14 @@ public class EmailService {
      */
     @Async
     public void sendEmail(String to, String subject, String htmlContent) {
+        send(to, subject, htmlContent);
+    }
+
+    /**
+     * Envoie un email HTML et attend la fin de l'envoi SMTP
+     * (utilise par les consommateurs de la boite d'envoi, qui reessaient en cas d'echec)
+     */
+    public void send(String to, String subject, String htmlContent) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -0,0 +1,270 @@
+package com.n2s.infotech.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.n2s.infotech.config.IdempotencyProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Exécution idempotente des requêtes de création portant un en-tête Idempotency-Key.
+ * <p>
+ * La première requête d'une clé réserve celle-ci dans idempotency_keys, s'exécute puis y mémorise sa
+ * réponse ; les requêtes rejouées avec la même clé reçoivent cette réponse sans refaire le traitement.
+ * Un doublon concurrent attend la requête d'origine : sur la même instance via son résultat en mémoire,
+ * sur une autre instance en relisant la table. Une requête en échec libère la clé.
+ * <p>
+ * La réservation doit être visible des autres requêtes avant le traitement : execute() s'appelle
+ * hors transaction, le traitement ouvrant la sienne.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String IN_PROGRESS = "IN_PROGRESS";
+    private static final String COMPLETED = "COMPLETED";
+
+    private static final String CLAIM_SQL = "INSERT INTO idempotency_keys " +
+            "(idempotency_key, request_hash, status, created_at, expires_at) VALUES (?, ?, '" + IN_PROGRESS + "', ?, ?) " +
+            "ON CONFLICT (idempotency_key) DO NOTHING";
+    private static final String COMPLETE_SQL = "UPDATE idempotency_keys SET status = '" + COMPLETED + "', " +
+            "response = ?, expires_at = ? WHERE idempotency_key = ?";
+    private static final String SELECT_SQL = "SELECT request_hash, status, response, expires_at " +
+            "FROM idempotency_keys WHERE idempotency_key = ?";
+    private static final String RELEASE_SQL = "DELETE FROM idempotency_keys WHERE idempotency_key = ?";
+    private static final String RELEASE_EXPIRED_SQL = "DELETE FROM idempotency_keys " +
+            "WHERE idempotency_key = ? AND expires_at <= ?";
+
+    private final IdempotencyProperties idempotencyProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    // Requêtes en cours sur cette instance : les doublons attendent leur réponse
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    // Réponses déjà mémorisées, pour rejouer sans lire la base
+    private final Map<String, Entry> completed = new ConcurrentHashMap<>();
+
+    /**
+     * Traitement protégé par une clé d'idempotence ; peut lever une exception vérifiée (ex: StripeException)
+     */
+    @FunctionalInterface
+    public interface Action<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    private record InFlight(String requestHash, CompletableFuture<String> response) {
+    }
+
+    private record Entry(String requestHash, String status, String response, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+
+    /**
+     * Exécute le traitement une seule fois par clé et renvoie la réponse mémorisée aux requêtes rejouées.
+     * Sans clé, le traitement est simplement exécuté.
+     *
+     * @param scope   portée de la clé (type de requête et, le cas échéant, utilisateur)
+     * @param request corps de la requête, dont l'empreinte doit être identique d'un rejeu à l'autre
+     * @throws IllegalArgumentException si la clé a déjà servi pour une requête différente
+     * @throws IllegalStateException    si la requête d'origine est toujours en cours après l'attente maximale
+     */
+    public <T, E extends Exception> T execute(String scope, String key, Object request,
+                                              TypeReference<T> responseType, Action<T, E> action) throws E {
+        if (key == null || key.isBlank()) {
+            return action.run();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " trop longue (" + MAX_KEY_LENGTH + " caractères maximum)");
+        }
+        String id = scope + ":" + key;
+        String requestHash = fingerprint(request);
+
+        Entry cached = completed.get(id);
+        if (cached != null && !cached.isExpired(Instant.now())) {
+            checkSameRequest(cached.requestHash(), requestHash);
+            return read(cached.response(), responseType);
+        }
+
+        InFlight own = new InFlight(requestHash, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(id, own);
+        if (running != null) {
+            checkSameRequest(running.requestHash(), requestHash);
+            return read(await(running.response()), responseType);
+        }
+        try {
+            String response = claimAndRun(id, requestHash, action);
+            own.response().complete(response);
+            return read(response, responseType);
+        } catch (Exception e) {
+            own.response().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, own);
+        }
+    }
+
+    /**
+     * Purge les clés expirées, en mémoire et en base
+     */
+    @Scheduled(fixedDelayString = "#{@idempotencyProperties.cleanupInterval.toMillis()}")
+    public void cleanup() {
+        Instant now = Instant.now();
+        completed.values().removeIf(entry -> entry.isExpired(now));
+        try {
+            int deleted = jdbcTemplate.update("DELETE FROM idempotency_keys WHERE expires_at <= ?", Timestamp.from(now));
+            if (deleted > 0) {
+                log.debug("{} clés d'idempotence expirées supprimées", deleted);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Purge des clés d'idempotence reportée: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Réserve la clé en base puis exécute le traitement ; si une autre instance la détient, attend sa réponse
+     */
+    private <T, E extends Exception> String claimAndRun(String id, String requestHash, Action<T, E> action) throws E {
+        Instant deadline = Instant.now().plus(idempotencyProperties.getWaitTimeout());
+        while (true) {
+            Instant now = Instant.now();
+            int claimed = jdbcTemplate.update(CLAIM_SQL, id, requestHash, Timestamp.from(now),
+                    Timestamp.from(now.plus(idempotencyProperties.getLease())));
+            if (claimed == 1) {
+                return run(id, requestHash, action);
+            }
+            Entry stored = find(id);
+            if (stored == null) {
+                // Libérée entre-temps par une requête en échec
+                continue;
+            }
+            if (stored.isExpired(now)) {
+                jdbcTemplate.update(RELEASE_EXPIRED_SQL, id, Timestamp.from(now));
+                continue;
+            }
+            checkSameRequest(stored.requestHash(), requestHash);
+            if (COMPLETED.equals(stored.status())) {
+                remember(id, stored);
+                return stored.response();
+            }
+            if (now.isAfter(deadline)) {
+                throw new IllegalStateException("Une requête avec cette " + HEADER + " est toujours en cours");
+            }
+            sleep();
+        }
+    }
+
+    private <T, E extends Exception> String run(String id, String requestHash, Action<T, E> action) throws E {
+        String response;
+        try {
+            response = write(action.run());
+        } catch (Exception e) {
+            // La clé est libérée pour qu'une nouvelle tentative puisse aboutir
+            jdbcTemplate.update(RELEASE_SQL, id);
+            throw e;
+        }
+        Instant expiresAt = Instant.now().plus(idempotencyProperties.getTtl());
+        jdbcTemplate.update(COMPLETE_SQL, response, Timestamp.from(expiresAt), id);
+        remember(id, new Entry(requestHash, COMPLETED, response, expiresAt));
+        return response;
+    }
+
+    /**
+     * Garde une réponse en mémoire, au plus localTtl : les rejeux arrivent surtout dans les minutes qui suivent
+     */
+    private void remember(String id, Entry entry) {
+        Instant localExpiry = Instant.now().plus(idempotencyProperties.getLocalTtl());
+        completed.put(id, localExpiry.isBefore(entry.expiresAt())
+                ? new Entry(entry.requestHash(), entry.status(), entry.response(), localExpiry)
+                : entry);
+    }
+
+    private Entry find(String id) {
+        List<Entry> rows = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Entry(
+                rs.getString("request_hash"),
+                rs.getString("status"),
+                rs.getString("response"),
+                rs.getTimestamp("expires_at").toInstant()), id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private String await(CompletableFuture<String> response) {
+        try {
+            return response.get(idempotencyProperties.getWaitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Une requête avec cette " + HEADER + " est toujours en cours");
+        } catch (ExecutionException e) {
+            // Le doublon reçoit l'erreur de la requête d'origine
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente de la requête d'origine interrompue", e);
+        }
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(idempotencyProperties.getPollInterval().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente de la requête d'origine interrompue", e);
+        }
+    }
+
+    private void checkSameRequest(String expectedHash, String requestHash) {
+        if (!expectedHash.equals(requestHash)) {
+            throw new IllegalArgumentException(HEADER + " déjà utilisée pour une requête différente");
+        }
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Impossible de calculer l'empreinte de la requête", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossible de mémoriser la réponse", e);
+        }
+    }
+
+    private <T> T read(String response, TypeReference<T> responseType) {
+        try {
+            return objectMapper.readValue(response, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Réponse mémorisée illisible", e);
+        }
+    }
+}
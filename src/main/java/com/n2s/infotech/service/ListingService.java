@@ -1,12 +1,17 @@
 package com.n2s.infotech.service;
 
+import com.n2s.infotech.dto.CursorPageDto;
 import com.n2s.infotech.dto.ListingDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 
 public interface ListingService {
-    Page<ListingDto> listListings(Pageable pageable, String search);
+    Slice<ListingDto> listListings(Pageable pageable, String search, String count);
     ListingDto getListing(Long id);
-    Page<ListingDto> getListingsByProduct(Long productId, Pageable pageable);
+    Slice<ListingDto> getListingsByProduct(Long productId, Pageable pageable, String count);
+    CursorPageDto<ListingDto> scrollListings(String cursor, int size, Sort sort);
+    CursorPageDto<ListingDto> scrollListingsByProduct(Long productId, String cursor, int size, Sort sort);
 }
 
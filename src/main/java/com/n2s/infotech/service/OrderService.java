@@ -1,26 +1,38 @@
 package com.n2s.infotech.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.n2s.infotech.dto.CreateOrderRequest;
 import com.n2s.infotech.dto.OrderDto;
 import com.n2s.infotech.dto.OrderItemRequestDto;
+import com.n2s.infotech.event.OrderEventType;
 import com.n2s.infotech.model.Listing;
 import com.n2s.infotech.model.Order;
 import com.n2s.infotech.model.OrderItem;
 import com.n2s.infotech.model.User;
-import com.n2s.infotech.repository.CartItemRepository;
 import com.n2s.infotech.repository.ListingRepository;
+import com.n2s.infotech.repository.ListingRepositoryCustom;
 import com.n2s.infotech.repository.OrderRepository;
 import com.n2s.infotech.repository.UserRepository;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -31,34 +43,78 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
+    // Paiements encore en cours chez Stripe : la commande est enregistrée en attente, le webhook la passera à PAID
+    private static final Set<String> PENDING_PAYMENT_STATUSES = Set.of("processing", "requires_action");
+
     private final OrderRepository orderRepository;
     private final ListingRepository listingRepository;
     private final UserRepository userRepository;
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
     private final StripeService stripeService;
     private final ObjectMapper objectMapper;
+    private final ProductOfferService productOfferService;
+    private final StockHoldService stockHoldService;
+    private final PageCountService pageCountService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxService outboxService;
 
     /**
-     * Crée une nouvelle commande
+     * Crée une nouvelle commande une seule fois par clé d'idempotence : une requête rejouée avec la même clé
+     * reçoit la commande déjà créée. La clé est réservée hors transaction, avant la création de la commande.
+     */
+    public OrderDto createOrder(CreateOrderRequest request, String idempotencyKey) {
+        return idempotencyService.execute("order:" + request.getBuyerId(), idempotencyKey, request,
+                new TypeReference<OrderDto>() {
+                },
+                () -> createOrder(request));
+    }
+
+    /**
+     * Crée une nouvelle commande en deux temps : le paiement est vérifié auprès de Stripe hors transaction,
+     * sans occuper de connexion pendant l'appel distant, puis une transaction courte réserve le stock et
+     * enregistre la commande. À appeler hors transaction.
      */
-    @Transactional
     public OrderDto createOrder(CreateOrderRequest request) {
-        User buyer = userRepository.findById(request.getBuyerId())
-                .orElseThrow(() -> new RuntimeException("Buyer not found"));
+        boolean paid = verifyPayment(request.getPaymentIntentId());
+        return transactionTemplate.execute(status -> saveOrder(request, paid));
+    }
 
-        // Vérifier que le paiement a réussi si paymentIntentId est fourni
-        if (request.getPaymentIntentId() != null && !request.getPaymentIntentId().isEmpty()) {
-            boolean paymentSuccess = stripeService.verifyPaymentSuccess(request.getPaymentIntentId());
-            if (!paymentSuccess) {
-                throw new RuntimeException("Le paiement n'a pas été confirmé");
-            }
+    /**
+     * Vérifie le paiement si paymentIntentId est fourni
+     *
+     * @return true si le paiement a réussi, false s'il n'y a pas de paiement ou s'il est encore en cours
+     * (la commande reste alors en attente avec l'id du PaymentIntent, jusqu'à l'événement du webhook)
+     */
+    private boolean verifyPayment(String paymentIntentId) {
+        if (paymentIntentId == null || paymentIntentId.isEmpty()) {
+            return false;
         }
+        String paymentStatus = stripeService.getPaymentStatus(paymentIntentId);
+        if ("succeeded".equals(paymentStatus)) {
+            return true;
+        }
+        if (PENDING_PAYMENT_STATUSES.contains(paymentStatus)) {
+            return false;
+        }
+        throw new RuntimeException("Le paiement n'a pas été confirmé");
+    }
+
+    /**
+     * Enregistre la commande dans la transaction courante. Le nombre d'allers-retours ne dépend pas du
+     * nombre de lignes : acheteur, offres, lot de décréments, recalcul des offres (UPDATE puis lecture),
+     * au plus un nextval par séquence (pas de 50), puis à la validation la commande, le lot de ses lignes
+     * et le lot de la boîte d'envoi ; product_summary est ensuite recalculée en une transaction.
+     */
+    private OrderDto saveOrder(CreateOrderRequest request, boolean paid) {
+        User buyer = userRepository.findById(request.getBuyerId())
+                .orElseThrow(() -> new RuntimeException("Buyer not found"));
 
         Order order = Order.builder()
                 .buyer(buyer)
                 .status("CREATED")
                 .paymentIntentId(request.getPaymentIntentId())
-                .paymentStatus(request.getPaymentIntentId() != null ? "succeeded" : "pending")
+                .paymentStatus(paid ? "succeeded" : "pending")
                 .build();
 
         // Ajouter l'adresse de livraison si fournie
@@ -71,17 +127,25 @@ public class OrderService {
             }
         }
 
+        Map<Long, Integer> quantities = requestedQuantities(request.getItems());
+
+        // Toutes les offres de la commande en une requête (produit et vendeur joints)
+        Map<Long, Listing> listings = listingRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Listing::getId, Function.identity()));
+        for (Long listingId : quantities.keySet()) {
+            if (!listings.containsKey(listingId)) {
+                throw new RuntimeException("Listing not found: " + listingId);
+            }
+        }
+
+        reserveStock(buyer.getId(), quantities);
+
         List<OrderItem> items = new ArrayList<>();
         BigDecimal total = BigDecimal.ZERO;
+        Set<Long> productIds = new LinkedHashSet<>();
 
         for (OrderItemRequestDto itemRequest : request.getItems()) {
-            Listing listing = listingRepository.findById(itemRequest.getListingId())
-                    .orElseThrow(() -> new RuntimeException("Listing not found: " + itemRequest.getListingId()));
-
-            // Vérifier la disponibilité
-            if (!listing.getActive() || listing.getQuantity() < itemRequest.getQuantity()) {
-                throw new RuntimeException("Insufficient stock for listing: " + listing.getId());
-            }
+            Listing listing = listings.get(itemRequest.getListingId());
 
             // Créer l'item de commande
             OrderItem orderItem = OrderItem.builder()
@@ -95,13 +159,9 @@ public class OrderService {
             // Calculer le total
             total = total.add(listing.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity())));
 
-            // Réduire le stock
-            listing.setQuantity(listing.getQuantity() - itemRequest.getQuantity());
-            if (listing.getQuantity() == 0) {
-                listing.setActive(false);
-            }
-            listingRepository.save(listing);
+            productIds.add(listing.getProduct().getId());
         }
+        productOfferService.refreshAll(productIds);
 
         order.setItems(items);
         order.setTotal(total);
@@ -111,22 +171,67 @@ public class OrderService {
             order.setStatus("PAID");
         }
         
+        // Identifiants pris dans la séquence (pooled-lo) : les lignes partent en un lot JDBC à la validation
         order = orderRepository.save(order);
 
-        // Vider le panier après la commande
-        cartItemRepository.deleteByUserId(buyer.getId());
+        // Effets de bord (emails, vendeurs, analytics) livrés en arrière-plan après validation
+        outboxService.publish(order, OrderEventType.ORDER_CREATED);
+        if ("PAID".equals(order.getStatus())) {
+            outboxService.publish(order, OrderEventType.ORDER_PAID);
+        }
+
+        // Vider le panier après la commande et libérer les réservations de toutes ses lignes :
+        // celles commandées sont converties en stock décrémenté, les autres disparaissent avec le panier
+        cartStore.clearAfterCommit(buyer.getId());
+        stockHoldService.releaseAllAfterCommit(buyer.getId());
 
         return convertToDto(order);
     }
 
     /**
-     * Récupère toutes les commandes d'un utilisateur
+     * Quantité demandée par offre, triée par id d'offre
+     */
+    private static Map<Long, Integer> requestedQuantities(List<OrderItemRequestDto> itemRequests) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItemRequestDto itemRequest : itemRequests) {
+            if (itemRequest.getListingId() == null || itemRequest.getQuantity() == null || itemRequest.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for listing: " + itemRequest.getListingId());
+            }
+            quantities.merge(itemRequest.getListingId(), itemRequest.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    /**
+     * Réserve le stock de chaque offre par un UPDATE conditionnel, sans lire puis réécrire la quantité :
+     * deux commandes simultanées ne peuvent pas vendre le même stock. Les UPDATE partent en un lot JDBC,
+     * par id d'offre croissant pour que deux commandes se partageant des offres verrouillent les lignes
+     * dans le même ordre. Un échec annule toute la transaction, donc les réservations déjà faites.
+     * Le stock tenu par les paniers des autres acheteurs n'est pas vendable.
      */
-    public List<OrderDto> getUserOrders(Long userId) {
-        return orderRepository.findAll().stream()
-                .filter(order -> order.getBuyer().getId().equals(userId))
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+    private void reserveStock(Long buyerId, Map<Long, Integer> quantities) {
+        List<ListingRepositoryCustom.StockDecrement> decrements = quantities.entrySet().stream()
+                .map(e -> new ListingRepositoryCustom.StockDecrement(e.getKey(), e.getValue(),
+                        stockHoldService.heldByOthers(buyerId, e.getKey())))
+                .toList();
+        int[] updated = listingRepository.decrementStock(decrements);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                throw new RuntimeException("Insufficient stock for listing: " + decrements.get(i).listingId());
+            }
+        }
+    }
+
+    /**
+     * Récupère les commandes d'un utilisateur, les plus récentes d'abord
+     */
+    public Slice<OrderDto> getUserOrders(Long userId, Pageable pageable, String count) {
+        Pageable byDate = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+        return pageCountService.paginate("orders", pageCountService.resolve("orders", count), byDate,
+                p -> orderRepository.findByBuyerId(userId, p).map(this::convertToDto),
+                p -> orderRepository.findSliceByBuyerId(userId, p).map(this::convertToDto),
+                pageCountService.cachedCount("orders:buyer=" + userId, () -> orderRepository.countByBuyerId(userId)));
     }
 
     /**
@@ -139,15 +244,27 @@ public class OrderService {
     }
 
     /**
-     * Met à jour le statut d'une commande
+     * Met à jour le statut d'une commande ; le passage à PAID, SHIPPED ou CANCELLED est publié dans la boîte d'envoi
      */
+    @Transactional
     public OrderDto updateOrderStatus(Long orderId, String status) {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
 
+        boolean changed = !status.equals(order.getStatus());
         order.setStatus(status);
         order = orderRepository.save(order);
 
+        OrderEventType event = switch (status) {
+            case "PAID" -> OrderEventType.ORDER_PAID;
+            case "SHIPPED" -> OrderEventType.ORDER_SHIPPED;
+            case "CANCELLED" -> OrderEventType.ORDER_CANCELLED;
+            default -> null;
+        };
+        if (changed && event != null) {
+            outboxService.publish(order, event);
+        }
+
         return convertToDto(order);
     }
 
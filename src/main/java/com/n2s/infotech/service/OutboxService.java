@@ -0,0 +1,102 @@
+package com.n2s.infotech.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.n2s.infotech.dto.OrderEventPayload;
+import com.n2s.infotech.event.OrderEventType;
+import com.n2s.infotech.model.Order;
+import com.n2s.infotech.model.OutboxEvent;
+import com.n2s.infotech.model.SellerProfile;
+import com.n2s.infotech.outbox.OutboxConsumer;
+import com.n2s.infotech.outbox.OutboxDispatcher;
+import com.n2s.infotech.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Écriture des événements de commande dans la boîte d'envoi (outbox).
+ * L'événement est enregistré dans la transaction qui modifie la commande : il n'existe que si la
+ * modification est validée, et survit à un redémarrage jusqu'à sa livraison par OutboxDispatcher.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<OutboxConsumer> consumers;
+    private final OutboxDispatcher outboxDispatcher;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Enregistre l'événement pour chaque consommateur concerné ; les dispatchers sont réveillés à la validation
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(Order order, OrderEventType type) {
+        List<OutboxConsumer> targets = consumers.stream().filter(consumer -> consumer.supports(type)).toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+        String payload = write(toPayload(order));
+        outboxEventRepository.saveAll(targets.stream()
+                .map(consumer -> OutboxEvent.builder()
+                        .consumer(consumer.name())
+                        .eventType(type.name())
+                        .aggregateId(order.getId())
+                        .payload(payload)
+                        .build())
+                .toList());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxDispatcher.wakeUp();
+            }
+        });
+    }
+
+    private OrderEventPayload toPayload(Order order) {
+        return OrderEventPayload.builder()
+                .orderId(order.getId())
+                .buyerId(order.getBuyer().getId())
+                .buyerEmail(order.getBuyer().getEmail())
+                .buyerName(order.getBuyer().getDisplayName())
+                .status(order.getStatus())
+                .total(order.getTotal())
+                .createdAt(order.getCreatedAt())
+                .items(order.getItems().stream().map(item -> {
+                    SellerProfile seller = item.getListing().getSeller();
+                    return OrderEventPayload.Item.builder()
+                            .listingId(item.getListing().getId())
+                            .productTitle(item.getListing().getProduct().getTitle())
+                            .sellerId(seller.getId())
+                            .sellerEmail(sellerEmail(seller))
+                            .shopName(seller.getShopName())
+                            .quantity(item.getQuantity())
+                            .price(item.getPrice())
+                            .build();
+                }).toList())
+                .build();
+    }
+
+    private static String sellerEmail(SellerProfile seller) {
+        if (seller.getContactEmail() != null && !seller.getContactEmail().isBlank()) {
+            return seller.getContactEmail();
+        }
+        return seller.getUser() != null ? seller.getUser().getEmail() : null;
+    }
+
+    private String write(OrderEventPayload payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Impossible de sérialiser l'événement de la commande " + payload.getOrderId(), e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.config.PaginationProperties;
+import com.n2s.infotech.config.PaginationProperties.CountMode;
+import com.n2s.infotech.dto.EstimatedPageDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Évite le count(*) des listes paginées : Slice sans total, ou total estimé
+ * (statistiques du planificateur PostgreSQL, ou total en cache recalculé en tâche de fond)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PageCountService {
+
+    static final int MAX_CACHED_COUNTS = 10_000;
+
+    private final PaginationProperties paginationProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskExecutor applicationTaskExecutor;
+
+    // LRU borné : l'ajout d'une clé au-delà de la limite retire la moins récemment lue
+    private final Map<String, CachedCount> cachedCounts = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedCount> eldest) {
+                    return size() > MAX_CACHED_COUNTS;
+                }
+            });
+    private final Map<String, EndpointStats> endpointStats = new ConcurrentHashMap<>();
+    private final LongAdder plannerEstimates = new LongAdder();
+    private final LongAdder synchronousCounts = new LongAdder();
+    private final LongAdder backgroundCounts = new LongAdder();
+
+    public CountMode resolve(String endpoint, String requested) {
+        return paginationProperties.resolve(endpoint, requested);
+    }
+
+    /**
+     * Exécute une requête paginée selon le mode de comptage
+     *
+     * @param pageQuery requête avec count(*) (mode EXACT)
+     * @param sliceQuery requête sans count, qui lit une ligne de plus pour connaître hasNext
+     * @param estimate total approché, voir {@link #tableEstimate} et {@link #cachedCount}
+     */
+    public <T> Slice<T> paginate(String endpoint, CountMode mode, Pageable pageable,
+                                 Function<Pageable, Page<T>> pageQuery,
+                                 Function<Pageable, Slice<T>> sliceQuery,
+                                 Supplier<Long> estimate) {
+        EndpointStats stats = endpointStats.computeIfAbsent(endpoint, key -> new EndpointStats());
+        if (mode == CountMode.EXACT) {
+            stats.exact.increment();
+            return pageQuery.apply(pageable);
+        }
+        Slice<T> slice = sliceQuery.apply(pageable);
+        stats.avoided.increment();
+        if (mode == CountMode.NONE) {
+            return slice;
+        }
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+        if (!slice.hasNext()) {
+            // Dernière page : le total est connu sans compter
+            return new EstimatedPageDto<>(slice, seen);
+        }
+        stats.estimated.increment();
+        return new EstimatedPageDto<>(slice, Math.max(estimate.get(), seen + 1));
+    }
+
+    /**
+     * Nombre de lignes d'une table d'après les statistiques du planificateur (pg_class.reltuples)
+     */
+    public Supplier<Long> tableEstimate(String table, Supplier<Long> exactCount) {
+        return () -> {
+            Long rows = jdbcTemplate.queryForObject(
+                    "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass(?)", Long.class, table);
+            if (rows != null && rows > 0) {
+                plannerEstimates.increment();
+                return rows;
+            }
+            // Table jamais analysée : on se rabat sur un total en cache
+            return cachedCount(table, exactCount).get();
+        };
+    }
+
+    /**
+     * Total mis en cache par clé de filtre ; une fois expiré il est resservi
+     * pendant son recalcul en tâche de fond
+     */
+    public Supplier<Long> cachedCount(String key, Supplier<Long> exactCount) {
+        return () -> {
+            CachedCount cached = cachedCounts.get(key);
+            if (cached == null) {
+                synchronousCounts.increment();
+                long value = exactCount.get();
+                cachedCounts.put(key, new CachedCount(value, Instant.now()));
+                return value;
+            }
+            boolean expired = cached.computedAt.plus(paginationProperties.getCountCacheTtl()).isBefore(Instant.now());
+            if (expired && cached.refreshing.compareAndSet(false, true)) {
+                applicationTaskExecutor.execute(() -> refresh(key, exactCount, cached));
+            }
+            return cached.value;
+        };
+    }
+
+    /**
+     * Compteurs du travail de comptage évité, par liste
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> endpoints = new TreeMap<>();
+        endpointStats.forEach((endpoint, stats) -> endpoints.put(endpoint, Map.of(
+                "exactCounts", stats.exact.sum(),
+                "countsAvoided", stats.avoided.sum(),
+                "estimatedTotals", stats.estimated.sum()
+        )));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("endpoints", endpoints);
+        result.put("plannerEstimates", plannerEstimates.sum());
+        result.put("cachedCounts", cachedCounts.size());
+        result.put("synchronousCounts", synchronousCounts.sum());
+        result.put("backgroundCounts", backgroundCounts.sum());
+        return result;
+    }
+
+    private void refresh(String key, Supplier<Long> exactCount, CachedCount previous) {
+        try {
+            backgroundCounts.increment();
+            cachedCounts.put(key, new CachedCount(exactCount.get(), Instant.now()));
+        } catch (Exception e) {
+            log.warn("Échec du recalcul du total en cache {}", key, e);
+            previous.refreshing.set(false);
+        }
+    }
+
+    private static final class CachedCount {
+        private final long value;
+        private final Instant computedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CachedCount(long value, Instant computedAt) {
+            this.value = value;
+            this.computedAt = computedAt;
+        }
+    }
+
+    private static final class EndpointStats {
+        private final LongAdder exact = new LongAdder();
+        private final LongAdder avoided = new LongAdder();
+        private final LongAdder estimated = new LongAdder();
+    }
+}
@@ -0,0 +1,17 @@
+package com.n2s.infotech.service;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+
+/**
+ * Accès aux PaymentIntent Stripe utilisé par StripeService ; remplaçable par un bouchon
+ * (stripe.client.stub=true) pour simuler la latence de Stripe
+ */
+public interface PaymentIntentClient {
+
+    PaymentIntent create(PaymentIntentCreateParams params, RequestOptions options) throws StripeException;
+
+    PaymentIntent retrieve(String paymentIntentId, RequestOptions options) throws StripeException;
+}
@@ -1,11 +1,13 @@
 package com.n2s.infotech.service;
 
+import com.n2s.infotech.event.ProductChangedEvent;
 import com.n2s.infotech.model.Product;
 import com.n2s.infotech.model.ProductImage;
 import com.n2s.infotech.repository.ProductImageRepository;
 import com.n2s.infotech.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -27,6 +29,7 @@ public class ProductImageService {
     private final CloudinaryService cloudinaryService;
     private final ProductImageRepository productImageRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Upload une image pour un produit et l'enregistre en base
@@ -50,6 +53,7 @@ public class ProductImageService {
 
         ProductImage saved = productImageRepository.save(productImage);
         log.info("Image du produit {} enregistrée: {}", productId, saved.getId());
+        publishImageChange(productId);
 
         return saved;
     }
@@ -89,6 +93,7 @@ public class ProductImageService {
         }
 
         log.info("{} images uploadées pour le produit {}", productImages.size(), productId);
+        publishImageChange(productId);
         return productImages;
     }
 
@@ -117,6 +122,7 @@ public class ProductImageService {
         // Supprimer de la base de données
         productImageRepository.delete(productImage);
         log.info("Image {} supprimée", imageId);
+        publishImageChange(productImage.getProduct().getId());
     }
 
     /**
@@ -141,6 +147,11 @@ public class ProductImageService {
 
         productImageRepository.deleteAll(images);
         log.info("Toutes les images du produit {} supprimées", productId);
+        publishImageChange(productId);
+    }
+
+    private void publishImageChange(Long productId) {
+        eventPublisher.publishEvent(new ProductChangedEvent(productId, ProductChangedEvent.Source.IMAGE));
     }
 }
 
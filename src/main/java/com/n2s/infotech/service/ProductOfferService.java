@@ -0,0 +1,61 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.event.ProductChangedEvent;
+import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.search.ProductSearchIndex;
+import com.n2s.infotech.search.ProductSuggestIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Maintient la meilleure offre active d'un produit (prix min, nombre d'offres, stock total)
+ * à chaque écriture sur ses listings : création, changement de prix/stock, désactivation, vente
+ */
+@Service
+@RequiredArgsConstructor
+public class ProductOfferService {
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Recalcule l'offre du produit à partir de ses listings ; les index de recherche et le résumé
+     * catalogue sont mis à jour après validation de la transaction
+     */
+    @Transactional
+    public void refresh(Long productId) {
+        refreshAll(List.of(productId));
+    }
+
+    /**
+     * Recalcule les offres de plusieurs produits en deux requêtes (ex: toutes les lignes d'une commande)
+     */
+    @Transactional
+    public void refreshAll(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        productRepository.refreshBestOffers(productIds);
+        List<ProductRepository.OfferSummary> offers = productRepository.findOfferSummaries(productIds);
+        // Les index en mémoire ne reprennent les offres qu'une fois validées : un rollback les laisse intacts
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (ProductRepository.OfferSummary offer : offers) {
+                    productSearchIndex.updateBestPrice(offer.getId(), offer.getBestPrice());
+                    productSuggestIndex.updatePopularity(offer.getId(), offer.getActiveListingCount());
+                }
+            }
+        });
+        eventPublisher.publishEvent(new ProductChangedEvent(List.copyOf(productIds), ProductChangedEvent.Source.LISTING));
+    }
+}
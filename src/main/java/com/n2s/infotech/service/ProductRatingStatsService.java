@@ -0,0 +1,223 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.dto.ReviewStatsDto;
+import com.n2s.infotech.repository.ProductRatingStatsRepository;
+import com.n2s.infotech.repository.ProductSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Maintient la table product_rating_stats : compteurs par note incrémentés dans la transaction
+ * de chaque création ou suppression d'avis, et recalcul complet depuis reviews en un seul GROUP BY
+ * pour initialiser la table et corriger un éventuel écart.
+ * <p>
+ * Les lectures passent par un cache des distributions (int[5] par produit), dont l'entrée d'un
+ * produit est retirée à la validation de chaque écriture d'avis le concernant.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductRatingStatsService {
+
+    private static final int MAX_CACHED_PRODUCTS = 100_000;
+    private static final int MAX_BATCH_SIZE = 100;
+
+    // Les écritures d'avis sont bloquées le temps du recalcul : aucun incrément ne peut être écrasé
+    private static final String LOCK_SQL = "LOCK TABLE product_rating_stats IN SHARE ROW EXCLUSIVE MODE";
+    // Seules les lignes absentes ou différentes du recalcul sont écrites, et renvoyées
+    private static final String REBUILD_SQL = "INSERT INTO product_rating_stats (product_id, count_1, count_2, " +
+            "count_3, count_4, count_5, review_count, rating_sum, average_rating) " +
+            "SELECT product_id, COUNT(*) FILTER (WHERE rating = 1), COUNT(*) FILTER (WHERE rating = 2), " +
+            "COUNT(*) FILTER (WHERE rating = 3), COUNT(*) FILTER (WHERE rating = 4), COUNT(*) FILTER (WHERE rating = 5), " +
+            "COUNT(*), SUM(rating), ROUND(AVG(rating), 2) FROM reviews GROUP BY product_id " +
+            "ON CONFLICT (product_id) DO UPDATE SET count_1 = EXCLUDED.count_1, count_2 = EXCLUDED.count_2, " +
+            "count_3 = EXCLUDED.count_3, count_4 = EXCLUDED.count_4, count_5 = EXCLUDED.count_5, " +
+            "review_count = EXCLUDED.review_count, rating_sum = EXCLUDED.rating_sum, average_rating = EXCLUDED.average_rating " +
+            "WHERE (product_rating_stats.count_1, product_rating_stats.count_2, product_rating_stats.count_3, " +
+            "product_rating_stats.count_4, product_rating_stats.count_5, product_rating_stats.review_count, " +
+            "product_rating_stats.rating_sum, product_rating_stats.average_rating) IS DISTINCT FROM " +
+            "(EXCLUDED.count_1, EXCLUDED.count_2, EXCLUDED.count_3, EXCLUDED.count_4, EXCLUDED.count_5, " +
+            "EXCLUDED.review_count, EXCLUDED.rating_sum, EXCLUDED.average_rating) " +
+            "RETURNING product_id";
+    private static final String DELETE_STALE_SQL = "DELETE FROM product_rating_stats s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM reviews r WHERE r.product_id = s.product_id) " +
+            "AND s.review_count <> 0 RETURNING product_id";
+
+    private final ProductRatingStatsRepository productRatingStatsRepository;
+    private final ProductSummaryRepository productSummaryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Nombre d'avis par note (index 0 = 1 étoile), par produit
+    private final Map<Long, int[]> histograms = new ConcurrentHashMap<>();
+    // Incrémenté à chaque retrait : une lecture commencée avant un retrait ne remplit pas le cache
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Compte un avis ajouté (delta = 1) ou supprimé (delta = -1), dans la transaction de l'écriture de l'avis
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(Long productId, int rating, int delta) {
+        productRatingStatsRepository.applyDelta(productId, rating, delta);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(productId);
+            }
+        });
+    }
+
+    /**
+     * Statistiques d'avis d'un produit, lues sur la clé primaire
+     */
+    public ReviewStatsDto getStats(Long productId) {
+        return getStats(List.of(productId)).get(productId);
+    }
+
+    /**
+     * Statistiques d'avis de plusieurs produits, dans l'ordre demandé : celles absentes du cache
+     * sont lues en une requête sur la clé primaire
+     *
+     * @throws IllegalArgumentException au-delà de MAX_BATCH_SIZE produits
+     */
+    public Map<Long, ReviewStatsDto> getStats(Collection<Long> productIds) {
+        Set<Long> ids = new LinkedHashSet<>(productIds);
+        ids.remove(null);
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Too many products (max " + MAX_BATCH_SIZE + ")");
+        }
+        Map<Long, int[]> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            int[] histogram = histograms.get(id);
+            if (histogram != null) {
+                found.put(id, histogram);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            found.putAll(load(missing));
+        }
+        Map<Long, ReviewStatsDto> result = new LinkedHashMap<>();
+        ids.forEach(id -> result.put(id, toDto(found.get(id))));
+        return result;
+    }
+
+    /**
+     * Lit les distributions des produits donnés (zéros pour un produit sans avis) et les met en cache,
+     * sauf si une écriture d'avis a été validée pendant la lecture
+     */
+    private Map<Long, int[]> load(List<Long> productIds) {
+        long generation = evictions.get();
+        Map<Long, int[]> loaded = new HashMap<>();
+        productIds.forEach(id -> loaded.put(id, new int[5]));
+        productRatingStatsRepository.findAllById(productIds)
+                .forEach(stats -> loaded.put(stats.getProductId(), stats.histogram()));
+        if (evictions.get() != generation) {
+            return loaded;
+        }
+        if (histograms.size() + loaded.size() > MAX_CACHED_PRODUCTS) {
+            histograms.clear();
+        }
+        histograms.putAll(loaded);
+        // Un retrait passé entre la vérification et putAll a pu précéder nos entrées : on les reprend.
+        // Un retrait qui ne se voit pas ici vient après putAll et retire lui-même l'entrée.
+        if (evictions.get() != generation) {
+            loaded.forEach(histograms::remove);
+        }
+        return loaded;
+    }
+
+    /**
+     * Retire l'entrée d'un produit ; la génération est incrémentée avant le retrait, ce qui permet à load()
+     * de détecter tout retrait concurrent de son remplissage
+     */
+    private void evict(Long productId) {
+        evictions.incrementAndGet();
+        histograms.remove(productId);
+    }
+
+    /**
+     * Vérifie la table au démarrage, avant la construction de product_summary qui en lit les moyennes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void warmUp() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Échec de la vérification de product_rating_stats", e);
+        }
+    }
+
+    /**
+     * Recalcule les compteurs de tous les produits depuis reviews et corrige les lignes qui diffèrent ;
+     * les résumés du catalogue des produits corrigés sont recalculés dans la même transaction
+     */
+    public Map<String, Object> rebuild() {
+        long start = System.currentTimeMillis();
+        Map<String, Object> result = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(LOCK_SQL);
+            List<Long> corrected = jdbcTemplate.queryForList(REBUILD_SQL, Long.class);
+            List<Long> deleted = jdbcTemplate.queryForList(DELETE_STALE_SQL, Long.class);
+            Set<Long> productIds = new LinkedHashSet<>(corrected);
+            productIds.addAll(deleted);
+            if (!productIds.isEmpty()) {
+                productSummaryRepository.refresh(productIds);
+            }
+            Map<String, Object> counts = new LinkedHashMap<>();
+            counts.put("corrected", corrected.size());
+            counts.put("deleted", deleted.size());
+            return counts;
+        });
+        evictions.incrementAndGet();
+        histograms.clear();
+        result.put("durationMs", System.currentTimeMillis() - start);
+        if ((int) result.get("corrected") > 0 || (int) result.get("deleted") > 0) {
+            log.warn("product_rating_stats corrigée: {}", result);
+        } else {
+            log.info("product_rating_stats vérifiée: {}", result);
+        }
+        return result;
+    }
+
+    /**
+     * Moyenne, total et distribution à partir du nombre d'avis par note
+     */
+    private static ReviewStatsDto toDto(int[] histogram) {
+        Map<Integer, Long> ratingCounts = new LinkedHashMap<>();
+        long total = 0;
+        long sum = 0;
+        for (int rating = 1; rating <= histogram.length; rating++) {
+            int count = histogram[rating - 1];
+            ratingCounts.put(rating, (long) count);
+            total += count;
+            sum += (long) rating * count;
+        }
+        double average = total > 0 ? Math.round(sum * 100.0 / total) / 100.0 : 0.0;
+        return new ReviewStatsDto(average, total, ratingCounts);
+    }
+}
@@ -1,13 +1,26 @@
 package com.n2s.infotech.service;
 
+import com.n2s.infotech.dto.CursorPageDto;
+import com.n2s.infotech.dto.ProductCardDto;
 import com.n2s.infotech.dto.ProductDto;
+import com.n2s.infotech.dto.SuggestionDto;
 import com.n2s.infotech.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
 
 public interface ProductService {
     Page<ProductDto> listProducts(Pageable pageable, String search);
+    Slice<ProductDto> filterProducts(Pageable pageable, String search, Long categoryId, String brand, String condition, Double minPrice, Double maxPrice, boolean facets, String count);
+    CursorPageDto<ProductDto> scrollProducts(String cursor, int size, Sort sort, String search, Long categoryId, String brand, String condition, Double minPrice, Double maxPrice);
+    List<SuggestionDto> suggest(String query, int limit);
+    Slice<ProductCardDto> catalog(Pageable pageable, Long categoryId, String count);
+    List<String> getBrands();
+    List<String> getConditions();
+    Page<ProductDto> searchProducts(String query, Pageable pageable);
     ProductDto getProduct(Long id);
     ProductDto convertToDto(Product product);
 }
-
@@ -0,0 +1,106 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.event.ProductChangedEvent;
+import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.repository.ProductSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Maintient la table product_summary (grille du catalogue) : recalcul de la ligne d'un produit
+ * après chaque écriture qui la concerne, et reconstruction complète par tranches parallèles
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSummaryService {
+
+    private static final long REBUILD_CHUNK_SIZE = 1_000;
+
+    private final ProductSummaryRepository productSummaryRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor applicationTaskExecutor;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * Recalcule les résumés une fois l'écriture validée (immédiatement si elle a eu lieu hors transaction),
+     * en une requête et une transaction quel que soit le nombre de produits
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onProductChanged(ProductChangedEvent event) {
+        productSummaryRepository.refresh(event.productIds());
+        if (event.source() == ProductChangedEvent.Source.PRODUCT) {
+            // Produit supprimé : sa ligne n'est plus produite par le recalcul
+            productSummaryRepository.deleteOrphans();
+        }
+    }
+
+    /**
+     * Construit la table au démarrage si des produits n'ont pas encore de résumé (ex: insérés par data.sql)
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (productSummaryRepository.count() < productRepository.count()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("Échec de la construction de product_summary", e);
+        }
+    }
+
+    /**
+     * Recalcule tous les résumés depuis les tables sources, par tranches d'identifiants traitées
+     * en parallèle, chacune dans sa propre transaction
+     */
+    public Map<String, Object> rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            throw new IllegalStateException("Reconstruction de product_summary déjà en cours");
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long minId = productSummaryRepository.findMinProductId();
+            long maxId = productSummaryRepository.findMaxProductId();
+            List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += REBUILD_CHUNK_SIZE) {
+                long fromId = from;
+                long toId = Math.min(from + REBUILD_CHUNK_SIZE - 1, maxId);
+                chunks.add(CompletableFuture.supplyAsync(
+                        () -> transactionTemplate.execute(status -> productSummaryRepository.refreshRange(fromId, toId)),
+                        applicationTaskExecutor));
+            }
+            int rows = chunks.stream().mapToInt(CompletableFuture::join).sum();
+            Integer orphans = transactionTemplate.execute(status -> productSummaryRepository.deleteOrphans());
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("chunks", chunks.size());
+            result.put("rows", rows);
+            result.put("orphansDeleted", orphans);
+            result.put("durationMs", System.currentTimeMillis() - start);
+            log.info("product_summary reconstruite: {}", result);
+            return result;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+}
@@ -1,17 +1,28 @@
 package com.n2s.infotech.service;
 
+import com.n2s.infotech.dto.CursorPageDto;
 import com.n2s.infotech.dto.ReviewDto;
 import com.n2s.infotech.dto.ReviewStatsDto;
+import com.n2s.infotech.event.ProductChangedEvent;
 import com.n2s.infotech.model.Product;
 import com.n2s.infotech.model.Review;
 import com.n2s.infotech.model.User;
 import com.n2s.infotech.repository.ProductRepository;
 import com.n2s.infotech.repository.ReviewRepository;
 import com.n2s.infotech.repository.UserRepository;
+import com.n2s.infotech.util.ScrollCursor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service pour gérer les avis produits
@@ -20,42 +31,55 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class ReviewService {
 
+    // Clés de tri acceptées en pagination par curseur (API -> entité)
+    private static final Map<String, String> SCROLL_SORT_KEYS = Map.of("id", "id", "rating", "rating");
+
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final PageCountService pageCountService;
+    private final ProductRatingStatsService productRatingStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Récupère tous les avis d'un produit
      */
-    public Page<ReviewDto> getProductReviews(Long productId, Pageable pageable) {
-        return reviewRepository.findByProductId(productId, pageable)
-                .map(this::convertToDto);
+    public Slice<ReviewDto> getProductReviews(Long productId, Pageable pageable, String count) {
+        return pageCountService.paginate("reviews", pageCountService.resolve("reviews", count), pageable,
+                p -> reviewRepository.findByProductId(productId, p).map(this::convertToDto),
+                p -> reviewRepository.findSliceByProductId(productId, p).map(this::convertToDto),
+                pageCountService.cachedCount("reviews:product=" + productId,
+                        () -> reviewRepository.countByProductId(productId)));
+    }
+
+    /**
+     * Récupère les avis d'un produit par curseur, les plus récents d'abord par défaut
+     */
+    public CursorPageDto<ReviewDto> scrollProductReviews(Long productId, String cursor, int size, Sort sort) {
+        Sort scrollSort = ScrollCursor.sort(sort, SCROLL_SORT_KEYS, Sort.Direction.DESC);
+        Window<Review> window = reviewRepository.findByProductId(
+                productId, ScrollCursor.decode(cursor, scrollSort), scrollSort, ScrollCursor.limit(size));
+        return CursorPageDto.of(window, this::convertToDto);
     }
 
     /**
-     * Récupère les statistiques d'avis d'un produit
+     * Récupère les statistiques d'avis d'un produit (une lecture de product_rating_stats)
      */
     public ReviewStatsDto getProductReviewStats(Long productId) {
-        Double avgRating = reviewRepository.getAverageRatingByProductId(productId);
-        Long totalReviews = reviewRepository.countByProductId(productId);
-        
-        // Calculer la distribution des notes (1-5 étoiles)
-        java.util.Map<Integer, Long> ratingCounts = new java.util.HashMap<>();
-        for (int i = 1; i <= 5; i++) {
-            Long count = reviewRepository.countByProductIdAndRating(productId, i);
-            ratingCounts.put(i, count != null ? count : 0L);
-        }
-        
-        return new ReviewStatsDto(
-                avgRating != null ? avgRating : 0.0,
-                totalReviews,
-                ratingCounts
-        );
+        return productRatingStatsService.getStats(productId);
+    }
+
+    /**
+     * Récupère les statistiques d'avis de plusieurs produits (grilles du catalogue), en une requête au plus
+     */
+    public Map<Long, ReviewStatsDto> getProductsReviewStats(List<Long> productIds) {
+        return productRatingStatsService.getStats(productIds);
     }
 
     /**
-     * Crée un nouvel avis
+     * Crée un nouvel avis et le compte dans les statistiques du produit, dans la même transaction
      */
+    @Transactional
     public ReviewDto createReview(ReviewDto dto) {
         User user = userRepository.findById(dto.getUserId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -76,12 +100,16 @@ public class ReviewService {
                 .verified(false) // Sera vérifié après achat
                 .build();
 
-        return convertToDto(reviewRepository.save(review));
+        Review saved = reviewRepository.save(review);
+        productRatingStatsService.apply(product.getId(), saved.getRating(), 1);
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId(), ProductChangedEvent.Source.REVIEW));
+        return convertToDto(saved);
     }
 
     /**
-     * Supprime un avis
+     * Supprime un avis et le retire des statistiques du produit, dans la même transaction
      */
+    @Transactional
     public void deleteReview(Long reviewId, Long userId) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
@@ -92,6 +120,8 @@ public class ReviewService {
         }
 
         reviewRepository.delete(review);
+        productRatingStatsService.apply(review.getProduct().getId(), review.getRating(), -1);
+        eventPublisher.publishEvent(new ProductChangedEvent(review.getProduct().getId(), ProductChangedEvent.Source.REVIEW));
     }
 
     /**
@@ -3,14 +3,18 @@ package com.n2s.infotech.service;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.n2s.infotech.dto.CreateDigitalPassportRequest;
+import com.n2s.infotech.event.ProductChangedEvent;
 import com.n2s.infotech.model.Category;
 import com.n2s.infotech.model.Product;
 import com.n2s.infotech.model.ProductImage;
 import com.n2s.infotech.repository.CategoryRepository;
 import com.n2s.infotech.repository.ProductImageRepository;
 import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.search.ProductSearchIndex;
+import com.n2s.infotech.search.ProductSuggestIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +33,10 @@ public class SeedService {
     private final ProductImageRepository productImageRepository;
     private final CloudinaryService cloudinaryService;
     private final DigitalPassportService digitalPassportService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
@@ -66,6 +74,7 @@ public class SeedService {
                     cat.setName(categoryName);
                     cat.setDescription(categoryName + " category");
                     categoryRepository.save(cat);
+                    categoryTreeCache.invalidate();
                     result.put("categoriesCreated", result.get("categoriesCreated") + 1);
                 }
 
@@ -87,6 +96,8 @@ public class SeedService {
                             .category(cat)
                             .build();
                     productRepository.save(p);
+                    productSearchIndex.index(p);
+                    productSuggestIndex.index(p);
                     result.put("productsCreated", result.get("productsCreated") + 1);
                 }
 
@@ -112,6 +123,7 @@ public class SeedService {
                             log.warn("Failed to upload image {}: {}", url, e.getMessage());
                         }
                     }
+                    eventPublisher.publishEvent(new ProductChangedEvent(p.getId(), ProductChangedEvent.Source.IMAGE));
                 }
 
                 Map<String, Object> passportMap = (Map<String, Object>) item.get("passport");
@@ -0,0 +1,248 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.config.StockHoldProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Réservations temporaires de stock des paniers.
+ * <p>
+ * Ajouter une offre au panier réserve la quantité pour une durée limitée, prolongée à chaque activité
+ * sur le panier ; un expirateur libère par lots les réservations échues. Le total réservé par offre est
+ * tenu en mémoire, donc le stock disponible (quantité - réservations) se calcule sans requête.
+ * Les réservations sont recopiées en différé dans stock_holds et rechargées au démarrage.
+ * L'état étant local à l'instance, l'application suppose une seule instance.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockHoldService {
+
+    private static final String UPSERT_SQL = "INSERT INTO stock_holds (id, user_id, listing_id, quantity, expires_at) " +
+            "VALUES (nextval('stock_holds_id_seq'), ?, ?, ?, ?) ON CONFLICT (user_id, listing_id) " +
+            "DO UPDATE SET quantity = EXCLUDED.quantity, expires_at = EXCLUDED.expires_at";
+    private static final String DELETE_SQL = "DELETE FROM stock_holds WHERE user_id = ? AND listing_id = ?";
+
+    private final StockHoldProperties stockHoldProperties;
+    private final JdbcTemplate jdbcTemplate;
+
+    // Total réservé par offre : toute modification d'une réservation passe par compute() sur son offre
+    private final Map<Long, Integer> heldByListing = new ConcurrentHashMap<>();
+    private final Map<HoldKey, Hold> holds = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> listingsByUser = new ConcurrentHashMap<>();
+    // Réservations modifiées depuis la dernière écriture en base
+    private final Set<HoldKey> dirty = ConcurrentHashMap.newKeySet();
+
+    private record HoldKey(Long userId, Long listingId) {
+    }
+
+    private record Hold(int quantity, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !expiresAt.isAfter(now);
+        }
+    }
+
+    /**
+     * Recharge les réservations encore valides après un redémarrage
+     */
+    @PostConstruct
+    public void recover() {
+        try {
+            jdbcTemplate.update("DELETE FROM stock_holds WHERE expires_at <= now()");
+            jdbcTemplate.query("SELECT user_id, listing_id, quantity, expires_at FROM stock_holds", rs -> {
+                HoldKey key = new HoldKey(rs.getLong("user_id"), rs.getLong("listing_id"));
+                Hold hold = new Hold(rs.getInt("quantity"), rs.getTimestamp("expires_at").toInstant());
+                holds.put(key, hold);
+                heldByListing.merge(key.listingId(), hold.quantity(), Integer::sum);
+                listingsByUser.computeIfAbsent(key.userId(), id -> ConcurrentHashMap.newKeySet()).add(key.listingId());
+            });
+            log.info("{} réservations de stock rechargées", holds.size());
+        } catch (DataAccessException e) {
+            log.error("Impossible de recharger les réservations de stock", e);
+        }
+    }
+
+    /**
+     * Stock disponible d'une offre : quantité en base moins les réservations en cours
+     */
+    public int available(Long listingId, int stock) {
+        return stock - heldByListing.getOrDefault(listingId, 0);
+    }
+
+    /**
+     * Quantité réservée sur une offre par les autres paniers que celui de l'utilisateur
+     */
+    public int heldByOthers(Long userId, Long listingId) {
+        Hold own = holds.get(new HoldKey(userId, listingId));
+        return heldByListing.getOrDefault(listingId, 0) - (own != null ? own.quantity() : 0);
+    }
+
+    /**
+     * Fixe la réservation de l'utilisateur sur une offre à la quantité demandée
+     *
+     * @param stock quantité de l'offre en base
+     * @throws RuntimeException si le stock non réservé par les autres paniers est insuffisant
+     */
+    public void hold(Long userId, Long listingId, int quantity, int stock) {
+        HoldKey key = new HoldKey(userId, listingId);
+        Instant expiresAt = Instant.now().plus(stockHoldProperties.getTtl());
+        heldByListing.compute(listingId, (id, total) -> {
+            int held = total != null ? total : 0;
+            Hold current = holds.get(key);
+            int others = held - (current != null ? current.quantity() : 0);
+            if (stock - others < quantity) {
+                throw new RuntimeException("Insufficient stock");
+            }
+            holds.put(key, new Hold(quantity, expiresAt));
+            dirty.add(key);
+            return others + quantity;
+        });
+        listingsByUser.compute(userId, (id, listings) -> {
+            Set<Long> result = listings != null ? listings : ConcurrentHashMap.<Long>newKeySet();
+            result.add(listingId);
+            return result;
+        });
+    }
+
+    /**
+     * Prolonge les réservations de l'utilisateur (activité sur le panier)
+     */
+    public void extend(Long userId) {
+        Set<Long> listings = listingsByUser.get(userId);
+        if (listings == null) {
+            return;
+        }
+        Instant expiresAt = Instant.now().plus(stockHoldProperties.getTtl());
+        for (Long listingId : listings) {
+            HoldKey key = new HoldKey(userId, listingId);
+            if (holds.computeIfPresent(key, (k, hold) -> new Hold(hold.quantity(), expiresAt)) != null) {
+                dirty.add(key);
+            }
+        }
+    }
+
+    public void release(Long userId, Long listingId) {
+        release(new HoldKey(userId, listingId), null);
+    }
+
+    public void releaseAll(Long userId) {
+        Set<Long> listings = listingsByUser.get(userId);
+        if (listings != null) {
+            List.copyOf(listings).forEach(listingId -> release(userId, listingId));
+        }
+    }
+
+    /**
+     * Libère toutes les réservations de l'utilisateur une fois la transaction courante validée, avec le
+     * panier qui est vidé (le stock commandé a alors été décrémenté) ; en cas d'annulation elles restent en place
+     */
+    public void releaseAllAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseAll(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseAll(userId);
+            }
+        });
+    }
+
+    /**
+     * Libère par lots les réservations échues
+     */
+    @Scheduled(fixedDelayString = "#{@stockHoldProperties.expireInterval.toMillis()}")
+    public void expire() {
+        Instant now = Instant.now();
+        int released = 0;
+        for (Map.Entry<HoldKey, Hold> entry : holds.entrySet()) {
+            if (released >= stockHoldProperties.getExpireBatchSize()) {
+                break;
+            }
+            if (entry.getValue().isExpired(now) && release(entry.getKey(), now)) {
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.debug("{} réservations de stock expirées libérées", released);
+        }
+    }
+
+    /**
+     * Écrit en base, par lots, les réservations modifiées depuis le dernier passage
+     */
+    @Scheduled(fixedDelayString = "#{@stockHoldProperties.flushInterval.toMillis()}")
+    @PreDestroy
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<HoldKey> keys = new ArrayList<>();
+        for (Iterator<HoldKey> it = dirty.iterator(); it.hasNext(); ) {
+            keys.add(it.next());
+            it.remove();
+        }
+        // État lu après le retrait de dirty : une modification concurrente sera écrite au passage suivant
+        List<Object[]> upserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        for (HoldKey key : keys) {
+            Hold hold = holds.get(key);
+            if (hold != null) {
+                upserts.add(new Object[]{key.userId(), key.listingId(), hold.quantity(), Timestamp.from(hold.expiresAt())});
+            } else {
+                deletes.add(new Object[]{key.userId(), key.listingId()});
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, upserts);
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+        } catch (DataAccessException e) {
+            dirty.addAll(keys);
+            log.warn("Écriture des réservations de stock reportée: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Retire une réservation ; si expiredAt est fourni, seulement si elle est encore échue à cette date
+     * (elle a pu être prolongée entre-temps)
+     */
+    private boolean release(HoldKey key, Instant expiredAt) {
+        boolean[] released = {false};
+        heldByListing.computeIfPresent(key.listingId(), (id, total) -> {
+            Hold hold = holds.get(key);
+            if (hold == null || (expiredAt != null && !hold.isExpired(expiredAt))) {
+                return total;
+            }
+            holds.remove(key);
+            dirty.add(key);
+            released[0] = true;
+            int remaining = total - hold.quantity();
+            return remaining > 0 ? remaining : null;
+        });
+        listingsByUser.computeIfPresent(key.userId(), (id, listings) -> {
+            if (!holds.containsKey(key)) {
+                listings.remove(key.listingId());
+            }
+            return listings.isEmpty() ? null : listings;
+        });
+        return released[0];
+    }
+}
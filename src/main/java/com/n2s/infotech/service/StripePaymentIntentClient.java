@@ -0,0 +1,23 @@
+package com.n2s.infotech.service;
+
+import com.stripe.exception.StripeException;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(prefix = "stripe.client", name = "stub", havingValue = "false", matchIfMissing = true)
+public class StripePaymentIntentClient implements PaymentIntentClient {
+
+    @Override
+    public PaymentIntent create(PaymentIntentCreateParams params, RequestOptions options) throws StripeException {
+        return PaymentIntent.create(params, options);
+    }
+
+    @Override
+    public PaymentIntent retrieve(String paymentIntentId, RequestOptions options) throws StripeException {
+        return PaymentIntent.retrieve(paymentIntentId, options);
+    }
+}
@@ -1,31 +1,64 @@
 package com.n2s.infotech.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.n2s.infotech.config.StripeClientProperties;
 import com.stripe.Stripe;
+import com.stripe.exception.ApiConnectionException;
+import com.stripe.exception.ApiException;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
 import com.stripe.param.PaymentIntentCreateParams;
 import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
+/**
+ * Appels à Stripe, chacun borné par un délai d'attente et protégé par un disjoncteur : quand Stripe
+ * ne répond plus, les appels échouent aussitôt au lieu de bloquer les threads de requête.
+ */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class StripeService {
     
     @Value("${stripe.secret.key}")
     private String secretKey;
+
+    private final IdempotencyService idempotencyService;
+    private final PaymentIntentClient paymentIntentClient;
+    private final StripeClientProperties stripeClientProperties;
+
+    private CircuitBreaker circuitBreaker;
     
     @PostConstruct
     public void init() {
         Stripe.apiKey = secretKey;
+        // Seuls le réseau, les délais dépassés et les erreurs serveur de Stripe comptent comme des pannes
+        circuitBreaker = new CircuitBreaker("Stripe", stripeClientProperties.getFailureThreshold(),
+                stripeClientProperties.getOpenDuration(),
+                e -> e instanceof ApiConnectionException || e instanceof ApiException);
         log.info("Stripe initialisé avec la clé: {}...", secretKey.substring(0, Math.min(20, secretKey.length())));
     }
     
-    public Map<String, String> createPaymentIntent(Long amount) throws StripeException {
+    /**
+     * Crée un PaymentIntent une seule fois par clé d'idempotence et par utilisateur ; la clé est aussi
+     * transmise à Stripe, qui renvoie le même PaymentIntent si l'appel lui-même est rejoué
+     */
+    public Map<String, String> createPaymentIntent(Long amount, String owner, String idempotencyKey) throws StripeException {
+        String scope = "payment-intent:" + owner;
+        return idempotencyService.execute(scope, idempotencyKey, amount, new TypeReference<Map<String, String>>() {
+        }, () -> createPaymentIntent(amount, stripeIdempotencyKey(scope, idempotencyKey)));
+    }
+
+    private Map<String, String> createPaymentIntent(Long amount, String stripeIdempotencyKey) throws StripeException {
         PaymentIntentCreateParams params = PaymentIntentCreateParams.builder()
                 .setAmount(amount) // Montant en centimes (ex: 5000 = 50€)
                 .setCurrency("eur")
@@ -36,7 +69,8 @@ public class StripeService {
                 )
                 .build();
         
-        PaymentIntent paymentIntent = PaymentIntent.create(params);
+        PaymentIntent paymentIntent = circuitBreaker.call(
+                () -> paymentIntentClient.create(params, requestOptions(stripeIdempotencyKey)));
         
         Map<String, String> response = new HashMap<>();
         response.put("clientSecret", paymentIntent.getClientSecret());
@@ -47,17 +81,56 @@ public class StripeService {
         return response;
     }
     
+    /**
+     * Clé transmise à Stripe, propre à l'utilisateur (les clés Stripe sont partagées par tout le compte)
+     */
+    private String stripeIdempotencyKey(String scope, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return null;
+        }
+        return UUID.nameUUIDFromBytes((scope + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+    
+    private RequestOptions requestOptions(String stripeIdempotencyKey) {
+        RequestOptions.RequestOptionsBuilder builder = RequestOptions.builder()
+                .setConnectTimeout((int) stripeClientProperties.getConnectTimeout().toMillis())
+                .setReadTimeout((int) stripeClientProperties.getReadTimeout().toMillis())
+                .setMaxNetworkRetries(stripeClientProperties.getMaxNetworkRetries());
+        if (stripeIdempotencyKey != null) {
+            builder.setIdempotencyKey(stripeIdempotencyKey);
+        }
+        return builder.build();
+    }
+    
     public PaymentIntent retrievePaymentIntent(String paymentIntentId) throws StripeException {
-        return PaymentIntent.retrieve(paymentIntentId);
+        return circuitBreaker.call(() -> paymentIntentClient.retrieve(paymentIntentId, requestOptions(null)));
     }
     
+    /**
+     * Indique si le paiement a réussi. À appeler hors transaction : l'appel à Stripe peut durer jusqu'au
+     * délai d'attente.
+     *
+     * @throws RuntimeException si Stripe est injoignable ou le circuit ouvert : le paiement n'a pas pu être vérifié
+     */
     public boolean verifyPaymentSuccess(String paymentIntentId) {
+        return "succeeded".equals(getPaymentStatus(paymentIntentId));
+    }
+
+    /**
+     * Statut du PaymentIntent (succeeded, processing, requires_action...), null si Stripe le refuse
+     * (id inconnu par exemple). À appeler hors transaction, comme verifyPaymentSuccess.
+     *
+     * @throws RuntimeException si Stripe est injoignable ou le circuit ouvert : le paiement n'a pas pu être vérifié
+     */
+    public String getPaymentStatus(String paymentIntentId) {
         try {
-            PaymentIntent paymentIntent = PaymentIntent.retrieve(paymentIntentId);
-            return "succeeded".equals(paymentIntent.getStatus());
+            return retrievePaymentIntent(paymentIntentId).getStatus();
+        } catch (ApiConnectionException | ApiException e) {
+            log.error("Stripe injoignable lors de la vérification du paiement: {}", e.getMessage());
+            throw new RuntimeException("Vérification du paiement impossible, réessayez plus tard", e);
         } catch (StripeException e) {
             log.error("Erreur lors de la vérification du paiement: {}", e.getMessage());
-            return false;
+            return null;
         }
     }
 }
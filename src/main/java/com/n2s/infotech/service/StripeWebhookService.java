@@ -0,0 +1,295 @@
+package com.n2s.infotech.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.n2s.infotech.config.StripeWebhookProperties;
+import com.n2s.infotech.event.OrderEventType;
+import com.n2s.infotech.repository.OrderRepository;
+import com.stripe.exception.SignatureVerificationException;
+import com.stripe.model.Event;
+import com.stripe.net.Webhook;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Réception des événements du webhook Stripe et mise à jour du paiement des commandes.
+ * <p>
+ * La réception ne fait que vérifier la signature, écarter les doublons (ids récents en mémoire, puis
+ * clé primaire de stripe_events) et enregistrer l'événement : Stripe reçoit sa réponse en quelques
+ * millisecondes. Les événements enregistrés sont ensuite appliqués par lots, en quelques UPDATE
+ * sur orders par lot ; les commandes qui passent à PAID sont publiées dans la boîte d'envoi. Une commande
+ * encore CREATED dont le paiement échoue ou est annulé passe à CANCELLED : son stock est rendu aux offres
+ * et l'annulation est publiée dans la boîte d'envoi.
+ * <p>
+ * Un événement peut arriver avant la commande de son PaymentIntent (paiement en cours au moment de la
+ * commande, ou commande pas encore validée) : il reste alors PENDING et est repris tous les retryInterval,
+ * jusqu'à retryHorizon après sa réception.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StripeWebhookService {
+
+    private static final String SUCCEEDED = "succeeded";
+    private static final String FAILED = "failed";
+
+    // Statut de paiement de la commande pour chaque type d'événement traité ; les autres sont ignorés
+    private static final Map<String, String> PAYMENT_STATUSES = Map.of(
+            "payment_intent.succeeded", SUCCEEDED,
+            "payment_intent.payment_failed", FAILED,
+            "payment_intent.canceled", FAILED
+    );
+
+    private static final String INSERT_SQL = "INSERT INTO stripe_events " +
+            "(event_id, type, payment_intent_id, stripe_created_at, received_at, status) VALUES (?, ?, ?, ?, ?, 'PENDING') " +
+            "ON CONFLICT (event_id) DO NOTHING";
+    private static final String CLAIM_SQL = "UPDATE stripe_events SET status = 'PROCESSED', retry_at = NULL " +
+            "WHERE event_id IN (SELECT event_id FROM stripe_events WHERE status = 'PENDING' " +
+            "AND (retry_at IS NULL OR retry_at <= ?) ORDER BY received_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+            "RETURNING event_id, type, payment_intent_id, received_at";
+    private static final String MATCHED_SQL = "SELECT DISTINCT payment_intent_id FROM orders WHERE payment_intent_id = ANY (?)";
+    private static final String RETRY_SQL = "UPDATE stripe_events SET status = 'PENDING', retry_at = ? WHERE event_id = ANY (?)";
+    private static final String PAID_SQL = "UPDATE orders SET payment_status = 'succeeded', status = 'PAID' " +
+            "WHERE payment_intent_id = ANY (?) AND status = 'CREATED' RETURNING id";
+    // Renvoie le statut de chaque commande : une commande déjà annulée reste CANCELLED
+    private static final String SUCCEEDED_SQL = "UPDATE orders SET payment_status = 'succeeded' " +
+            "WHERE payment_intent_id = ANY (?) AND payment_status IS DISTINCT FROM 'succeeded' RETURNING id, status";
+    private static final String CANCEL_SQL = "UPDATE orders SET payment_status = 'failed', status = 'CANCELLED' " +
+            "WHERE payment_intent_id = ANY (?) AND status = 'CREATED' " +
+            "AND payment_status IS DISTINCT FROM 'succeeded' RETURNING id";
+    // Verrouille les offres par id croissant, dans le même ordre que la réservation du stock à la commande
+    private static final String LOCK_LISTINGS_SQL = "SELECT id FROM listings WHERE id IN " +
+            "(SELECT listing_id FROM order_items WHERE order_id = ANY (?)) ORDER BY id FOR UPDATE";
+    // Une offre épuisée par la commande (désactivée au décrément) redevient active
+    private static final String RESTOCK_SQL = "UPDATE listings l SET quantity = l.quantity + r.quantity, " +
+            "active = l.active OR l.quantity = 0 " +
+            "FROM (SELECT listing_id, SUM(quantity) AS quantity FROM order_items WHERE order_id = ANY (?) " +
+            "GROUP BY listing_id) r WHERE l.id = r.listing_id RETURNING l.product_id";
+    // Un paiement réussi ne redevient pas échoué
+    private static final String FAILED_SQL = "UPDATE orders SET payment_status = 'failed' " +
+            "WHERE payment_intent_id = ANY (?) AND payment_status IS DISTINCT FROM 'succeeded'";
+
+    private final StripeWebhookProperties stripeWebhookProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final OrderRepository orderRepository;
+    private final OutboxService outboxService;
+    private final ProductOfferService productOfferService;
+
+    // Ids des derniers événements reçus, les plus anciens étant oubliés au-delà de dedupCacheSize
+    private Set<String> recentEventIds;
+
+    @PostConstruct
+    public void init() {
+        int capacity = stripeWebhookProperties.getDedupCacheSize();
+        recentEventIds = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        }));
+    }
+
+    /**
+     * Vérifie et enregistre un événement reçu du webhook
+     *
+     * @return false si l'événement avait déjà été reçu
+     * @throws SignatureVerificationException si la signature ne correspond pas au secret du webhook
+     */
+    public boolean ingest(String payload, String signature) throws SignatureVerificationException {
+        Event event = Webhook.constructEvent(payload, signature, stripeWebhookProperties.getSecret());
+        if (!recentEventIds.add(event.getId())) {
+            return false;
+        }
+        if (!PAYMENT_STATUSES.containsKey(event.getType())) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update(INSERT_SQL, event.getId(), event.getType(), paymentIntentId(payload),
+                    event.getCreated() != null ? Timestamp.from(Instant.ofEpochSecond(event.getCreated())) : null,
+                    Timestamp.from(Instant.now()));
+        } catch (DataAccessException e) {
+            // Non enregistré : Stripe renverra l'événement
+            recentEventIds.remove(event.getId());
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Applique aux commandes, par lots, les événements en attente
+     */
+    @Scheduled(fixedDelayString = "#{@stripeWebhookProperties.processInterval.toMillis()}")
+    public void process() {
+        try {
+            Integer processed;
+            do {
+                processed = transactionTemplate.execute(status -> processBatch());
+            } while (processed != null && processed == stripeWebhookProperties.getBatchSize());
+        } catch (DataAccessException e) {
+            log.warn("Traitement des événements Stripe reporté: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Supprime les événements traités plus anciens que la durée de conservation
+     */
+    @Scheduled(fixedDelayString = "#{@stripeWebhookProperties.cleanupInterval.toMillis()}")
+    public void cleanup() {
+        try {
+            jdbcTemplate.update("DELETE FROM stripe_events WHERE status = 'PROCESSED' AND received_at < ?",
+                    Timestamp.from(Instant.now().minus(stripeWebhookProperties.getRetention())));
+        } catch (DataAccessException e) {
+            log.warn("Purge des événements Stripe reportée: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Prend un lot d'événements et met à jour les commandes concernées ; un échec annule le lot,
+     * dont les événements restent en attente
+     *
+     * @return nombre d'événements pris
+     */
+    private int processBatch() {
+        Instant now = Instant.now();
+        // Statut final de chaque PaymentIntent du lot : un succès l'emporte sur un échec
+        Map<String, String> statuses = new HashMap<>();
+        // Événements du lot par PaymentIntent, avec leur date de réception
+        Map<String, Map<String, Instant>> events = new HashMap<>();
+        int[] claimed = {0};
+        jdbcTemplate.query(CLAIM_SQL, rs -> {
+            claimed[0]++;
+            String paymentIntentId = rs.getString("payment_intent_id");
+            if (paymentIntentId != null) {
+                statuses.merge(paymentIntentId, PAYMENT_STATUSES.get(rs.getString("type")),
+                        (current, next) -> SUCCEEDED.equals(current) ? current : next);
+                events.computeIfAbsent(paymentIntentId, id -> new HashMap<>())
+                        .put(rs.getString("event_id"), rs.getTimestamp("received_at").toInstant());
+            }
+        }, Timestamp.from(now), stripeWebhookProperties.getBatchSize());
+        if (statuses.isEmpty()) {
+            return claimed[0];
+        }
+        retryUnmatched(events, now);
+
+        List<String> succeeded = paymentIntents(statuses, SUCCEEDED);
+        List<String> failed = paymentIntents(statuses, FAILED);
+        List<Long> paidOrderIds = succeeded.isEmpty() ? List.of()
+                : jdbcTemplate.query(PAID_SQL, ids(succeeded), (rs, rowNum) -> rs.getLong("id"));
+        int updated = paidOrderIds.size();
+        if (!succeeded.isEmpty()) {
+            List<String> orderStatuses = jdbcTemplate.query(SUCCEEDED_SQL, ids(succeeded), (rs, rowNum) -> rs.getString("status"));
+            updated += orderStatuses.size();
+            long paidAfterCancel = orderStatuses.stream().filter("CANCELLED"::equals).count();
+            if (paidAfterCancel > 0) {
+                // Nouvelle tentative réussie sur un PaymentIntent dont l'échec avait annulé la commande et rendu le stock
+                log.warn("{} commandes annulées ont reçu un paiement réussi, à rembourser", paidAfterCancel);
+            }
+        }
+        List<Long> cancelledOrderIds = failed.isEmpty() ? List.of()
+                : jdbcTemplate.query(CANCEL_SQL, ids(failed), (rs, rowNum) -> rs.getLong("id"));
+        updated += cancelledOrderIds.size();
+        if (!failed.isEmpty()) {
+            updated += jdbcTemplate.update(FAILED_SQL, ids(failed));
+        }
+        restock(cancelledOrderIds);
+        orderRepository.findAllById(paidOrderIds).forEach(order -> outboxService.publish(order, OrderEventType.ORDER_PAID));
+        orderRepository.findAllById(cancelledOrderIds).forEach(order -> outboxService.publish(order, OrderEventType.ORDER_CANCELLED));
+        log.debug("{} événements Stripe traités, {} commandes mises à jour", claimed[0], updated);
+        return claimed[0];
+    }
+
+    /**
+     * Rend aux offres le stock réservé par les commandes annulées et recalcule les offres de leurs produits
+     */
+    private void restock(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        PreparedStatementSetter orders = ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", orderIds.toArray()));
+        jdbcTemplate.query(LOCK_LISTINGS_SQL, orders, rs -> {
+        });
+        Set<Long> productIds = new LinkedHashSet<>(jdbcTemplate.query(RESTOCK_SQL, orders,
+                (rs, rowNum) -> rs.getLong("product_id")));
+        productOfferService.refreshAll(productIds);
+    }
+
+    /**
+     * Remet en attente jusqu'à la prochaine reprise les événements dont le PaymentIntent n'a pas de commande ;
+     * ceux reçus depuis plus de retryHorizon restent traités
+     */
+    private void retryUnmatched(Map<String, Map<String, Instant>> events, Instant now) {
+        Set<String> matched = new HashSet<>(jdbcTemplate.query(MATCHED_SQL, ids(events.keySet()),
+                (rs, rowNum) -> rs.getString("payment_intent_id")));
+        Instant horizon = now.minus(stripeWebhookProperties.getRetryHorizon());
+        List<String> retried = new ArrayList<>();
+        int abandoned = 0;
+        for (Map.Entry<String, Map<String, Instant>> entry : events.entrySet()) {
+            if (matched.contains(entry.getKey())) {
+                continue;
+            }
+            for (Map.Entry<String, Instant> event : entry.getValue().entrySet()) {
+                if (event.getValue().isAfter(horizon)) {
+                    retried.add(event.getKey());
+                } else {
+                    abandoned++;
+                }
+            }
+        }
+        if (!retried.isEmpty()) {
+            Timestamp retryAt = Timestamp.from(now.plus(stripeWebhookProperties.getRetryInterval()));
+            jdbcTemplate.update(RETRY_SQL, ps -> {
+                ps.setTimestamp(1, retryAt);
+                ps.setArray(2, ps.getConnection().createArrayOf("text", retried.toArray()));
+            });
+        }
+        if (abandoned > 0) {
+            log.warn("{} événements Stripe sans commande abandonnés après {}", abandoned,
+                    stripeWebhookProperties.getRetryHorizon());
+        }
+    }
+
+    private static List<String> paymentIntents(Map<String, String> statuses, String status) {
+        return statuses.entrySet().stream()
+                .filter(entry -> status.equals(entry.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static PreparedStatementSetter ids(Collection<String> paymentIntentIds) {
+        return ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", paymentIntentIds.toArray()));
+    }
+
+    /**
+     * Id de l'objet de l'événement (data.object.id), lu dans le JSON brut pour ne pas dépendre
+     * de la version d'API des modèles stripe-java
+     */
+    private String paymentIntentId(String payload) {
+        try {
+            return objectMapper.readTree(payload).path("data").path("object").path("id").asText(null);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.config.StripeClientProperties;
+import com.stripe.model.PaymentIntent;
+import com.stripe.net.RequestOptions;
+import com.stripe.param.PaymentIntentCreateParams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Bouchon de Stripe : chaque appel attend stripe.client.stub-latency puis réussit.
+ * Les PaymentIntent créés sont considérés comme payés.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stripe.client", name = "stub", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class StubPaymentIntentClient implements PaymentIntentClient {
+
+    private final StripeClientProperties stripeClientProperties;
+
+    @Override
+    public PaymentIntent create(PaymentIntentCreateParams params, RequestOptions options) {
+        simulateLatency();
+        PaymentIntent paymentIntent = new PaymentIntent();
+        paymentIntent.setId("pi_stub_" + UUID.randomUUID().toString().replace("-", ""));
+        paymentIntent.setClientSecret(paymentIntent.getId() + "_secret_stub");
+        paymentIntent.setAmount(params.getAmount());
+        paymentIntent.setCurrency(params.getCurrency());
+        paymentIntent.setStatus("requires_payment_method");
+        return paymentIntent;
+    }
+
+    @Override
+    public PaymentIntent retrieve(String paymentIntentId, RequestOptions options) {
+        simulateLatency();
+        PaymentIntent paymentIntent = new PaymentIntent();
+        paymentIntent.setId(paymentIntentId);
+        paymentIntent.setStatus("succeeded");
+        return paymentIntent;
+    }
+
+    private void simulateLatency() {
+        long latency = stripeClientProperties.getStubLatency().toMillis();
+        if (latency <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Appel Stripe simulé interrompu", e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.n2s.infotech.service;
 
 import com.n2s.infotech.dto.ChangePasswordRequest;
+import com.n2s.infotech.dto.CursorPageDto;
 import com.n2s.infotech.dto.UpdateProfileRequest;
 import com.n2s.infotech.dto.UserProfileDto;
 import com.n2s.infotech.model.Role;
@@ -8,10 +9,15 @@ import com.n2s.infotech.model.SellerProfile;
 import com.n2s.infotech.model.User;
 import com.n2s.infotech.repository.SellerProfileRepository;
 import com.n2s.infotech.repository.UserRepository;
+import com.n2s.infotech.util.ScrollCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -27,6 +33,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final SellerProfileRepository sellerProfileRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PageCountService pageCountService;
 
     /**
      * Récupérer le profil d'un utilisateur par email
@@ -49,15 +56,36 @@ public class UserService {
     /**
      * Récupérer tous les utilisateurs avec pagination
      */
-    public Page<UserProfileDto> getAllUsers(Pageable pageable, String search) {
-        Page<User> users;
+    public Slice<UserProfileDto> getAllUsers(Pageable pageable, String search, String count) {
+        if (search != null && !search.isEmpty()) {
+            return pageCountService.paginate("users", pageCountService.resolve("users", count), pageable,
+                    p -> userRepository.findByEmailContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(search, search, p)
+                            .map(this::mapToDto),
+                    p -> userRepository.findSliceByEmailContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(search, search, p)
+                            .map(this::mapToDto),
+                    pageCountService.cachedCount("users:search=" + search,
+                            () -> userRepository.countByEmailContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(search, search)));
+        }
+        return pageCountService.paginate("users", pageCountService.resolve("users", count), pageable,
+                p -> userRepository.findAll(p).map(this::mapToDto),
+                p -> userRepository.findSliceBy(p).map(this::mapToDto),
+                pageCountService.tableEstimate("users", userRepository::count));
+    }
+
+    /**
+     * Récupérer les utilisateurs par curseur (ordre des ids)
+     */
+    public CursorPageDto<UserProfileDto> scrollUsers(String cursor, int size, String search) {
+        Sort sort = ScrollCursor.sort(Sort.unsorted(), Map.of("id", "id"), Sort.Direction.ASC);
+        ScrollPosition position = ScrollCursor.decode(cursor, sort);
+        Window<User> users;
         if (search != null && !search.isEmpty()) {
             users = userRepository.findByEmailContainingIgnoreCaseOrDisplayNameContainingIgnoreCase(
-                    search, search, pageable);
+                    search, search, position, sort, ScrollCursor.limit(size));
         } else {
-            users = userRepository.findAll(pageable);
+            users = userRepository.findAllBy(position, sort, ScrollCursor.limit(size));
         }
-        return users.map(this::mapToDto);
+        return CursorPageDto.of(users, this::mapToDto);
     }
 
     /**
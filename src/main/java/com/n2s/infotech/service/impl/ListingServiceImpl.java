@@ -1,34 +1,51 @@
 package com.n2s.infotech.service.impl;
 
+import com.n2s.infotech.dto.CursorPageDto;
 import com.n2s.infotech.dto.ListingDto;
 import com.n2s.infotech.model.Listing;
 import com.n2s.infotech.model.ProductImage;
 import com.n2s.infotech.repository.ListingRepository;
 import com.n2s.infotech.service.ListingService;
+import com.n2s.infotech.service.PageCountService;
+import com.n2s.infotech.util.ScrollCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
 public class ListingServiceImpl implements ListingService {
 
+    // Clés de tri acceptées en pagination par curseur (API -> entité)
+    private static final Map<String, String> SCROLL_SORT_KEYS = Map.of("id", "id", "price", "price");
+
     private final ListingRepository listingRepository;
+    private final PageCountService pageCountService;
 
     @Autowired
-    public ListingServiceImpl(ListingRepository listingRepository) {
+    public ListingServiceImpl(ListingRepository listingRepository, PageCountService pageCountService) {
         this.listingRepository = listingRepository;
+        this.pageCountService = pageCountService;
     }
 
     @Override
-    public Page<ListingDto> listListings(Pageable pageable, String search) {
-        Page<Listing> page = listingRepository.findAll(pageable);
-        List<ListingDto> dtos = page.stream().map(this::toDto).collect(Collectors.toList());
-        return new PageImpl<>(dtos, pageable, page.getTotalElements());
+    public Slice<ListingDto> listListings(Pageable pageable, String search, String count) {
+        return pageCountService.paginate("listings", pageCountService.resolve("listings", count), pageable,
+                p -> {
+                    Page<Listing> page = listingRepository.findAll(p);
+                    List<ListingDto> dtos = page.stream().map(this::toDto).collect(Collectors.toList());
+                    return new PageImpl<>(dtos, p, page.getTotalElements());
+                },
+                p -> listingRepository.findSliceBy(p).map(this::toDto),
+                pageCountService.tableEstimate("listings", listingRepository::count));
     }
 
     @Override
@@ -38,10 +55,32 @@ public class ListingServiceImpl implements ListingService {
     }
     
     @Override
-    public Page<ListingDto> getListingsByProduct(Long productId, Pageable pageable) {
-        Page<Listing> page = listingRepository.findByProductIdAndActiveTrue(productId, pageable);
-        List<ListingDto> dtos = page.stream().map(this::toDto).collect(Collectors.toList());
-        return new PageImpl<>(dtos, pageable, page.getTotalElements());
+    public Slice<ListingDto> getListingsByProduct(Long productId, Pageable pageable, String count) {
+        return pageCountService.paginate("listings", pageCountService.resolve("listings", count), pageable,
+                p -> {
+                    Page<Listing> page = listingRepository.findByProductIdAndActiveTrue(productId, p);
+                    List<ListingDto> dtos = page.stream().map(this::toDto).collect(Collectors.toList());
+                    return new PageImpl<>(dtos, p, page.getTotalElements());
+                },
+                p -> listingRepository.findSliceByProductIdAndActiveTrue(productId, p).map(this::toDto),
+                pageCountService.cachedCount("listings:product=" + productId,
+                        () -> listingRepository.countByProductIdAndActiveTrue(productId)));
+    }
+
+    @Override
+    public CursorPageDto<ListingDto> scrollListings(String cursor, int size, Sort sort) {
+        Sort scrollSort = ScrollCursor.sort(sort, SCROLL_SORT_KEYS, Sort.Direction.ASC);
+        Window<Listing> window = listingRepository.findAllBy(
+                ScrollCursor.decode(cursor, scrollSort), scrollSort, ScrollCursor.limit(size));
+        return CursorPageDto.of(window, this::toDto);
+    }
+
+    @Override
+    public CursorPageDto<ListingDto> scrollListingsByProduct(Long productId, String cursor, int size, Sort sort) {
+        Sort scrollSort = ScrollCursor.sort(sort, SCROLL_SORT_KEYS, Sort.Direction.ASC);
+        Window<Listing> window = listingRepository.findByProductIdAndActiveTrue(
+                productId, ScrollCursor.decode(cursor, scrollSort), scrollSort, ScrollCursor.limit(size));
+        return CursorPageDto.of(window, this::toDto);
     }
 
     private ListingDto toDto(Listing l) {
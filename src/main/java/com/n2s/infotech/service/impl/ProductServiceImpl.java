@@ -1,45 +1,212 @@
 package com.n2s.infotech.service.impl;
 
 import com.cloudinary.Cloudinary;
+import com.n2s.infotech.config.PaginationProperties.CountMode;
+import com.n2s.infotech.config.SearchProperties;
 import com.n2s.infotech.dto.CloudinaryResponse;
+import com.n2s.infotech.dto.CursorPageDto;
+import com.n2s.infotech.dto.ProductCardDto;
 import com.n2s.infotech.dto.ProductDto;
+import com.n2s.infotech.dto.ProductFacetsDto;
+import com.n2s.infotech.dto.ProductPageDto;
+import com.n2s.infotech.dto.SuggestionDto;
 import com.n2s.infotech.model.Product;
 import com.n2s.infotech.model.ProductImage;
 import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.repository.ProductSummaryRepository;
+import com.n2s.infotech.search.ProductFilter;
+import com.n2s.infotech.search.ProductSearchIndex;
+import com.n2s.infotech.search.ProductSuggestIndex;
+import com.n2s.infotech.service.CategoryTreeCache;
+import com.n2s.infotech.service.PageCountService;
 import com.n2s.infotech.service.ProductService;
+import com.n2s.infotech.specification.ProductSpecification;
 import com.n2s.infotech.util.FileUploadUtil;
+import com.n2s.infotech.util.ScrollCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    // Clés de tri acceptées en pagination par curseur (API -> entité)
+    private static final Map<String, String> SCROLL_SORT_KEYS = Map.of("id", "id", "price", "bestPrice");
+
+    // Clés de tri acceptées par la grille du catalogue (API -> chemin JPQL, p = produit, s = résumé)
+    private static final Map<String, String> CATALOG_SORT_KEYS = Map.of(
+            "id", "p.id", "title", "p.title", "brand", "p.brand",
+            "price", "s.minPrice", "rating", "s.averageRating", "reviews", "s.reviewCount");
+
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final SearchProperties searchProperties;
+    private final PageCountService pageCountService;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final CategoryTreeCache categoryTreeCache;
+    private final ProductSummaryRepository productSummaryRepository;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductSearchIndex productSearchIndex,
+                              SearchProperties searchProperties, PageCountService pageCountService,
+                              ProductSuggestIndex productSuggestIndex, CategoryTreeCache categoryTreeCache,
+                              ProductSummaryRepository productSummaryRepository) {
         this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.searchProperties = searchProperties;
+        this.pageCountService = pageCountService;
+        this.productSuggestIndex = productSuggestIndex;
+        this.categoryTreeCache = categoryTreeCache;
+        this.productSummaryRepository = productSummaryRepository;
     }
 
     @Override
     public Page<ProductDto> listProducts(Pageable pageable, String search) {
-        // For MVP: naive implementation -- later add specs/criteria for performance
-        Page<Product> page;
         if (search == null || search.isBlank()) {
-            page = productRepository.findAll(pageable);
-        } else {
-            page = productRepository.findAll(pageable); // TODO: implement search
+            return productRepository.findAll(pageable).map(this::convertToDto);
+        }
+        return searchProducts(search, pageable);
+    }
+
+    @Override
+    public Slice<ProductDto> filterProducts(Pageable pageable, String search, Long categoryId, String brand, String condition, Double minPrice, Double maxPrice, boolean facets, String count) {
+        ProductFilter filter = new ProductFilter(search, categorySubtree(categoryId), brand, condition, minPrice, maxPrice);
+        CountMode mode = pageCountService.resolve("products", count);
+        if (facets && mode == CountMode.NONE) {
+            // Les facettes accompagnent une page : on se contente d'un total estimé
+            mode = CountMode.ESTIMATE;
+        }
+        Slice<ProductDto> page = findProducts(withPriceSort(pageable), filter, mode);
+        if (!facets) {
+            return page;
         }
+        return new ProductPageDto((Page<ProductDto>) page, facets(filter));
+    }
 
-        List<ProductDto> dtos = page.stream().map(this::convertToDto).collect(Collectors.toList());
-        return new PageImpl<>(dtos, pageable, page.getTotalElements());
+    /**
+     * Facettes des mêmes produits que la page : en mode postgres, comptées en base avec le prédicat plein texte
+     * de la recherche ; sinon sur les bitmaps de l'index, sans requête supplémentaire (null tant qu'il se construit)
+     */
+    private ProductFacetsDto facets(ProductFilter filter) {
+        if (searchProperties.isPostgres()) {
+            return fullTextFacets(filter);
+        }
+        return productSearchIndex.isReady() ? productSearchIndex.facets(filter) : null;
+    }
+
+    private ProductFacetsDto fullTextFacets(ProductFilter filter) {
+        Map<String, Long> brands = new HashMap<>();
+        Map<String, Long> conditions = new HashMap<>();
+        Map<Long, Long> categories = new HashMap<>();
+        List<String> bandLabels = ProductSearchIndex.priceBandLabels();
+        Map<String, Long> priceBands = new LinkedHashMap<>();
+        bandLabels.forEach(band -> priceBands.put(band, 0L));
+        for (ProductRepository.FacetCount count : productRepository.countFacets(
+                filter.hasSearch() ? filter.search() : "", filter.categoryIds() == null, categoryIdsOrNone(filter),
+                emptyToNull(filter.brand()), emptyToNull(filter.condition()),
+                toBigDecimal(filter.minPrice()), toBigDecimal(filter.maxPrice()))) {
+            switch (count.getFacet()) {
+                case "brand" -> brands.put(count.getValue(), count.getCount());
+                case "condition" -> conditions.put(count.getValue(), count.getCount());
+                case "category" -> categories.put(Long.valueOf(count.getValue()), count.getCount());
+                case "price" -> priceBands.put(bandLabels.get(Integer.parseInt(count.getValue())), count.getCount());
+                default -> throw new IllegalStateException("Facette inconnue: " + count.getFacet());
+            }
+        }
+        return ProductFacetsDto.builder()
+                .brands(byCountDesc(brands))
+                .conditions(byCountDesc(conditions))
+                .categories(byCountDesc(categories))
+                .priceBands(priceBands)
+                .build();
+    }
+
+    private static <K> Map<K, Long> byCountDesc(Map<K, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<K, Long>comparingByValue().reversed())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    @Override
+    public CursorPageDto<ProductDto> scrollProducts(String cursor, int size, Sort sort, String search, Long categoryId, String brand, String condition, Double minPrice, Double maxPrice) {
+        Sort scrollSort = ScrollCursor.sort(sort, SCROLL_SORT_KEYS, Sort.Direction.ASC);
+        Specification<Product> spec = ProductSpecification.filterProducts(search, categorySubtree(categoryId), brand, condition, minPrice, maxPrice);
+        if (scrollSort.getOrderFor("bestPrice") != null) {
+            // Une clé keyset ne peut pas être nulle : le tri par prix ne liste que les produits ayant une offre
+            spec = spec.and(ProductSpecification.hasBestPrice());
+        }
+        Window<Product> window = productRepository.findBy(spec, query -> query
+                .sortBy(scrollSort)
+                .limit(ScrollCursor.limit(size).max())
+                .scroll(ScrollCursor.decode(cursor, scrollSort)));
+        return CursorPageDto.of(window, this::convertToDto);
+    }
+
+    @Override
+    public Page<ProductDto> searchProducts(String query, Pageable pageable) {
+        if (useFullTextSearch(pageable)) {
+            return fullTextSearch(new ProductFilter(query, null, null, null, null, null), pageable);
+        }
+        if (useSearchIndex(pageable)) {
+            return loadInOrder(productSearchIndex.search(new ProductFilter(query, null, null, null, null, null), pageable));
+        }
+        return productRepository.searchProducts(query, pageable).map(this::convertToDto);
+    }
+
+    @Override
+    public List<SuggestionDto> suggest(String query, int limit) {
+        // Pendant la construction de l'index on ne renvoie rien plutôt que d'interroger la base à chaque frappe
+        if (query == null || query.isBlank() || !productSuggestIndex.isReady()) {
+            return List.of();
+        }
+        return productSuggestIndex.suggest(query, limit);
+    }
+
+    @Override
+    public Slice<ProductCardDto> catalog(Pageable pageable, Long categoryId, String count) {
+        Set<Long> categoryIds = categorySubtree(categoryId);
+        boolean allCategories = categoryIds == null;
+        Collection<Long> ids = allCategories ? List.of(-1L) : categoryIds;
+        Sort sort = catalogSort(pageable.getSort());
+        boolean offersOnly = sort.getOrderFor("s.minPrice") != null;
+        Pageable catalogPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+        return pageCountService.paginate("products", pageCountService.resolve("products", count), catalogPageable,
+                p -> productSummaryRepository.findCards(allCategories, ids, offersOnly, p),
+                p -> productSummaryRepository.findCardSlice(allCategories, ids, offersOnly, p),
+                allCategories && !offersOnly
+                        ? pageCountService.tableEstimate("products", productRepository::count)
+                        : pageCountService.cachedCount("products:catalog:" + categoryIds + ":" + offersOnly,
+                                () -> productSummaryRepository.countCards(allCategories, ids, offersOnly)));
+    }
+
+    @Override
+    public List<String> getBrands() {
+        return productSearchIndex.isReady() ? productSearchIndex.brands() : productRepository.findAllBrands();
+    }
+
+    @Override
+    public List<String> getConditions() {
+        return productSearchIndex.isReady() ? productSearchIndex.conditions() : productRepository.findAllConditions();
     }
 
     @Override
@@ -60,8 +227,153 @@ public class ProductServiceImpl implements ProductService {
                 .description(p.getDescription())
                 .categoryName(p.getCategory() != null ? p.getCategory().getName() : null)
                 .images(images)
+                .bestPrice(p.getBestPrice())
+                .activeListingCount(p.getActiveListingCount())
+                .totalStock(p.getTotalStock())
                 .build();
     }
 
-}
+    private Slice<ProductDto> findProducts(Pageable pageable, ProductFilter filter, CountMode mode) {
+        // Recherche textuelle classée par pertinence (index en mémoire ou plein texte PostgreSQL)
+        if (filter.hasSearch()) {
+            if (useFullTextSearch(pageable)) {
+                return pageCountService.paginate("products", mode, pageable,
+                        p -> fullTextSearch(filter, p),
+                        p -> fullTextSearchSlice(filter, p),
+                        pageCountService.cachedCount("products:fulltext:" + filter, () -> countFullTextSearch(filter)));
+            }
+            if (useSearchIndex(pageable)) {
+                // Total calculé en mémoire par l'index, pas de count(*) en base
+                return loadInOrder(productSearchIndex.search(filter, pageable));
+            }
+        }
+
+        Specification<Product> spec = ProductSpecification.filterProducts(
+                filter.search(), filter.categoryIds(), filter.brand(), filter.condition(), filter.minPrice(), filter.maxPrice()
+        );
+        boolean unfiltered = filter.equals(new ProductFilter(null, null, null, null, null, null));
+        return pageCountService.paginate("products", mode, pageable,
+                p -> productRepository.findAll(spec, p).map(this::convertToDto),
+                p -> productRepository.findSlice(spec, p).map(this::convertToDto),
+                unfiltered
+                        ? pageCountService.tableEstimate("products", productRepository::count)
+                        : pageCountService.cachedCount("products:" + filter, () -> productRepository.count(spec)));
+    }
+
+    private boolean useSearchIndex(Pageable pageable) {
+        // Un tri explicite demandé par le client n'est pas un classement par pertinence : on laisse faire JPA
+        return !searchProperties.isPostgres() && productSearchIndex.isReady() && pageable.getSort().isUnsorted();
+    }
+
+    private boolean useFullTextSearch(Pageable pageable) {
+        return searchProperties.isPostgres() && pageable.getSort().isUnsorted();
+    }
+
+    private Page<ProductDto> fullTextSearch(ProductFilter filter, Pageable pageable) {
+        Page<ProductRepository.SearchHit> hits = productRepository.fullTextSearch(
+                filter.search(), filter.categoryIds() == null, categoryIdsOrNone(filter), emptyToNull(filter.brand()), emptyToNull(filter.condition()),
+                toBigDecimal(filter.minPrice()), toBigDecimal(filter.maxPrice()),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())
+        );
+        return new PageImpl<>(withSnippets(hits), hits.getPageable(), hits.getTotalElements());
+    }
 
+    private Slice<ProductDto> fullTextSearchSlice(ProductFilter filter, Pageable pageable) {
+        Slice<ProductRepository.SearchHit> hits = productRepository.fullTextSearchSlice(
+                filter.search(), filter.categoryIds() == null, categoryIdsOrNone(filter), emptyToNull(filter.brand()), emptyToNull(filter.condition()),
+                toBigDecimal(filter.minPrice()), toBigDecimal(filter.maxPrice()),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())
+        );
+        return new SliceImpl<>(withSnippets(hits), hits.getPageable(), hits.hasNext());
+    }
+
+    private long countFullTextSearch(ProductFilter filter) {
+        return productRepository.countFullTextSearch(
+                filter.search(), filter.categoryIds() == null, categoryIdsOrNone(filter), emptyToNull(filter.brand()), emptyToNull(filter.condition()),
+                toBigDecimal(filter.minPrice()), toBigDecimal(filter.maxPrice())
+        );
+    }
+
+    private List<ProductDto> withSnippets(Slice<ProductRepository.SearchHit> hits) {
+        Map<Long, String> snippets = hits.stream()
+                .filter(hit -> hit.getSnippet() != null)
+                .collect(Collectors.toMap(ProductRepository.SearchHit::getId, ProductRepository.SearchHit::getSnippet));
+
+        List<ProductDto> dtos = loadAll(hits.map(ProductRepository.SearchHit::getId).getContent());
+        dtos.forEach(dto -> dto.setSnippet(snippets.get(dto.getId())));
+        return dtos;
+    }
+
+    /**
+     * Le tri "price" du catalogue porte sur la meilleure offre active dénormalisée (colonne indexée)
+     */
+    private static Pageable withPriceSort(Pageable pageable) {
+        Sort.Order priceOrder = pageable.getSort().getOrderFor("price");
+        if (priceOrder == null) {
+            return pageable;
+        }
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .map(order -> order == priceOrder ? order.withProperty("bestPrice").nullsLast() : order)
+                .toList());
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+    }
+
+    private static Sort catalogSort(Sort requested) {
+        if (requested.isUnsorted()) {
+            return Sort.by("p.id");
+        }
+        Sort sort = Sort.by(requested.stream()
+                .map(order -> {
+                    String path = CATALOG_SORT_KEYS.get(order.getProperty());
+                    if (path == null) {
+                        throw new IllegalArgumentException("Tri non supporté pour le catalogue: " + order.getProperty());
+                    }
+                    return order.withProperty(path);
+                })
+                .toList());
+        // Départage par id : ordre stable d'une page à l'autre
+        return sort.getOrderFor("p.id") != null ? sort : sort.and(Sort.by("p.id"));
+    }
+
+    /**
+     * Catégorie demandée et ses descendantes, d'après l'arbre en mémoire
+     */
+    private Set<Long> categorySubtree(Long categoryId) {
+        if (categoryId == null) {
+            return null;
+        }
+        Set<Long> subtree = categoryTreeCache.subtree(categoryId);
+        return subtree.isEmpty() ? Set.of(categoryId) : subtree;
+    }
+
+    private static Collection<Long> categoryIdsOrNone(ProductFilter filter) {
+        // Une liste IN vide n'est pas valide en SQL : valeur factice ignorée grâce à allCategories
+        return filter.categoryIds() != null ? filter.categoryIds() : List.of(-1L);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static BigDecimal toBigDecimal(Double value) {
+        return value != null ? BigDecimal.valueOf(value) : null;
+    }
+
+    /**
+     * Charge les produits d'une page d'identifiants en conservant l'ordre de pertinence
+     */
+    private Page<ProductDto> loadInOrder(Page<Long> ids) {
+        return new PageImpl<>(loadAll(ids.getContent()), ids.getPageable(), ids.getTotalElements());
+    }
+
+    private List<ProductDto> loadAll(List<Long> ids) {
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+}
@@ -4,14 +4,16 @@ import com.n2s.infotech.model.Product;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ProductSpecification {
 
     public static Specification<Product> filterProducts(
             String search,
-            Long categoryId,
+            Collection<Long> categoryIds,
             String brand,
             String condition,
             Double minPrice,
@@ -29,9 +31,9 @@ public class ProductSpecification {
                 predicates.add(criteriaBuilder.or(titleMatch, brandMatch, descMatch));
             }
 
-            // Filter by category
-            if (categoryId != null) {
-                predicates.add(criteriaBuilder.equal(root.get("category").get("id"), categoryId));
+            // Filter by category subtree (ids resolved by CategoryTreeCache, indexed IN on category_id)
+            if (categoryIds != null) {
+                predicates.add(root.get("category").get("id").in(categoryIds));
             }
 
             // Filter by brand
@@ -44,8 +46,20 @@ public class ProductSpecification {
                 predicates.add(criteriaBuilder.equal(root.get("condition"), condition));
             }
 
+            // Filter by price range on the denormalized best active offer (indexed, no join on listings)
+            if (minPrice != null) {
+                predicates.add(criteriaBuilder.greaterThanOrEqualTo(root.get("bestPrice"), BigDecimal.valueOf(minPrice)));
+            }
+            if (maxPrice != null) {
+                predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("bestPrice"), BigDecimal.valueOf(maxPrice)));
+            }
+
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    public static Specification<Product> hasBestPrice() {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.isNotNull(root.get("bestPrice"));
+    }
 }
 
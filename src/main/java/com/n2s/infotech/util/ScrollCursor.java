@@ -0,0 +1,119 @@
+package com.n2s.infotech.util;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Pagination par curseur (keyset) : le jeton opaque encode les valeurs de tri
+ * et l'id du dernier élément renvoyé, la page suivante repart de cette position
+ * via l'index composite au lieu de sauter OFFSET lignes.
+ */
+public final class ScrollCursor {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private ScrollCursor() {
+    }
+
+    /**
+     * Construit le tri keyset à partir du tri demandé : une clé autorisée, puis l'id comme départage
+     *
+     * @param allowed propriété exposée dans l'API -> propriété de l'entité
+     */
+    public static Sort sort(Sort requested, Map<String, String> allowed, Sort.Direction defaultDirection) {
+        if (requested == null || requested.isUnsorted()) {
+            return Sort.by(defaultDirection, "id");
+        }
+        Sort.Order primary = requested.iterator().next();
+        String property = allowed.get(primary.getProperty());
+        if (property == null) {
+            throw new IllegalArgumentException("Tri non supporté en pagination par curseur: " + primary.getProperty());
+        }
+        if (property.equals("id")) {
+            return Sort.by(primary.getDirection(), "id");
+        }
+        return Sort.by(new Sort.Order(primary.getDirection(), property), new Sort.Order(primary.getDirection(), "id"));
+    }
+
+    public static Limit limit(int size) {
+        return Limit.of(Math.max(1, Math.min(size, MAX_SIZE)));
+    }
+
+    /**
+     * Décode un jeton ; un jeton absent correspond à la première page
+     */
+    public static ScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            for (String entry : raw.split("&")) {
+                int eq = entry.indexOf('=');
+                keys.put(entry.substring(0, eq), parse(entry.charAt(eq + 1), entry.substring(eq + 3)));
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Curseur invalide");
+        }
+        // Un curseur n'est valable que pour le tri qui l'a produit
+        Set<String> properties = sort.stream().map(Sort.Order::getProperty).collect(Collectors.toSet());
+        if (!keys.keySet().equals(properties)) {
+            throw new IllegalArgumentException("Curseur invalide pour ce tri");
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    /**
+     * Encode la position du dernier élément de la fenêtre, ou null s'il n'y a pas de suite
+     */
+    public static String encode(Window<?> window) {
+        if (!window.hasNext() || window.isEmpty()) {
+            return null;
+        }
+        KeysetScrollPosition position = (KeysetScrollPosition) window.positionAt(window.size() - 1);
+        String raw = position.getKeys().entrySet().stream()
+                .map(entry -> entry.getKey() + "=" + format(entry.getValue()))
+                .collect(Collectors.joining("&"));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String format(Object value) {
+        if (value instanceof Long l) {
+            return "L:" + l;
+        }
+        if (value instanceof Integer i) {
+            return "I:" + i;
+        }
+        if (value instanceof BigDecimal d) {
+            return "D:" + d.toPlainString();
+        }
+        if (value instanceof OffsetDateTime t) {
+            return "T:" + t;
+        }
+        throw new IllegalStateException("Clé de tri non supportée en pagination par curseur: " + value);
+    }
+
+    private static Object parse(char type, String value) {
+        return switch (type) {
+            case 'L' -> Long.valueOf(value);
+            case 'I' -> Integer.valueOf(value);
+            case 'D' -> new BigDecimal(value);
+            case 'T' -> OffsetDateTime.parse(value);
+            default -> throw new IllegalArgumentException("Type inconnu: " + type);
+        };
+    }
+}
@@ -1,6 +1,42 @@
 -- Seed de base pour tests front - Script rejouable sans doublons
 -- Passwords BCrypt: "password123" sauf admin = "admin123"
 
+-- Identifiants par séquence <table>_id_seq avec l'optimiseur pooled-lo (pas de 50) : ce script s'exécute avant
+-- Hibernate, qui refuse de démarrer si le pas d'une séquence ne correspond pas à allocationSize.
+-- Bases existantes : la séquence est celle de la colonne identity (échoue sans effet sur une base neuve).
+ALTER TABLE addresses ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE carbon_footprints ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE cart_items ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE categories ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE certifications ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE collection_points ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE digital_passports ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE durability ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE favorites ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE listings ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE materials ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE orders ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE order_items ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE products ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE product_images ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE recycling_info ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE reviews ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE seller_profiles ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE stock_holds ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE traceability ALTER COLUMN id SET INCREMENT BY 50;
+ALTER TABLE users ALTER COLUMN id SET INCREMENT BY 50;
+
+-- Bases créées par Hibernate : la colonne n'a pas de valeur par défaut, utilisée par les INSERT de ce script
+-- (échoue sans effet sur une colonne identity)
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_id_seq');
+ALTER TABLE seller_profiles ALTER COLUMN id SET DEFAULT nextval('seller_profiles_id_seq');
+ALTER TABLE categories ALTER COLUMN id SET DEFAULT nextval('categories_id_seq');
+ALTER TABLE products ALTER COLUMN id SET DEFAULT nextval('products_id_seq');
+ALTER TABLE product_images ALTER COLUMN id SET DEFAULT nextval('product_images_id_seq');
+ALTER TABLE listings ALTER COLUMN id SET DEFAULT nextval('listings_id_seq');
+ALTER TABLE addresses ALTER COLUMN id SET DEFAULT nextval('addresses_id_seq');
+ALTER TABLE favorites ALTER COLUMN id SET DEFAULT nextval('favorites_id_seq');
+
 -- Utilisateurs
 INSERT INTO users (email, password, display_name, created_at) VALUES
 ('admin@example.com', '$2a$10$XcN/5xtpDyqQxCpqvJGpjOq9p8vZCfJzZPqVfUhGDXxA6YrPXqp4W', 'Admin Root', NOW()),
@@ -130,3 +166,13 @@ FROM users u, products p
 WHERE u.email='alice@example.com' AND p.brand='N2S' AND p.model='HD-001'
 ON CONFLICT DO NOTHING;
 
+-- Meilleure offre active dénormalisée (produits jamais calculés, ex: insérés par ce script)
+UPDATE products p SET best_price = s.best_price, active_listing_count = s.listing_count, total_stock = s.stock
+FROM (SELECT pr.id, MIN(l.price) AS best_price, COUNT(l.id) AS listing_count, COALESCE(SUM(l.quantity), 0) AS stock
+      FROM products pr LEFT JOIN listings l ON l.product_id = pr.id AND l.active = TRUE
+      GROUP BY pr.id) s
+WHERE p.id = s.id AND p.active_listing_count IS NULL;
+
+-- Commandes créées sans date (le builder ignorait la valeur par défaut) : datées de la migration,
+-- l'historique les départage ensuite par id
+UPDATE orders SET created_at = NOW() WHERE created_at IS NULL;
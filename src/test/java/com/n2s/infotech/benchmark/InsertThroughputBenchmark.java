@@ -0,0 +1,238 @@
+package com.n2s.infotech.benchmark;
+
+import com.n2s.infotech.init.DataInitializer;
+import com.n2s.infotech.model.CarbonFootprint;
+import com.n2s.infotech.model.Category;
+import com.n2s.infotech.model.Certification;
+import com.n2s.infotech.model.DigitalPassport;
+import com.n2s.infotech.model.Listing;
+import com.n2s.infotech.model.Material;
+import com.n2s.infotech.model.Order;
+import com.n2s.infotech.model.OrderItem;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.model.ProductImage;
+import com.n2s.infotech.model.SellerProfile;
+import com.n2s.infotech.model.User;
+import com.n2s.infotech.repository.CategoryRepository;
+import com.n2s.infotech.repository.DigitalPassportRepository;
+import com.n2s.infotech.repository.ListingRepository;
+import com.n2s.infotech.repository.OrderRepository;
+import com.n2s.infotech.repository.ProductImageRepository;
+import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.repository.SellerProfileRepository;
+import com.n2s.infotech.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Débit d'écriture du seed du catalogue et des commandes, par JPA comme l'application.
+ * <p>
+ * Hors de la suite de tests (le nom ne correspond pas aux motifs de surefire) : à lancer sur une base vide
+ * dédiée, par scripts/bench-inserts.sh qui l'exécute sur deux révisions pour les comparer. Le seed reprend
+ * les écritures de SeedService sans l'envoi des images à Cloudinary : produit, trois images, une offre et
+ * un passeport numérique (empreinte carbone, trois matériaux, deux certifications), par transactions de
+ * SEED_CHUNK produits. Chaque commande de ORDER_ITEMS lignes est enregistrée dans sa propre transaction.
+ * Le jeu de démonstration de DataInitializer n'est pas chargé : la base reste vide hors du benchmark.
+ */
+// Sans la journalisation SQL, dont le coût fausserait la mesure
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"
+})
+@Slf4j
+class InsertThroughputBenchmark {
+
+    private static final int PRODUCTS = Integer.getInteger("bench.products", 2_000);
+    private static final int ORDERS = Integer.getInteger("bench.orders", 2_000);
+    private static final int SEED_CHUNK = 100;
+    private static final int ORDER_ITEMS = 5;
+    private static final int WARMUP = 200;
+
+    @MockBean
+    private DataInitializer dataInitializer;
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SellerProfileRepository sellerProfileRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductImageRepository productImageRepository;
+    @Autowired
+    private ListingRepository listingRepository;
+    @Autowired
+    private DigitalPassportRepository digitalPassportRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void seedAndOrders() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        User buyer = userRepository.save(User.builder().email("bench-" + run + "@example.com").password("x").build());
+        SellerProfile seller = sellerProfileRepository.save(SellerProfile.builder().shopName("Bench " + run).build());
+        Category category = categoryRepository.save(Category.builder().name("Bench " + run).build());
+
+        seed(category, seller, WARMUP);
+        long start = System.nanoTime();
+        List<Listing> listings = seed(category, seller, PRODUCTS);
+        long seeded = System.nanoTime();
+
+        orders(buyer, listings, WARMUP);
+        long ordersStart = System.nanoTime();
+        orders(buyer, listings, ORDERS);
+        long ordered = System.nanoTime();
+
+        // Produit, 3 images, offre, passeport, empreinte, 3 matériaux, 2 certifications
+        int seedRows = PRODUCTS * 12;
+        int orderRows = ORDERS * (1 + ORDER_ITEMS);
+        log.info("[bench] Débit seed : {} produits ({} lignes) en {} ms, {} lignes/s",
+                PRODUCTS, seedRows, (seeded - start) / 1_000_000, Math.round(seedRows * 1e9 / (seeded - start)));
+        log.info("[bench] Débit commandes : {} commandes de {} lignes en {} ms, {} commandes/s",
+                ORDERS, ORDER_ITEMS, (ordered - ordersStart) / 1_000_000, Math.round(ORDERS * 1e9 / (ordered - ordersStart)));
+        log.info("[bench] Débit total : {} lignes en {} ms", seedRows + orderRows,
+                (seeded - start + ordered - ordersStart) / 1_000_000);
+
+        cleanUp(buyer, seller, category);
+    }
+
+    private List<Listing> seed(Category category, SellerProfile seller, int count) {
+        List<Listing> listings = new ArrayList<>();
+        for (int from = 0; from < count; from += SEED_CHUNK) {
+            int size = Math.min(SEED_CHUNK, count - from);
+            listings.addAll(transactionTemplate.execute(status -> seedChunk(category, seller, size)));
+        }
+        return listings;
+    }
+
+    private List<Listing> seedChunk(Category category, SellerProfile seller, int size) {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            products.add(Product.builder()
+                    .title("Bench " + UUID.randomUUID())
+                    .description("Produit de test de débit")
+                    .brand("Bench")
+                    .model("B" + i)
+                    .condition("refurbished")
+                    .category(category)
+                    .build());
+        }
+        productRepository.saveAll(products);
+
+        List<ProductImage> images = new ArrayList<>();
+        List<Listing> listings = new ArrayList<>();
+        List<DigitalPassport> passports = new ArrayList<>();
+        for (Product product : products) {
+            for (int i = 0; i < 3; i++) {
+                images.add(ProductImage.builder()
+                        .url("https://example.com/" + product.getId() + "/" + i + ".jpg")
+                        .altText(product.getTitle())
+                        .product(product)
+                        .build());
+            }
+            listings.add(Listing.builder()
+                    .product(product)
+                    .seller(seller)
+                    .price(BigDecimal.valueOf(199))
+                    .quantity(1_000_000)
+                    .active(true)
+                    .build());
+            passports.add(passport(product.getId()));
+        }
+        productImageRepository.saveAll(images);
+        listingRepository.saveAll(listings);
+        digitalPassportRepository.saveAll(passports);
+        return listings;
+    }
+
+    private static DigitalPassport passport(Long productId) {
+        return DigitalPassport.builder()
+                .productId(productId)
+                .carbonFootprint(CarbonFootprint.builder()
+                        .totalCO2(60.0).manufacturing(45.0).transportation(5.0).usage(9.0).endOfLife(1.0).score("B")
+                        .build())
+                .materials(new ArrayList<>(List.of(
+                        material("Aluminium", 40.0),
+                        material("Verre", 35.0),
+                        material("Plastique", 25.0))))
+                .certifications(new ArrayList<>(List.of(
+                        certification("CE"),
+                        certification("RoHS"))))
+                .build();
+    }
+
+    private static Material material(String name, double percentage) {
+        return Material.builder()
+                .name(name).percentage(percentage).renewable(false).recycled(true).recyclable(true)
+                .build();
+    }
+
+    private static Certification certification(String name) {
+        return Certification.builder()
+                .name(name).issuer("Bench").validUntil(LocalDate.now().plusYears(1)).type("compliance")
+                .build();
+    }
+
+    private void orders(User buyer, List<Listing> listings, int count) {
+        for (int n = 0; n < count; n++) {
+            int first = n * ORDER_ITEMS;
+            transactionTemplate.executeWithoutResult(status -> {
+                Order order = Order.builder()
+                        .buyer(buyer)
+                        .status("PAID")
+                        .paymentStatus("succeeded")
+                        .build();
+                List<OrderItem> items = new ArrayList<>();
+                BigDecimal total = BigDecimal.ZERO;
+                for (int i = 0; i < ORDER_ITEMS; i++) {
+                    Listing listing = listings.get((first + i) % listings.size());
+                    items.add(OrderItem.builder()
+                            .order(order)
+                            .listing(listing)
+                            .quantity(1)
+                            .price(listing.getPrice())
+                            .build());
+                    total = total.add(listing.getPrice());
+                }
+                order.setItems(items);
+                order.setTotal(total);
+                orderRepository.save(order);
+            });
+        }
+    }
+
+    private void cleanUp(User buyer, SellerProfile seller, Category category) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM order_items WHERE order_id IN (SELECT id FROM orders WHERE buyer_id = ?)", buyer.getId());
+            jdbcTemplate.update("DELETE FROM orders WHERE buyer_id = ?", buyer.getId());
+            jdbcTemplate.update("DELETE FROM listings WHERE seller_id = ?", seller.getId());
+            List<Long> passportIds = jdbcTemplate.queryForList("SELECT d.id FROM digital_passports d " +
+                    "JOIN products p ON p.id = d.product_id WHERE p.category_id = ?", Long.class, category.getId());
+            digitalPassportRepository.deleteAllById(passportIds);
+            jdbcTemplate.update("DELETE FROM product_images WHERE product_id IN (SELECT id FROM products WHERE category_id = ?)",
+                    category.getId());
+            jdbcTemplate.update("DELETE FROM products WHERE category_id = ?", category.getId());
+        });
+        categoryRepository.deleteById(category.getId());
+        sellerProfileRepository.deleteById(seller.getId());
+        userRepository.deleteById(buyer.getId());
+    }
+}
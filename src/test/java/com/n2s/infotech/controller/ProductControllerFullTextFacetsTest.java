@@ -0,0 +1,123 @@
+package com.n2s.infotech.controller;
+
+import com.n2s.infotech.model.Category;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.repository.CategoryRepository;
+import com.n2s.infotech.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Facettes de la liste de produits en mode search.engine=postgres : comptées en base sur les produits
+ * retenus par la recherche plein texte, chaque facette ignorant son propre filtre
+ */
+@SpringBootTest(properties = "search.engine=postgres")
+@AutoConfigureMockMvc
+class ProductControllerFullTextFacetsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Mot présent dans le seul titre des produits du test ; les marques leur sont propres mais ne le contiennent
+    // pas (la marque fait partie de search_vector)
+    private final String word = randomWord();
+    private final String brandSuffix = randomWord();
+    private final String brandA = "Facet A " + brandSuffix;
+    private final String brandB = "Facet B " + brandSuffix;
+    private final List<Category> categories = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        Category first = category("first");
+        Category second = category("second");
+        product("Casque " + word, brandA, "new", first, "30");
+        product("Casque " + word, brandA, "new", first, "30");
+        product("Casque " + word, brandA, "new", first, "30");
+        product("Enceinte " + word, brandB, "used", second, "150");
+        product("Enceinte " + word, brandB, "used", second, "150");
+        product("Platine " + word, brandB, "new", first, "1200");
+        // Même marque, sans le mot recherché : hors des facettes
+        product("Autre produit", brandB, "used", second, "150");
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll(products);
+        categoryRepository.deleteAll(categories);
+    }
+
+    @Test
+    void facetsFollowTheFullTextPredicateAndTheTotalStaysEstimated() throws Exception {
+        mockMvc.perform(get("/api/products")
+                        .param("search", word)
+                        .param("brand", brandB)
+                        .param("facets", "true")
+                        .param("count", "estimate")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.totalEstimated").value(true))
+                // Marques : le filtre de marque est ignoré
+                .andExpect(jsonPath("$.facets.brands['" + brandA + "']").value(3))
+                .andExpect(jsonPath("$.facets.brands['" + brandB + "']").value(3))
+                .andExpect(jsonPath("$.facets.conditions.used").value(2))
+                .andExpect(jsonPath("$.facets.conditions.new").value(1))
+                .andExpect(jsonPath("$.facets.categories['" + categories.get(1).getId() + "']").value(2))
+                .andExpect(jsonPath("$.facets.categories['" + categories.get(0).getId() + "']").value(1))
+                .andExpect(jsonPath("$.facets.priceBands['0-50']").value(0))
+                .andExpect(jsonPath("$.facets.priceBands['100-200']").value(2))
+                .andExpect(jsonPath("$.facets.priceBands['1000+']").value(1));
+    }
+
+    private Category category(String name) {
+        Category category = categoryRepository.save(Category.builder().name(name + " " + word).children(new HashSet<>()).build());
+        categories.add(category);
+        return category;
+    }
+
+    private void product(String title, String brand, String condition, Category category, String bestPrice) {
+        Product product = productRepository.save(Product.builder()
+                .title(title)
+                .brand(brand)
+                .condition(condition)
+                .category(category)
+                .listings(new HashSet<>())
+                .images(new HashSet<>())
+                .build());
+        // Colonne dénormalisée, jamais écrite par Hibernate
+        jdbcTemplate.update("UPDATE products SET best_price = ? WHERE id = ?", new BigDecimal(bestPrice), product.getId());
+        products.add(product);
+    }
+
+    private static String randomWord() {
+        Random random = new Random();
+        StringBuilder word = new StringBuilder("zq");
+        for (int i = 0; i < 10; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
@@ -0,0 +1,108 @@
+package com.n2s.infotech.controller;
+
+import com.n2s.infotech.model.Category;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.model.ProductImage;
+import com.n2s.infotech.repository.CategoryRepository;
+import com.n2s.infotech.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Nombre de requêtes SQL d'une page de produits, compté par les statistiques Hibernate : il ne doit pas
+ * dépendre de la taille de la page (images et catégories chargées par lots, pas une requête par produit)
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+class ProductControllerQueryCountTest {
+
+    private static final int PRODUCTS = 60;
+    private static final int CATEGORIES = 6;
+    // Page (catégorie jointe), images par lot et au plus un comptage
+    private static final long MAX_STATEMENTS = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    // Marque commune aux produits du test, pour ne lister qu'eux
+    private final String brand = "query-count-" + UUID.randomUUID();
+    private final List<Category> categories = new ArrayList<>();
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        IntStream.range(0, CATEGORIES).forEach(i -> categories.add(categoryRepository.save(
+                Category.builder().name(brand + "-" + i).children(new HashSet<>()).build())));
+        IntStream.range(0, PRODUCTS).forEach(i -> {
+            Product product = Product.builder()
+                    .title("Query count " + i)
+                    .brand(brand)
+                    .category(categories.get(i % CATEGORIES))
+                    .listings(new HashSet<>())
+                    .images(new HashSet<>())
+                    .build();
+            IntStream.range(0, 2).forEach(n -> product.getImages().add(ProductImage.builder()
+                    .url("https://example.com/" + i + "-" + n + ".jpg")
+                    .product(product)
+                    .build()));
+            products.add(product);
+        });
+        productRepository.saveAll(products);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll(products);
+        categoryRepository.deleteAll(categories);
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() throws Exception {
+        // Premier passage : remplit les caches de comptage, pour comparer les deux tailles à l'identique
+        list(10);
+        list(50);
+
+        long small = list(10);
+        long large = list(50);
+
+        assertThat(large).isEqualTo(small);
+        assertThat(small).isLessThanOrEqualTo(MAX_STATEMENTS);
+    }
+
+    /**
+     * @return nombre de requêtes préparées pour une page de la taille donnée
+     */
+    private long list(int size) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/products").param("brand", brand).param("size", String.valueOf(size)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(size));
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,238 @@
+package com.n2s.infotech.repository;
+
+import com.n2s.infotech.model.Listing;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.model.SellerProfile;
+import com.n2s.infotech.model.User;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Réservation de stock concurrente sur la base configurée (PostgreSQL) : de nombreux acheteurs
+ * simultanés ne doivent jamais vendre plus que le stock d'une offre
+ */
+@SpringBootTest
+@Slf4j
+class ListingRepositoryCustomImplTest {
+
+    private static final int THREADS = 16;
+    private static final int STOCK = 50;
+    private static final int THROUGHPUT_SALES = 2_000;
+
+    @Autowired
+    private ListingRepository listingRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private SellerProfileRepository sellerProfileRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private SellerProfile seller;
+    private Product product;
+    private final List<Long> listingIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(User.builder()
+                .email("stock-test-" + UUID.randomUUID() + "@example.com")
+                .password("x")
+                .build());
+        seller = sellerProfileRepository.save(SellerProfile.builder().shopName("Stock test").user(user).build());
+        product = productRepository.save(Product.builder().title("Stock test").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        listingRepository.deleteAllById(listingIds);
+        productRepository.deleteById(product.getId());
+        sellerProfileRepository.deleteById(seller.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void concurrentBuyersNeverOversell() throws Exception {
+        Long listingId = listing(STOCK);
+
+        int sold = hammer(4 * STOCK, () -> decrement(listingId, 1, 0) ? 1 : 0);
+
+        assertThat(sold).isEqualTo(STOCK);
+        assertStock(listingId, 0);
+    }
+
+    @Test
+    void mixedQuantitiesSellExactlyWhatWasDecremented() throws Exception {
+        Long listingId = listing(STOCK);
+
+        int sold = hammer(4 * STOCK, () -> {
+            int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+            return decrement(listingId, quantity, 0) ? quantity : 0;
+        });
+
+        Listing listing = listingRepository.findById(listingId).orElseThrow();
+        assertThat(listing.getQuantity()).isGreaterThanOrEqualTo(0);
+        assertThat(sold + listing.getQuantity()).isEqualTo(STOCK);
+        assertThat(listing.getActive()).isEqualTo(listing.getQuantity() > 0);
+    }
+
+    @Test
+    void stockHeldByOtherCartsIsNotSold() throws Exception {
+        Long listingId = listing(STOCK);
+        int heldElsewhere = 20;
+
+        int sold = hammer(4 * STOCK, () -> decrement(listingId, 1, heldElsewhere) ? 1 : 0);
+
+        assertThat(sold).isEqualTo(STOCK - heldElsewhere);
+        assertStock(listingId, heldElsewhere);
+    }
+
+    @Test
+    void multiListingOrdersAreAllOrNothingWithoutDeadlock() throws Exception {
+        Long first = listing(STOCK);
+        Long second = listing(STOCK / 2);
+
+        // Comme OrderService.reserveStock : un lot par id croissant, annulé entièrement si une offre manque
+        int orders = hammer(4 * STOCK, () -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int[] updated = listingRepository.decrementStock(List.of(
+                            new ListingRepositoryCustom.StockDecrement(first, 1, 0),
+                            new ListingRepositoryCustom.StockDecrement(second, 1, 0)));
+                    if (updated[0] == 0 || updated[1] == 0) {
+                        throw new IllegalStateException("Insufficient stock");
+                    }
+                });
+                return 1;
+            } catch (IllegalStateException e) {
+                return 0;
+            }
+        });
+
+        assertThat(orders).isEqualTo(STOCK / 2);
+        assertStock(first, STOCK - STOCK / 2);
+        assertStock(second, 0);
+    }
+
+    /**
+     * Débit de la décrémentation conditionnelle face à la lecture verrouillée (SELECT … FOR UPDATE puis UPDATE)
+     * sous la même charge sur une seule offre ; les deux débits sont journalisés, sans comparaison imposée
+     */
+    @Test
+    void conditionalUpdateAgainstSelectForUpdateBaseline() throws Exception {
+        Long conditional = listing(THROUGHPUT_SALES);
+        long start = System.nanoTime();
+        int sold = hammer(THROUGHPUT_SALES, () -> decrement(conditional, 1, 0) ? 1 : 0);
+        double conditionalRate = perSecond(sold, System.nanoTime() - start);
+        assertThat(sold).isEqualTo(THROUGHPUT_SALES);
+        assertStock(conditional, 0);
+
+        Long locked = listing(THROUGHPUT_SALES);
+        start = System.nanoTime();
+        sold = hammer(THROUGHPUT_SALES, () -> decrementForUpdate(locked, 1, 0) ? 1 : 0);
+        double lockedRate = perSecond(sold, System.nanoTime() - start);
+        assertThat(sold).isEqualTo(THROUGHPUT_SALES);
+        assertStock(locked, 0);
+
+        log.info("Ventes sur une offre, {} threads: décrémentation conditionnelle {}/s, SELECT FOR UPDATE {}/s",
+                THREADS, Math.round(conditionalRate), Math.round(lockedRate));
+    }
+
+    private Long listing(int quantity) {
+        Long id = listingRepository.save(Listing.builder()
+                .product(product)
+                .seller(seller)
+                .price(BigDecimal.TEN)
+                .quantity(quantity)
+                .active(true)
+                .build()).getId();
+        listingIds.add(id);
+        return id;
+    }
+
+    private boolean decrement(Long listingId, int quantity, int heldElsewhere) {
+        int[] updated = transactionTemplate.execute(status -> listingRepository.decrementStock(
+                List.of(new ListingRepositoryCustom.StockDecrement(listingId, quantity, heldElsewhere))));
+        return updated != null && updated[0] == 1;
+    }
+
+    /**
+     * Référence : lecture du stock sous verrou de ligne, vérification côté application puis écriture
+     */
+    private boolean decrementForUpdate(Long listingId, int quantity, int heldElsewhere) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            List<Integer> rows = jdbcTemplate.queryForList(
+                    "SELECT quantity FROM listings WHERE id = ? AND active = TRUE FOR UPDATE", Integer.class, listingId);
+            if (rows.isEmpty() || rows.get(0) - quantity < heldElsewhere) {
+                return false;
+            }
+            int stock = rows.get(0);
+            jdbcTemplate.update("UPDATE listings SET quantity = ?, active = ? WHERE id = ?",
+                    stock - quantity, stock - quantity > 0, listingId);
+            return true;
+        }));
+    }
+
+    private static double perSecond(int count, long nanos) {
+        return count * 1_000_000_000.0 / nanos;
+    }
+
+    private void assertStock(Long listingId, int expected) {
+        Listing listing = listingRepository.findById(listingId).orElseThrow();
+        assertThat(listing.getQuantity()).isEqualTo(expected);
+        assertThat(listing.getActive()).isEqualTo(expected > 0);
+    }
+
+    /**
+     * Lance les tentatives depuis THREADS threads démarrés ensemble
+     *
+     * @return somme des quantités vendues
+     */
+    private int hammer(int attempts, Callable<Integer> attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < attempts; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    sold.addAndGet(attempt.call());
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return sold.get();
+    }
+}
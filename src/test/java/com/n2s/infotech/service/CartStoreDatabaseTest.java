@@ -0,0 +1,117 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.config.CartStoreProperties;
+import com.n2s.infotech.model.Listing;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.model.SellerProfile;
+import com.n2s.infotech.model.User;
+import com.n2s.infotech.repository.ListingRepository;
+import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.repository.SellerProfileRepository;
+import com.n2s.infotech.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Écriture différée des paniers sur la base configurée, avec le pilote tel que configuré
+ * (reWriteBatchedInserts compris)
+ */
+@SpringBootTest
+class CartStoreDatabaseTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ListingRepository listingRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private SellerProfileRepository sellerProfileRepository;
+
+    // Instance à part, que l'écriture planifiée du bean ne touche pas
+    private CartStore cartStore;
+    private User user;
+    private User otherUser;
+    private SellerProfile seller;
+    private Product product;
+    private Listing listing;
+    private Listing otherListing;
+
+    @BeforeEach
+    void setUp() {
+        CartStoreProperties properties = new CartStoreProperties();
+        properties.setMaxCarts(0);
+        properties.setIdleTtl(Duration.ZERO);
+        cartStore = new CartStore(properties, jdbcTemplate);
+        user = userRepository.save(User.builder().email("cart-test-" + UUID.randomUUID() + "@example.com").password("x").build());
+        otherUser = userRepository.save(User.builder().email("cart-test-" + UUID.randomUUID() + "@example.com").password("x").build());
+        seller = sellerProfileRepository.save(SellerProfile.builder().shopName("Cart test").build());
+        product = productRepository.save(Product.builder().title("Cart test").build());
+        listing = saveListing();
+        otherListing = saveListing();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM cart_items WHERE user_id IN (?, ?)", user.getId(), otherUser.getId());
+        listingRepository.deleteAllById(List.of(listing.getId(), otherListing.getId()));
+        productRepository.deleteById(product.getId());
+        sellerProfileRepository.deleteById(seller.getId());
+        userRepository.deleteAllById(List.of(user.getId(), otherUser.getId()));
+    }
+
+    /**
+     * Une ligne dont l'id est déjà pris par le panier d'un autre utilisateur, écrite dans le même lot
+     * qu'une ligne sans conflit : elle est réécrite sous un nouvel id, sans toucher la ligne existante
+     */
+    @Test
+    void idTakenByAnotherCartIsReassignedAlongsideAValidLine() {
+        Long conflicting = cartStore.put(user.getId(), listing.getId(), current -> 2).id();
+        Long valid = cartStore.put(user.getId(), otherListing.getId(), current -> 3).id();
+        jdbcTemplate.update("INSERT INTO cart_items (id, user_id, listing_id, quantity, added_at) VALUES (?, ?, ?, 7, now())",
+                conflicting, otherUser.getId(), otherListing.getId());
+
+        cartStore.flush();
+        cartStore.flush();
+
+        Map<String, Object> foreign = jdbcTemplate.queryForMap(
+                "SELECT user_id, listing_id, quantity FROM cart_items WHERE id = ?", conflicting);
+        assertThat(foreign).containsEntry("user_id", otherUser.getId())
+                .containsEntry("listing_id", otherListing.getId())
+                .containsEntry("quantity", 7);
+        List<Map<String, Object>> written = jdbcTemplate.queryForList(
+                "SELECT id, listing_id, quantity FROM cart_items WHERE user_id = ? ORDER BY quantity", user.getId());
+        assertThat(written).hasSize(2);
+        assertThat(written.get(0)).containsEntry("listing_id", listing.getId()).containsEntry("quantity", 2);
+        assertThat(written.get(0).get("id")).isNotEqualTo(conflicting);
+        assertThat(written.get(1)).containsEntry("id", valid)
+                .containsEntry("listing_id", otherListing.getId())
+                .containsEntry("quantity", 3);
+        assertThat(cartStore.lines(user.getId())).extracting(CartStore.Line::id)
+                .containsExactlyInAnyOrder((Long) written.get(0).get("id"), valid);
+    }
+
+    private Listing saveListing() {
+        return listingRepository.save(Listing.builder()
+                .product(product)
+                .seller(seller)
+                .price(BigDecimal.TEN)
+                .quantity(5)
+                .active(true)
+                .build());
+    }
+}
@@ -0,0 +1,163 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.config.CartStoreProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Écriture différée des paniers, la base étant simulée
+ */
+class CartStoreTest {
+
+    private static final Long USER_ID = 1L;
+    private static final Long LISTING_ID = 10L;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CartStoreProperties properties = new CartStoreProperties();
+    private final CartStore cartStore = new CartStore(properties, jdbcTemplate);
+    private final AtomicLong sequence = new AtomicLong(1);
+    // Arguments des upserts écrits, dans l'ordre
+    private final List<Object[]> upserts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Utilisateur existant au panier vide
+        ResultSet emptyCart = mock(ResultSet.class);
+        when(emptyCart.wasNull()).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(emptyCart);
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        when(jdbcTemplate.queryForObject(contains("pg_sequences"), eq(Long.class))).thenReturn(20L);
+        when(jdbcTemplate.queryForObject(contains("nextval"), eq(Long.class)))
+                .thenAnswer(invocation -> sequence.getAndAdd(20));
+        when(jdbcTemplate.batchUpdate(contains("DELETE"), anyList())).thenReturn(new int[0]);
+        properties.setMaxCarts(0);
+        properties.setIdleTtl(Duration.ZERO);
+    }
+
+    @Test
+    void idBlocksFollowTheSequenceIncrement() {
+        when(jdbcTemplate.query(contains("INSERT"), any(PreparedStatementSetter.class), any(RowMapper.class))).thenAnswer(this::recordAndSucceed);
+        for (long listingId = 1; listingId <= 21; listingId++) {
+            cartStore.put(USER_ID, listingId, current -> 1);
+        }
+
+        List<Long> ids = cartStore.lines(USER_ID).stream().map(CartStore.Line::id).toList();
+
+        assertThat(ids.subList(0, 20)).containsExactlyElementsOf(
+                LongStream.rangeClosed(1, 20).boxed().toList());
+        assertThat(ids.get(20)).isEqualTo(21L);
+        verify(jdbcTemplate, times(2)).queryForObject(contains("nextval"), eq(Long.class));
+    }
+
+    @Test
+    void failedWriteIsRetriedAndKeepsTheCartInMemory() {
+        when(jdbcTemplate.query(contains("INSERT"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenThrow(new QueryTimeoutException("panne"))
+                .thenAnswer(this::recordAndSucceed);
+        cartStore.put(USER_ID, LISTING_ID, current -> 2);
+
+        cartStore.flush();
+        cartStore.evict();
+        cartStore.lines(USER_ID);
+
+        verifyLoads(1);
+        cartStore.flush();
+        assertThat(upserts).hasSize(1);
+        assertThat(upserts.get(0)[3]).isEqualTo(2);
+
+        cartStore.evict();
+        cartStore.lines(USER_ID);
+        verifyLoads(2);
+    }
+
+    @Test
+    void editDuringWriteIsWrittenNextPass() {
+        when(jdbcTemplate.query(contains("INSERT"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenAnswer(invocation -> {
+                    cartStore.put(USER_ID, LISTING_ID, current -> 5);
+                    return recordAndSucceed(invocation);
+                })
+                .thenAnswer(this::recordAndSucceed);
+        cartStore.put(USER_ID, LISTING_ID, current -> 2);
+
+        cartStore.flush();
+        cartStore.evict();
+        cartStore.lines(USER_ID);
+        verifyLoads(1);
+
+        cartStore.flush();
+        assertThat(upserts).extracting(args -> args[3]).containsExactly(2, 5);
+    }
+
+    @Test
+    void idTakenByAnotherRowIsReassigned() {
+        when(jdbcTemplate.query(contains("INSERT"), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of())
+                .thenAnswer(this::recordAndSucceed);
+        Long conflicting = cartStore.put(USER_ID, LISTING_ID, current -> 2).id();
+
+        cartStore.flush();
+        CartStore.Line line = cartStore.lines(USER_ID).get(0);
+        cartStore.flush();
+
+        assertThat(line.id()).isNotEqualTo(conflicting);
+        assertThat(line.quantity()).isEqualTo(2);
+        assertThat(upserts).extracting(args -> args[0]).containsExactly(line.id());
+    }
+
+    /**
+     * Relève les lignes de l'upsert groupé, colonne par colonne, et les déclare toutes écrites
+     */
+    private List<Long> recordAndSucceed(InvocationOnMock invocation) throws Exception {
+        List<Object[]> columns = new ArrayList<>();
+        Connection connection = mock(Connection.class);
+        when(connection.createArrayOf(anyString(), any(Object[].class))).thenAnswer(create -> {
+            columns.add(create.getArgument(1));
+            return null;
+        });
+        PreparedStatement ps = mock(PreparedStatement.class);
+        when(ps.getConnection()).thenReturn(connection);
+        invocation.<PreparedStatementSetter>getArgument(1).setValues(ps);
+
+        List<Long> ids = new ArrayList<>();
+        for (int row = 0; row < columns.get(0).length; row++) {
+            int index = row;
+            upserts.add(columns.stream().map(column -> column[index]).toArray());
+            ids.add((Long) columns.get(0)[row]);
+        }
+        return ids;
+    }
+
+    private void verifyLoads(int count) {
+        verify(jdbcTemplate, times(count)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+    }
+}
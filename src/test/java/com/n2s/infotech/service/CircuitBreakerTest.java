@@ -0,0 +1,201 @@
+package com.n2s.infotech.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CircuitBreakerTest {
+
+    private static final int THRESHOLD = 3;
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+    private final MutableClock clock = new MutableClock();
+    private final AtomicInteger invocations = new AtomicInteger();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", THRESHOLD, OPEN_DURATION,
+            e -> e instanceof IOException, clock);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        for (int i = 0; i < THRESHOLD - 1; i++) {
+            fail();
+        }
+        assertThat(breaker.isOpen()).isFalse();
+
+        fail();
+
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    @Test
+    void successResetsTheFailureCount() throws Exception {
+        for (int i = 0; i < THRESHOLD - 1; i++) {
+            fail();
+        }
+        succeed();
+        for (int i = 0; i < THRESHOLD - 1; i++) {
+            fail();
+        }
+
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void ignoredExceptionsDoNotCountAsFailures() {
+        for (int i = 0; i < 2 * THRESHOLD; i++) {
+            assertThatThrownBy(() -> breaker.call(() -> {
+                invocations.incrementAndGet();
+                throw new IllegalArgumentException("refusé");
+            })).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void rejectsCallsWithoutRunningThemWhileOpen() {
+        open();
+        int before = invocations.get();
+
+        clock.advance(OPEN_DURATION.minusSeconds(1));
+        assertThatThrownBy(this::succeed).isInstanceOf(IllegalStateException.class);
+
+        assertThat(invocations.get()).isEqualTo(before);
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    @Test
+    void successfulProbeClosesTheCircuit() throws Exception {
+        open();
+        clock.advance(OPEN_DURATION);
+
+        succeed();
+
+        assertThat(breaker.isOpen()).isFalse();
+        succeed();
+    }
+
+    @Test
+    void failedProbeReopensForAnotherPeriod() throws Exception {
+        open();
+        clock.advance(OPEN_DURATION);
+
+        fail();
+
+        assertThat(breaker.isOpen()).isTrue();
+        clock.advance(OPEN_DURATION.minusSeconds(1));
+        assertThatThrownBy(this::succeed).isInstanceOf(IllegalStateException.class);
+        clock.advance(Duration.ofSeconds(1));
+        succeed();
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    /**
+     * Une panne ne doit pas occuper les threads : pendant l'essai, qui reste bloqué ici comme un appel
+     * en attente de son délai d'expiration, les autres appelants sont refusés sans entrer dans l'appel
+     */
+    @Test
+    void onlyOneCallerIsHeldByTheProbe() throws Exception {
+        open();
+        clock.advance(OPEN_DURATION);
+        int callers = 32;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return breaker.call(() -> {
+                            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                            release.await();
+                            inFlight.decrementAndGet();
+                            return null;
+                        });
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                        return null;
+                    }
+                }));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (rejected.get() < callers - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertThat(rejected.get()).isEqualTo(callers - 1);
+            assertThat(inFlight.get()).isEqualTo(1);
+
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        assertThat(maxInFlight.get()).isEqualTo(1);
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    private void open() {
+        for (int i = 0; i < THRESHOLD; i++) {
+            fail();
+        }
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    private void succeed() throws Exception {
+        breaker.call(invocations::incrementAndGet);
+    }
+
+    private void fail() {
+        assertThatThrownBy(() -> breaker.call(() -> {
+            invocations.incrementAndGet();
+            throw new IOException("délai dépassé");
+        })).isInstanceOf(IOException.class);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private volatile Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.dto.CreateOrderRequest;
+import com.n2s.infotech.dto.OrderDto;
+import com.n2s.infotech.dto.OrderItemRequestDto;
+import com.n2s.infotech.model.Listing;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.model.SellerProfile;
+import com.n2s.infotech.model.User;
+import com.n2s.infotech.repository.ListingRepository;
+import com.n2s.infotech.repository.OrderRepository;
+import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.repository.SellerProfileRepository;
+import com.n2s.infotech.repository.UserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Occupation du pool de connexions pendant la création de commandes, Stripe étant remplacé par un bouchon lent :
+ * la vérification du paiement se fait hors transaction, donc sans connexion, et des appels concurrents
+ * plus nombreux que le pool aboutissent sans attendre de connexion au-delà du délai du pool
+ */
+@SpringBootTest(properties = {
+        "stripe.client.stub=true",
+        "stripe.client.stub-latency=600ms",
+        "spring.datasource.hikari.maximum-pool-size=" + OrderServiceConnectionPoolTest.POOL_SIZE
+})
+@Slf4j
+class OrderServiceConnectionPoolTest {
+
+    static final int POOL_SIZE = 8;
+    private static final int ORDERS = 4 * POOL_SIZE;
+    private static final long LATENCY_MILLIS = 600;
+    // Fenêtre de mesure, après le départ, où tous les appels attendent le bouchon Stripe
+    private static final long STRIPE_WINDOW_START_MILLIS = 150;
+    private static final long STRIPE_WINDOW_END_MILLIS = 450;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ListingRepository listingRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private SellerProfileRepository sellerProfileRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> orderIds = new ArrayList<>();
+    // Une offre par commande : la mesure porte sur le pool, pas sur le verrou d'une ligne de stock commune
+    private final List<Listing> listings = new ArrayList<>();
+    private User buyer;
+    private SellerProfile seller;
+
+    @BeforeEach
+    void setUp() {
+        buyer = userRepository.save(User.builder()
+                .email("pool-test-" + UUID.randomUUID() + "@example.com")
+                .password("x")
+                .build());
+        seller = sellerProfileRepository.save(SellerProfile.builder().shopName("Pool test").build());
+        for (int i = 0; i <= ORDERS; i++) {
+            Product product = productRepository.save(Product.builder().title("Pool test " + i).build());
+            listings.add(listingRepository.save(Listing.builder()
+                    .product(product)
+                    .seller(seller)
+                    .price(BigDecimal.TEN)
+                    .quantity(1)
+                    .active(true)
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", orderIds.toArray())));
+        orderRepository.deleteAllById(orderIds);
+        listingRepository.deleteAll(listings);
+        productRepository.deleteAll(listings.stream().map(Listing::getProduct).toList());
+        sellerProfileRepository.deleteById(seller.getId());
+        userRepository.deleteById(buyer.getId());
+    }
+
+    /**
+     * ORDERS commandes lancées ensemble, quatre fois plus que de connexions : pendant qu'elles attendent
+     * toutes Stripe, le pool reste quasi libre (seules les tâches de fond l'utilisent) ; une connexion tenue
+     * pendant l'appel distant l'occuperait entièrement. Toutes les commandes aboutissent ensuite.
+     */
+    @Test
+    void stripeLatencyDoesNotHoldConnections() throws Exception {
+        // Première commande hors mesure : chargement des classes et des plans de requêtes
+        orderIds.add(createOrder(listings.get(ORDERS).getId()).getId());
+        HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger peakDuringStripe = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        Thread sampler = new Thread(() -> {
+            try {
+                start.await();
+                long startedAt = System.nanoTime();
+                while (running.get()) {
+                    int active = pool.getActiveConnections();
+                    peak.accumulateAndGet(active, Math::max);
+                    long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+                    if (elapsedMillis >= STRIPE_WINDOW_START_MILLIS && elapsedMillis <= STRIPE_WINDOW_END_MILLIS) {
+                        peakDuringStripe.accumulateAndGet(active, Math::max);
+                    }
+                    Thread.sleep(1);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        sampler.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(ORDERS);
+        long startedAt = System.nanoTime();
+        try {
+            List<Future<OrderDto>> futures = new ArrayList<>();
+            for (int i = 0; i < ORDERS; i++) {
+                Long listingId = listings.get(i).getId();
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return createOrder(listingId);
+                }));
+            }
+            start.countDown();
+            startedAt = System.nanoTime();
+            for (Future<OrderDto> future : futures) {
+                OrderDto order = future.get(60, TimeUnit.SECONDS);
+                orderIds.add(order.getId());
+                assertThat(order.getStatus()).isEqualTo("PAID");
+            }
+        } finally {
+            running.set(false);
+            sampler.join();
+            executor.shutdownNow();
+        }
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        log.info("{} commandes, bouchon Stripe {} ms, pool de {}: {} connexions actives au plus pendant l'appel Stripe, "
+                        + "{} au plus sur l'ensemble, {} ms",
+                ORDERS, LATENCY_MILLIS, POOL_SIZE, peakDuringStripe.get(), peak.get(), elapsedMillis);
+        assertThat(orderIds).hasSize(ORDERS + 1);
+        assertThat(peakDuringStripe.get()).isLessThan(POOL_SIZE / 2);
+    }
+
+    private OrderDto createOrder(Long listingId) {
+        return orderService.createOrder(new CreateOrderRequest(buyer.getId(),
+                List.of(new OrderItemRequestDto(listingId, 1)), "pi_pool_" + UUID.randomUUID(), null));
+    }
+}
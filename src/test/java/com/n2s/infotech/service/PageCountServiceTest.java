@@ -0,0 +1,44 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.config.PaginationProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Totaux en cache des listes paginées, la base étant simulée
+ */
+class PageCountServiceTest {
+
+    private final PageCountService service = new PageCountService(new PaginationProperties(),
+            mock(JdbcTemplate.class), Runnable::run);
+    // Nombre de count(*) exécutés
+    private final AtomicInteger counts = new AtomicInteger();
+    private final Supplier<Long> exactCount = () -> (long) counts.incrementAndGet();
+
+    /**
+     * Au-delà de la limite, seule la clé la moins récemment lue est retirée : une clé relue reste en cache
+     */
+    @Test
+    void overflowEvictsTheLeastRecentlyReadKey() {
+        for (int i = 0; i < PageCountService.MAX_CACHED_COUNTS; i++) {
+            service.cachedCount("key-" + i, exactCount).get();
+        }
+        service.cachedCount("key-0", exactCount).get();
+        service.cachedCount("key-new", exactCount).get();
+        counts.set(0);
+
+        service.cachedCount("key-0", exactCount).get();
+        service.cachedCount("key-2", exactCount).get();
+        assertThat(counts).hasValue(0);
+
+        service.cachedCount("key-1", exactCount).get();
+        assertThat(counts).hasValue(1);
+        assertThat(service.getStats()).containsEntry("cachedCounts", PageCountService.MAX_CACHED_COUNTS);
+    }
+}
@@ -0,0 +1,70 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.search.ProductSearchIndex;
+import com.n2s.infotech.search.ProductSuggestIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mise à jour des index en mémoire par le recalcul des offres, la transaction étant simulée
+ */
+class ProductOfferServiceTest {
+
+    private static final Long PRODUCT_ID = 1L;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex productSearchIndex = mock(ProductSearchIndex.class);
+    private final ProductSuggestIndex productSuggestIndex = mock(ProductSuggestIndex.class);
+    private final ProductOfferService service = new ProductOfferService(productRepository, productSearchIndex,
+            productSuggestIndex, mock(ApplicationEventPublisher.class));
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository.OfferSummary offer = mock(ProductRepository.OfferSummary.class);
+        when(offer.getId()).thenReturn(PRODUCT_ID);
+        when(offer.getBestPrice()).thenReturn(BigDecimal.TEN);
+        when(offer.getActiveListingCount()).thenReturn(3);
+        when(productRepository.findOfferSummaries(anyCollection())).thenReturn(List.of(offer));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void indexesAreUpdatedAfterCommit() {
+        service.refresh(PRODUCT_ID);
+        verifyNoInteractions(productSearchIndex, productSuggestIndex);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(productSearchIndex).updateBestPrice(PRODUCT_ID, BigDecimal.TEN);
+        verify(productSuggestIndex).updatePopularity(PRODUCT_ID, 3);
+    }
+
+    @Test
+    void rollbackLeavesIndexesUntouched() {
+        service.refresh(PRODUCT_ID);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(productSearchIndex, productSuggestIndex);
+    }
+}
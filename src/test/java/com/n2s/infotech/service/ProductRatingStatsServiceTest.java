@@ -0,0 +1,110 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.model.ProductRatingStats;
+import com.n2s.infotech.repository.ProductRatingStatsRepository;
+import com.n2s.infotech.repository.ProductSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache des distributions de notes, la base étant simulée
+ */
+class ProductRatingStatsServiceTest {
+
+    private static final Long PRODUCT_ID = 1L;
+
+    private final ProductRatingStatsRepository repository = mock(ProductRatingStatsRepository.class);
+    private final ProductRatingStatsService service = new ProductRatingStatsService(repository,
+            mock(ProductSummaryRepository.class), mock(JdbcTemplate.class), mock(TransactionTemplate.class));
+    // Nombre d'avis 5 étoiles validé en base
+    private final AtomicInteger fiveStars = new AtomicInteger();
+
+    /**
+     * Des lectures concurrentes d'écritures d'avis ne doivent jamais laisser en cache une distribution
+     * antérieure à la dernière écriture validée
+     */
+    @Test
+    void cacheNeverKeepsAStaleHistogram() throws Exception {
+        widenFillWindow();
+        when(repository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            int count = fiveStars.get();
+            Thread.yield();
+            return List.of(ProductRatingStats.builder().productId(PRODUCT_ID).count5(count).build());
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int round = 0; round < 200; round++) {
+                AtomicBoolean writing = new AtomicBoolean(true);
+                List<Future<?>> readers = new ArrayList<>();
+                for (int i = 0; i < 7; i++) {
+                    readers.add(executor.submit(() -> {
+                        while (writing.get()) {
+                            service.getStats(PRODUCT_ID);
+                        }
+                    }));
+                }
+                for (int i = 0; i < 20; i++) {
+                    commitReview();
+                }
+                writing.set(false);
+                for (Future<?> reader : readers) {
+                    reader.get(10, TimeUnit.SECONDS);
+                }
+
+                assertThat(service.getStats(PRODUCT_ID).getRatingCounts().get(5)).isEqualTo((long) fiveStars.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Remplace le cache par une map dont putAll laisse d'abord la main, pour que les retraits tombent
+     * souvent entre la vérification de la génération et le remplissage
+     */
+    private void widenFillWindow() throws ReflectiveOperationException {
+        Field histograms = ProductRatingStatsService.class.getDeclaredField("histograms");
+        histograms.setAccessible(true);
+        histograms.set(service, new ConcurrentHashMap<Long, int[]>() {
+            @Override
+            public void putAll(Map<? extends Long, ? extends int[]> entries) {
+                Thread.yield();
+                super.putAll(entries);
+            }
+        });
+    }
+
+    /**
+     * Écriture d'un avis 5 étoiles puis validation de sa transaction
+     */
+    private void commitReview() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.apply(PRODUCT_ID, 5, 1);
+            fiveStars.incrementAndGet();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package com.n2s.infotech.service;
+
+import com.n2s.infotech.config.StripeWebhookProperties;
+import com.n2s.infotech.model.Listing;
+import com.n2s.infotech.model.Order;
+import com.n2s.infotech.model.OrderItem;
+import com.n2s.infotech.model.Product;
+import com.n2s.infotech.model.SellerProfile;
+import com.n2s.infotech.model.User;
+import com.n2s.infotech.repository.ListingRepository;
+import com.n2s.infotech.repository.OrderRepository;
+import com.n2s.infotech.repository.ProductRepository;
+import com.n2s.infotech.repository.SellerProfileRepository;
+import com.n2s.infotech.repository.UserRepository;
+import com.stripe.net.Webhook;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Webhook Stripe de bout en bout sur la base configurée : événements signés par une source factice,
+ * enregistrement puis application aux commandes par lots
+ */
+@SpringBootTest
+@Slf4j
+class StripeWebhookServiceTest {
+
+    private static final String SECRET = "whsec_test";
+    private static final int ORDERS = 2_000;
+
+    @Autowired
+    private StripeWebhookService stripeWebhookService;
+    @Autowired
+    private StripeWebhookProperties stripeWebhookProperties;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ListingRepository listingRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private SellerProfileRepository sellerProfileRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final FakeStripeEventSource stripe = new FakeStripeEventSource(SECRET);
+    private final List<String> eventIds = new ArrayList<>();
+    private final List<Long> orderIds = new ArrayList<>();
+    private final List<Object> listingFixtures = new ArrayList<>();
+    private String previousSecret;
+    private User buyer;
+
+    @BeforeEach
+    void setUp() {
+        previousSecret = stripeWebhookProperties.getSecret();
+        stripeWebhookProperties.setSecret(SECRET);
+        buyer = userRepository.save(User.builder()
+                .email("webhook-test-" + UUID.randomUUID() + "@example.com")
+                .password("x")
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        stripeWebhookProperties.setSecret(previousSecret);
+        jdbcTemplate.update("DELETE FROM stripe_events WHERE event_id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", eventIds.toArray())));
+        jdbcTemplate.update("DELETE FROM outbox_events WHERE aggregate_id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", orderIds.toArray())));
+        orderRepository.deleteAllById(orderIds);
+        for (Object fixture : listingFixtures) {
+            if (fixture instanceof Listing listing) {
+                listingRepository.deleteById(listing.getId());
+            } else if (fixture instanceof Product product) {
+                productRepository.deleteById(product.getId());
+            } else if (fixture instanceof SellerProfile seller) {
+                sellerProfileRepository.deleteById(seller.getId());
+            }
+        }
+        userRepository.deleteById(buyer.getId());
+    }
+
+    /**
+     * La moitié des paiements réussit, l'autre échoue, chaque événement étant renvoyé deux fois par Stripe :
+     * les commandes passent à PAID ou CANCELLED, les doublons sont écartés à la réception
+     */
+    @Test
+    void paysEveryOrderAndReportsThroughput() throws Exception {
+        List<String> paymentIntentIds = IntStream.range(0, ORDERS).mapToObj(i -> paymentIntentId()).toList();
+        orderRepository.saveAll(paymentIntentIds.stream().map(this::newOrder).toList())
+                .forEach(order -> orderIds.add(order.getId()));
+        List<FakeStripeEventSource.SignedEvent> deliveries = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            String type = i % 2 == 0 ? "payment_intent.succeeded" : "payment_intent.payment_failed";
+            FakeStripeEventSource.SignedEvent event = stripe.event(type, paymentIntentIds.get(i));
+            deliveries.add(event);
+            deliveries.add(event);
+        }
+
+        long start = System.nanoTime();
+        int accepted = 0;
+        for (FakeStripeEventSource.SignedEvent delivery : deliveries) {
+            if (stripeWebhookService.ingest(delivery.payload(), delivery.signature())) {
+                accepted++;
+            }
+        }
+        long ingested = System.nanoTime();
+        awaitSettled();
+        long processed = System.nanoTime();
+
+        assertThat(accepted).isEqualTo(ORDERS);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE id = ANY (?) " +
+                        "AND status = 'PAID' AND payment_status = 'succeeded'", Integer.class, orderIdArray()))
+                .isEqualTo(ORDERS / 2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM orders WHERE id = ANY (?) " +
+                        "AND status = 'CANCELLED' AND payment_status = 'failed'", Integer.class, orderIdArray()))
+                .isEqualTo(ORDERS / 2);
+        log.info("Webhook Stripe : {} livraisons reçues en {} ms ({}/s), {} événements appliqués en {} ms ({}/s)",
+                deliveries.size(), millis(ingested - start), perSecond(deliveries.size(), ingested - start),
+                accepted, millis(processed - ingested), perSecond(accepted, processed - ingested));
+    }
+
+    /**
+     * Un succès reçu avant l'enregistrement de la commande reste en attente et s'applique à la reprise suivante
+     */
+    @Test
+    void eventBeforeItsOrderIsRetried() throws Exception {
+        String paymentIntentId = paymentIntentId();
+        FakeStripeEventSource.SignedEvent succeeded = stripe.event("payment_intent.succeeded", paymentIntentId);
+        stripeWebhookService.ingest(succeeded.payload(), succeeded.signature());
+
+        awaitSettled();
+
+        assertThat(status(succeeded.eventId())).isEqualTo("PENDING");
+        assertThat(retryAt(succeeded.eventId())).isAfter(Instant.now());
+
+        Long orderId = order(paymentIntentId);
+        jdbcTemplate.update("UPDATE stripe_events SET retry_at = ? WHERE event_id = ?",
+                Timestamp.from(Instant.now().minusSeconds(1)), succeeded.eventId());
+        awaitSettled();
+
+        assertThat(status(succeeded.eventId())).isEqualTo("PROCESSED");
+        assertThat(orderRepository.findById(orderId).orElseThrow().getStatus()).isEqualTo("PAID");
+    }
+
+    /**
+     * Un paiement en cours abandonné annule la commande et rend son stock : l'offre épuisée redevient active
+     */
+    @Test
+    void failedPaymentCancelsThePendingOrderAndRestocks() throws Exception {
+        String paymentIntentId = paymentIntentId();
+        Listing listing = soldOutListing();
+        Order order = newOrder(paymentIntentId);
+        order.getItems().add(OrderItem.builder().order(order).listing(listing).quantity(3).price(BigDecimal.TEN).build());
+        Long orderId = orderRepository.save(order).getId();
+        orderIds.add(orderId);
+        FakeStripeEventSource.SignedEvent failed = stripe.event("payment_intent.payment_failed", paymentIntentId);
+        stripeWebhookService.ingest(failed.payload(), failed.signature());
+
+        awaitSettled();
+
+        Order cancelled = orderRepository.findById(orderId).orElseThrow();
+        assertThat(cancelled.getStatus()).isEqualTo("CANCELLED");
+        assertThat(cancelled.getPaymentStatus()).isEqualTo("failed");
+        Listing restocked = listingRepository.findById(listing.getId()).orElseThrow();
+        assertThat(restocked.getQuantity()).isEqualTo(3);
+        assertThat(restocked.getActive()).isTrue();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE aggregate_id = ? " +
+                "AND event_type = 'ORDER_CANCELLED'", Integer.class, orderId)).isPositive();
+    }
+
+    @Test
+    void eventWithoutOrderIsAbandonedAfterTheHorizon() throws Exception {
+        FakeStripeEventSource.SignedEvent succeeded = stripe.event("payment_intent.succeeded", paymentIntentId());
+        stripeWebhookService.ingest(succeeded.payload(), succeeded.signature());
+        jdbcTemplate.update("UPDATE stripe_events SET received_at = ? WHERE event_id = ?",
+                Timestamp.from(Instant.now().minus(stripeWebhookProperties.getRetryHorizon()).minusSeconds(1)),
+                succeeded.eventId());
+
+        awaitSettled();
+
+        assertThat(status(succeeded.eventId())).isEqualTo("PROCESSED");
+        assertThat(retryAt(succeeded.eventId())).isNull();
+    }
+
+    private Long order(String paymentIntentId) {
+        Long id = orderRepository.save(newOrder(paymentIntentId)).getId();
+        orderIds.add(id);
+        return id;
+    }
+
+    /**
+     * Commande enregistrée pendant que son paiement était encore en cours
+     */
+    private Order newOrder(String paymentIntentId) {
+        return Order.builder()
+                .buyer(buyer)
+                .status("CREATED")
+                .paymentIntentId(paymentIntentId)
+                .paymentStatus("pending")
+                .total(BigDecimal.TEN)
+                .build();
+    }
+
+    /**
+     * Offre dont les 3 unités sont réservées par une commande en attente (décrément fait à la commande)
+     */
+    private Listing soldOutListing() {
+        SellerProfile seller = sellerProfileRepository.save(SellerProfile.builder().shopName("Webhook test").build());
+        Product product = productRepository.save(Product.builder().title("Webhook test").build());
+        Listing listing = listingRepository.save(Listing.builder()
+                .product(product)
+                .seller(seller)
+                .price(BigDecimal.TEN)
+                .quantity(0)
+                .active(false)
+                .build());
+        listingFixtures.addAll(List.of(listing, product, seller));
+        return listing;
+    }
+
+    private String paymentIntentId() {
+        return "pi_test_" + UUID.randomUUID();
+    }
+
+    /**
+     * Traite jusqu'à ce qu'aucun événement du test ne soit dû ; le traitement planifié peut en tenir
+     * une partie verrouillée, d'où la boucle
+     */
+    private void awaitSettled() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(60).toNanos();
+        while (true) {
+            stripeWebhookService.process();
+            Integer due = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stripe_events WHERE event_id = ANY (?) " +
+                    "AND status = 'PENDING' AND (retry_at IS NULL OR retry_at <= now())", Integer.class, eventIdArray());
+            if (due == 0) {
+                return;
+            }
+            assertThat(System.nanoTime()).as("événements encore en attente: %d", due).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private String status(String eventId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM stripe_events WHERE event_id = ?", String.class, eventId);
+    }
+
+    private Instant retryAt(String eventId) {
+        Timestamp retryAt = jdbcTemplate.queryForObject("SELECT retry_at FROM stripe_events WHERE event_id = ?",
+                Timestamp.class, eventId);
+        return retryAt != null ? retryAt.toInstant() : null;
+    }
+
+    private Object eventIdArray() {
+        return eventIds.toArray(String[]::new);
+    }
+
+    private Object orderIdArray() {
+        return orderIds.toArray(Long[]::new);
+    }
+
+    private static long millis(long nanos) {
+        return Duration.ofNanos(nanos).toMillis();
+    }
+
+    private static long perSecond(int count, long nanos) {
+        return Math.round(count * 1e9 / nanos);
+    }
+
+    /**
+     * Source d'événements Stripe factice : charge utile minimale d'un événement PaymentIntent, signée
+     * comme le fait Stripe (HMAC-SHA256 de "horodatage.charge utile")
+     */
+    private class FakeStripeEventSource {
+
+        private final String secret;
+
+        record SignedEvent(String eventId, String payload, String signature) {
+        }
+
+        FakeStripeEventSource(String secret) {
+            this.secret = secret;
+        }
+
+        SignedEvent event(String type, String paymentIntentId) throws Exception {
+            String eventId = "evt_test_" + UUID.randomUUID();
+            long timestamp = Webhook.Util.getTimeNow();
+            String payload = """
+                    {"id":"%s","object":"event","api_version":"2023-10-16","created":%d,"type":"%s",\
+                    "data":{"object":{"id":"%s","object":"payment_intent"}}}"""
+                    .formatted(eventId, timestamp, type, paymentIntentId);
+            String signature = "t=" + timestamp + ",v1=" + Webhook.Util.computeHmacSha256(secret, timestamp + "." + payload);
+            eventIds.add(eventId);
+            return new SignedEvent(eventId, payload, signature);
+        }
+    }
+}